@@ -0,0 +1,33 @@
+package com.github.charlesluxinger.operator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Batching operators, to be applied with {@link Flux#transform}.
+ */
+public final class BatchingOperators {
+
+	private BatchingOperators() {
+	}
+
+	/**
+	 * Batches of at most {@code maxSize} elements, emitted right away while the downstream keeps up and
+	 * growing while it is busy, sized so that a batch takes about {@code targetLatency} downstream.
+	 * {@code maxDelay} bounds how long an element waits when the downstream never signals it is idle.
+	 */
+	public static <T> Function<Flux<T>, Flux<List<T>>> adaptiveBatch(int maxSize, Duration maxDelay, Duration targetLatency) {
+		return source -> new FluxAdaptiveBatch<>(source, maxSize, maxDelay.toNanos(), targetLatency.toNanos(), Schedulers.parallel());
+	}
+
+	public static <T> Function<Flux<T>, Flux<List<T>>> adaptiveBatch(int maxSize, Duration maxDelay, Duration targetLatency,
+																   Scheduler scheduler) {
+		return source -> new FluxAdaptiveBatch<>(source, maxSize, maxDelay.toNanos(), targetLatency.toNanos(), scheduler);
+	}
+
+}
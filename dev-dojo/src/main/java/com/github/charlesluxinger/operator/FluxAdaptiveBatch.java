@@ -0,0 +1,354 @@
+package com.github.charlesluxinger.operator;
+
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.Scannable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.concurrent.Queues;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batches elements with a size that follows the downstream instead of being fixed up front.
+ * <p>
+ * A batch is emitted, given demand, as soon as one of these holds:
+ * <ul>
+ *     <li>the downstream is idle, i.e. it requested since the last batch: at low load elements go out right away;</li>
+ *     <li>the target size is reached: while the downstream is busy, elements pile up into larger batches;</li>
+ *     <li>{@code maxDelay} passed since the batch started filling, for downstreams that never go idle (unbounded demand);</li>
+ *     <li>the source completed.</li>
+ * </ul>
+ * Each request after a batch went out is taken as the downstream being done with the batch it was
+ * working on (as with {@code concatMap}, which requests the next element when it starts on one), and
+ * the target size is scaled so that a full batch takes about {@code targetLatency}.
+ * <p>
+ * At most {@code maxSize} elements are buffered or requested from upstream at any time.
+ */
+final class FluxAdaptiveBatch<T> extends FluxOperator<T, List<T>> {
+
+	private final int maxSize;
+	private final long maxDelayNanos;
+	private final long targetLatencyNanos;
+	private final Scheduler scheduler;
+
+	FluxAdaptiveBatch(Flux<? extends T> source, int maxSize, long maxDelayNanos, long targetLatencyNanos, Scheduler scheduler) {
+		super(source);
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be at least 1, was " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.maxDelayNanos = maxDelayNanos;
+		this.targetLatencyNanos = targetLatencyNanos;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public void subscribe(CoreSubscriber<? super List<T>> actual) {
+		source.subscribe(new AdaptiveBatchSubscriber<>(actual, maxSize, maxDelayNanos, targetLatencyNanos, scheduler));
+	}
+
+	static final class AdaptiveBatchSubscriber<T> implements CoreSubscriber<T>, Subscription, Scannable {
+
+		private final CoreSubscriber<? super List<T>> actual;
+		private final int maxSize;
+		private final long maxDelayNanos;
+		private final long targetLatencyNanos;
+		private final Scheduler scheduler;
+		private final Scheduler.Worker worker;
+
+		private final Queue<T> queue;
+		private final AtomicInteger buffered = new AtomicInteger();
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+		// sizes of the batches emitted but not yet taken up by the downstream, guarded by itself
+		private final ArrayDeque<Integer> emittedSizes = new ArrayDeque<>();
+
+		private Subscription upstream;
+		private volatile boolean done;
+		private Throwable error;
+		private volatile boolean cancelled;
+
+		// bumped by every request, the downstream is idle while this is ahead of what the last batch saw
+		private final AtomicLong idleSignals = new AtomicLong();
+		private volatile int targetSize;
+		private volatile Thread emitting;
+		private volatile long timedOutBatch = -1;
+
+		// guarded by emittedSizes
+		private int inServiceSize;
+		private long inServiceSince;
+
+		// only touched by the drain loop
+		private long batchIndex;
+		private long seenIdleSignals = -1;
+		private long timerBatch = -1;
+
+		AdaptiveBatchSubscriber(CoreSubscriber<? super List<T>> actual, int maxSize, long maxDelayNanos,
+								long targetLatencyNanos, Scheduler scheduler) {
+			this.actual = actual;
+			this.maxSize = maxSize;
+			this.maxDelayNanos = maxDelayNanos;
+			this.targetLatencyNanos = targetLatencyNanos;
+			this.scheduler = scheduler;
+			this.worker = scheduler.createWorker();
+			this.queue = Queues.<T>get(maxSize).get();
+			this.targetSize = maxSize;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(upstream, s)) {
+				upstream = s;
+				actual.onSubscribe(this);
+				s.request(maxSize);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t, actual.currentContext());
+				return;
+			}
+			if (!queue.offer(t)) {
+				// upstream sent more than it was asked for
+				upstream.cancel();
+				onError(Operators.onOperatorError(upstream, Exceptions.failWithOverflow(), t, actual.currentContext()));
+				return;
+			}
+			buffered.incrementAndGet();
+			drain();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t, actual.currentContext());
+				return;
+			}
+			error = t;
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void request(long n) {
+			if (!Operators.validate(n)) {
+				return;
+			}
+			observe(n);
+			idleSignals.incrementAndGet();
+			requested.getAndUpdate(r -> Operators.addCap(r, n));
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			if (cancelled) {
+				return;
+			}
+			cancelled = true;
+			upstream.cancel();
+			worker.dispose();
+			if (wip.getAndIncrement() == 0) {
+				discard();
+			}
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+
+			int missed = 1;
+			for (;;) {
+				long r = requested.get();
+				long e = 0L;
+
+				for (;;) {
+					if (cancelled) {
+						discard();
+						return;
+					}
+
+					boolean d = done;
+					if (d && error != null) {
+						discard();
+						worker.dispose();
+						actual.onError(error);
+						return;
+					}
+
+					int available = buffered.get();
+					if (available == 0) {
+						if (d) {
+							worker.dispose();
+							actual.onComplete();
+							return;
+						}
+						break;
+					}
+
+					if (e == r) {
+						break;
+					}
+
+					long signals = idleSignals.get();
+					boolean idle = signals != seenIdleSignals;
+					boolean flush = d || idle || available >= targetSize || timedOutBatch == batchIndex;
+					if (!flush) {
+						break;
+					}
+
+					int n = Math.min(available, targetSize);
+					List<T> batch = new ArrayList<>(n);
+					for (int i = 0; i < n; i++) {
+						batch.add(queue.poll());
+					}
+					buffered.addAndGet(-n);
+
+					batchIndex++;
+					// only what this pass saw: a request since then keeps the downstream idle
+					seenIdleSignals = signals;
+					if (r != Long.MAX_VALUE) {
+						synchronized (emittedSizes) {
+							emittedSizes.add(n);
+						}
+					}
+
+					emitting = Thread.currentThread();
+					actual.onNext(batch);
+					emitting = null;
+					e++;
+					upstream.request(n);
+				}
+
+				if (e != 0L && r != Long.MAX_VALUE) {
+					requested.addAndGet(-e);
+				}
+
+				scheduleTimeout();
+
+				missed = wip.addAndGet(-missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Ends the service of the batch the downstream was working on and starts the next one. A request
+		 * made from within {@code onNext} means the downstream took the new batch right away, so it had been
+		 * idle for an unknown time and the previous batch gives no sample. Unbounded demand never comes
+		 * back, so it gives no samples at all and the target stays where it is.
+		 */
+		private void observe(long n) {
+			boolean immediate = emitting == Thread.currentThread();
+			synchronized (emittedSizes) {
+				long now = now();
+				for (long i = 0; i < n && !emittedSizes.isEmpty(); i++) {
+					if (inServiceSize > 0 && !immediate) {
+						adapt(inServiceSize, now - inServiceSince);
+					}
+					inServiceSize = emittedSizes.poll();
+					inServiceSince = now;
+				}
+			}
+		}
+
+		/**
+		 * Scales the target so that a full batch would take about {@code targetLatency} downstream, within
+		 * a 10% band to keep it from flapping. A slow batch shrinks the target, but only a full one can grow
+		 * it: a small batch flushed early says nothing about how a bigger one would do.
+		 */
+		private void adapt(int size, long latency) {
+			if (targetLatencyNanos <= 0) {
+				return;
+			}
+
+			double ratio = Math.max(0.5, Math.min(2.0, (double) targetLatencyNanos / Math.max(latency, 1)));
+			if (ratio < 0.9) {
+				targetSize = Math.max(1, Math.min(targetSize, (int) (size * ratio)));
+			} else if (ratio > 1.1 && size >= targetSize) {
+				targetSize = Math.min(maxSize, Math.max(targetSize + 1, (int) (targetSize * ratio)));
+			}
+		}
+
+		/**
+		 * Arms one timer per batch: a timer that fires after its batch went out is ignored.
+		 */
+		private void scheduleTimeout() {
+			if (maxDelayNanos <= 0 || done || buffered.get() == 0 || timerBatch == batchIndex) {
+				return;
+			}
+
+			long batch = batchIndex;
+			timerBatch = batch;
+			worker.schedule(() -> {
+				timedOutBatch = batch;
+				drain();
+			}, maxDelayNanos, TimeUnit.NANOSECONDS);
+		}
+
+		private void discard() {
+			buffered.set(0);
+			Operators.onDiscardQueueWithClear(queue, actual.currentContext(), null);
+		}
+
+		private long now() {
+			return scheduler.now(TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public Object scanUnsafe(Attr key) {
+			if (key == Attr.PARENT) {
+				return upstream;
+			}
+			if (key == Attr.ACTUAL) {
+				return actual;
+			}
+			if (key == Attr.CANCELLED) {
+				return cancelled;
+			}
+			if (key == Attr.TERMINATED) {
+				return done;
+			}
+			if (key == Attr.ERROR) {
+				return error;
+			}
+			if (key == Attr.BUFFERED) {
+				return buffered.get();
+			}
+			if (key == Attr.CAPACITY || key == Attr.PREFETCH) {
+				return maxSize;
+			}
+			if (key == Attr.REQUESTED_FROM_DOWNSTREAM) {
+				return requested.get();
+			}
+			if (key == Attr.RUN_ON) {
+				return worker;
+			}
+			return null;
+		}
+	}
+
+}
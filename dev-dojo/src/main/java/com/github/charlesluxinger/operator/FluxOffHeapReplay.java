@@ -0,0 +1,322 @@
+package com.github.charlesluxinger.operator;
+
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.Scannable;
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * Replays a hot source from an {@link OffHeapRingBuffer}.
+ * <p>
+ * As with {@link Flux#replay}, the source is requested unbounded once connected and every element is
+ * recorded, while each subscriber reads the history at its own pace, from the oldest record retained
+ * when it subscribed. A connection that terminated keeps its history for later subscribers, one that was
+ * disposed is replaced, with an empty history, by the next subscribe or connect.
+ */
+final class FluxOffHeapReplay<T> extends ConnectableFlux<T> implements Scannable {
+
+	private final Flux<? extends T> source;
+	private final ReplayCodec<T> codec;
+	private final long maxBytes;
+	private final int chunkBytes;
+	private final long maxAgeNanos;
+	private final Scheduler scheduler;
+	private final AtomicReference<ReplayConnection<T>> connection = new AtomicReference<>();
+
+	FluxOffHeapReplay(Flux<? extends T> source, ReplayCodec<T> codec, long maxBytes, int chunkBytes, long maxAgeNanos,
+					  Scheduler scheduler) {
+		this.source = source;
+		this.codec = codec;
+		this.maxBytes = maxBytes;
+		this.chunkBytes = chunkBytes;
+		this.maxAgeNanos = maxAgeNanos;
+		this.scheduler = scheduler;
+		OffHeapRingBuffer.chunkCount(maxBytes, chunkBytes);
+	}
+
+	@Override
+	public void connect(Consumer<? super Disposable> cancelSupport) {
+		ReplayConnection<T> current = current();
+		cancelSupport.accept(current);
+		if (current.connected.compareAndSet(false, true)) {
+			source.subscribe(current);
+		}
+	}
+
+	@Override
+	public void subscribe(CoreSubscriber<? super T> actual) {
+		ReplayConnection<T> current = current();
+		ReplaySubscription<T> subscription = new ReplaySubscription<>(actual, current);
+		actual.onSubscribe(subscription);
+		current.subscribers.add(subscription);
+		if (subscription.cancelled) {
+			current.subscribers.remove(subscription);
+			return;
+		}
+		subscription.drain();
+	}
+
+	@Override
+	public Object scanUnsafe(Attr key) {
+		if (key == Attr.PARENT) {
+			return source;
+		}
+		return null;
+	}
+
+	private ReplayConnection<T> current() {
+		for (;;) {
+			ReplayConnection<T> current = connection.get();
+			if (current != null && !current.isDisposed()) {
+				return current;
+			}
+			ReplayConnection<T> fresh = new ReplayConnection<>(new OffHeapRingBuffer(maxBytes, chunkBytes), codec, maxAgeNanos, scheduler);
+			if (connection.compareAndSet(current, fresh)) {
+				return fresh;
+			}
+		}
+	}
+
+	static final class ReplayConnection<T> implements CoreSubscriber<T>, Disposable {
+
+		private final OffHeapRingBuffer buffer;
+		private final ReplayCodec<T> codec;
+		private final long maxAgeNanos;
+		private final Scheduler scheduler;
+		private final CopyOnWriteArrayList<ReplaySubscription<T>> subscribers = new CopyOnWriteArrayList<>();
+		private final AtomicBoolean connected = new AtomicBoolean();
+
+		private volatile Subscription upstream;
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<ReplayConnection, Subscription> UPSTREAM =
+				AtomicReferenceFieldUpdater.newUpdater(ReplayConnection.class, Subscription.class, "upstream");
+
+		private volatile boolean done;
+		private volatile Throwable error;
+		private volatile boolean disposed;
+
+		ReplayConnection(OffHeapRingBuffer buffer, ReplayCodec<T> codec, long maxAgeNanos, Scheduler scheduler) {
+			this.buffer = buffer;
+			this.codec = codec;
+			this.maxAgeNanos = maxAgeNanos;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.setOnce(UPSTREAM, this, s)) {
+				s.request(Long.MAX_VALUE);
+			}
+		}
+
+		@Override
+		public void onNext(T t) {
+			if (done) {
+				Operators.onNextDropped(t, currentContext());
+				return;
+			}
+			try {
+				long now = scheduler.now(TimeUnit.NANOSECONDS);
+				buffer.append(codec.encode(t), now);
+				buffer.evictOlderThan(cutoff(now));
+			} catch (Throwable e) {
+				onError(Operators.onOperatorError(upstream, e, t, currentContext()));
+				return;
+			}
+			drainAll();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t, currentContext());
+				return;
+			}
+			error = t;
+			done = true;
+			drainAll();
+		}
+
+		@Override
+		public void onComplete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			drainAll();
+		}
+
+		@Override
+		public void dispose() {
+			if (disposed) {
+				return;
+			}
+			disposed = true;
+			Operators.terminate(UPSTREAM, this);
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return disposed;
+		}
+
+		long cutoff() {
+			return cutoff(scheduler.now(TimeUnit.NANOSECONDS));
+		}
+
+		private long cutoff(long now) {
+			return maxAgeNanos == Long.MAX_VALUE ? Long.MIN_VALUE : now - maxAgeNanos;
+		}
+
+		private void drainAll() {
+			for (ReplaySubscription<T> subscriber : subscribers) {
+				subscriber.drain();
+			}
+		}
+	}
+
+	static final class ReplaySubscription<T> implements Subscription, Scannable {
+
+		private final CoreSubscriber<? super T> actual;
+		private final ReplayConnection<T> connection;
+		private final OffHeapRingBuffer.Cursor cursor;
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+
+		private volatile boolean cancelled;
+
+		ReplaySubscription(CoreSubscriber<? super T> actual, ReplayConnection<T> connection) {
+			this.actual = actual;
+			this.connection = connection;
+			this.cursor = connection.buffer.cursor();
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				requested.getAndUpdate(r -> Operators.addCap(r, n));
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (cancelled) {
+				return;
+			}
+			cancelled = true;
+			connection.subscribers.remove(this);
+		}
+
+		void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+
+			int missed = 1;
+			for (;;) {
+				long r = requested.get();
+				long e = 0L;
+
+				while (e != r) {
+					if (cancelled) {
+						return;
+					}
+
+					boolean d = connection.done;
+					T t;
+					try {
+						t = connection.buffer.read(cursor, connection.cutoff(), connection.codec::decode);
+					} catch (Throwable ex) {
+						fail(ex);
+						return;
+					}
+
+					if (t == null) {
+						if (d) {
+							terminate();
+							return;
+						}
+						break;
+					}
+
+					actual.onNext(t);
+					e++;
+				}
+
+				if (e == r) {
+					if (cancelled) {
+						return;
+					}
+					boolean d = connection.done;
+					boolean empty;
+					try {
+						empty = !connection.buffer.advance(cursor, connection.cutoff());
+					} catch (Throwable ex) {
+						fail(ex);
+						return;
+					}
+					if (d && empty) {
+						terminate();
+						return;
+					}
+				}
+
+				if (e != 0L && r != Long.MAX_VALUE) {
+					requested.addAndGet(-e);
+				}
+
+				missed = wip.addAndGet(-missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		private void terminate() {
+			connection.subscribers.remove(this);
+			Throwable error = connection.error;
+			if (error != null) {
+				actual.onError(error);
+			} else {
+				actual.onComplete();
+			}
+		}
+
+		private void fail(Throwable e) {
+			cancel();
+			actual.onError(Operators.onOperatorError(this, e, actual.currentContext()));
+		}
+
+		@Override
+		public Object scanUnsafe(Attr key) {
+			if (key == Attr.ACTUAL) {
+				return actual;
+			}
+			if (key == Attr.CANCELLED) {
+				return cancelled;
+			}
+			if (key == Attr.TERMINATED) {
+				return connection.done;
+			}
+			if (key == Attr.REQUESTED_FROM_DOWNSTREAM) {
+				return requested.get();
+			}
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.github.charlesluxinger.operator;
+
+import reactor.util.concurrent.Queues;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Producers claim a slot by moving the producer index with a CAS and then publish the element into it,
+ * so the consumer can find a claimed slot still empty for a moment: {@link #poll} and {@link #peek} then
+ * answer null rather than wait, since the consumer may be running on a thread that must not block. Callers
+ * have to look again once the producer is done, which a drain loop entered after every offer does. The
+ * consumer owns the consumer index and only ever publishes it, producers read it to tell whether the queue
+ * is full.
+ */
+final class MpscArrayQueue<T> extends AbstractQueue<T> {
+
+	private final AtomicReferenceArray<T> buffer;
+	private final int mask;
+	private final int capacity;
+	private final AtomicLong producerIndex = new AtomicLong();
+	private final AtomicLong consumerIndex = new AtomicLong();
+
+	MpscArrayQueue(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1, was " + capacity);
+		}
+		int size = Queues.ceilingNextPowerOfTwo(capacity);
+		this.buffer = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Safe from any number of threads. Returns false, without blocking, when the queue is full.
+	 */
+	@Override
+	public boolean offer(T element) {
+		if (element == null) {
+			throw new NullPointerException("element");
+		}
+		for (;;) {
+			long p = producerIndex.get();
+			if (p - consumerIndex.get() >= capacity) {
+				return false;
+			}
+			if (producerIndex.compareAndSet(p, p + 1)) {
+				buffer.lazySet((int) p & mask, element);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Single consumer only. Returns null when the queue is empty or the next slot is claimed but not yet published.
+	 */
+	@Override
+	public T poll() {
+		long c = consumerIndex.get();
+		int offset = (int) c & mask;
+		T element = buffer.get(offset);
+		if (element == null) {
+			return null;
+		}
+		buffer.lazySet(offset, null);
+		consumerIndex.lazySet(c + 1);
+		return element;
+	}
+
+	/**
+	 * Single consumer only. Returns null when the queue is empty or the next slot is claimed but not yet published.
+	 */
+	@Override
+	public T peek() {
+		return buffer.get((int) consumerIndex.get() & mask);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return consumerIndex.get() == producerIndex.get();
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.max(0, Math.min(capacity, producerIndex.get() - consumerIndex.get()));
+	}
+
+	int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Weakly consistent, like the iterators of the {@code java.util.concurrent} queues: returns, in order, the
+	 * elements queued when it was created that are not yet consumed when it reaches them, and never throws
+	 * {@link java.util.ConcurrentModificationException}. Safe from any thread; removal is not supported.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<>() {
+
+			private final long end = producerIndex.get();
+			private long index = consumerIndex.get();
+			private T next = advance();
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public T next() {
+				T element = next;
+				if (element == null) {
+					throw new NoSuchElementException();
+				}
+				next = advance();
+				return element;
+			}
+
+			private T advance() {
+				while (index < end) {
+					long i = index++;
+					T element = buffer.get((int) i & mask);
+					// once consumed, the slot may already hold an element queued after this iterator was created
+					long c = consumerIndex.get();
+					if (c > i) {
+						index = Math.max(index, c);
+						continue;
+					}
+					// null when claimed but not yet published
+					if (element != null) {
+						return element;
+					}
+				}
+				return null;
+			}
+		};
+	}
+
+}
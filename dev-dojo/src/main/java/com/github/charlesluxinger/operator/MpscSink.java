@@ -0,0 +1,225 @@
+package com.github.charlesluxinger.operator;
+
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Scannable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fan-in point where any number of threads push elements to a single subscriber without locking.
+ * <p>
+ * Producers only enqueue and try to enter the drain loop: whoever wins delivers everything queued, up to
+ * the demand, while the others return right away. Elements pushed before anyone subscribed wait in the
+ * queue. A bounded sink pushes back on producers instead of growing: {@link #tryNext} returns false while
+ * the subscriber is {@code capacity} elements behind.
+ * <p>
+ * {@link #complete} and {@link #error} must happen after the last {@link #tryNext} of every producer,
+ * elements still racing with them may be discarded, and only one of them may be called.
+ */
+public final class MpscSink<T> {
+
+	private final Queue<T> queue;
+	private final int capacity;
+	private final AtomicInteger wip = new AtomicInteger();
+	private final AtomicLong requested = new AtomicLong();
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+	private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+	private volatile CoreSubscriber<? super T> actual;
+	private volatile boolean done;
+	private volatile boolean cancelled;
+
+	private MpscSink(Queue<T> queue, int capacity) {
+		this.queue = queue;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * A sink that buffers at most {@code capacity} elements the subscriber did not take yet.
+	 */
+	public static <T> MpscSink<T> bounded(int capacity) {
+		return new MpscSink<>(new MpscArrayQueue<>(capacity), capacity);
+	}
+
+	/**
+	 * A sink whose producers never fail for lack of room, for when they can outrun the subscriber only briefly.
+	 */
+	public static <T> MpscSink<T> unbounded() {
+		return new MpscSink<>(Queues.<T>unboundedMultiproducer().get(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Safe from any number of threads. Returns false when the element was not taken: the sink is full,
+	 * terminated or cancelled.
+	 */
+	public boolean tryNext(T t) {
+		if (done || cancelled) {
+			return false;
+		}
+		if (!queue.offer(t)) {
+			return false;
+		}
+		drain();
+		return true;
+	}
+
+	public void complete() {
+		if (done) {
+			return;
+		}
+		done = true;
+		drain();
+	}
+
+	public void error(Throwable e) {
+		if (done || !error.compareAndSet(null, e)) {
+			Operators.onErrorDropped(e, Context.empty());
+			return;
+		}
+		done = true;
+		drain();
+	}
+
+	/**
+	 * The elements pushed into this sink, for a single subscriber.
+	 */
+	public Flux<T> asFlux() {
+		return new FluxMpscSink();
+	}
+
+	private void drain() {
+		if (wip.getAndIncrement() != 0) {
+			return;
+		}
+
+		int missed = 1;
+		for (;;) {
+			CoreSubscriber<? super T> a = actual;
+			if (a != null) {
+				long r = requested.get();
+				long e = 0L;
+
+				while (e != r) {
+					if (cancelled) {
+						Operators.onDiscardQueueWithClear(queue, a.currentContext(), null);
+						return;
+					}
+
+					boolean d = done;
+					T t = queue.poll();
+					if (d && t == null) {
+						terminate(a);
+						return;
+					}
+					if (t == null) {
+						break;
+					}
+
+					a.onNext(t);
+					e++;
+				}
+
+				if (e == r) {
+					if (cancelled) {
+						Operators.onDiscardQueueWithClear(queue, a.currentContext(), null);
+						return;
+					}
+					if (done && queue.isEmpty()) {
+						terminate(a);
+						return;
+					}
+				}
+
+				if (e != 0L && r != Long.MAX_VALUE) {
+					requested.addAndGet(-e);
+				}
+			}
+
+			missed = wip.addAndGet(-missed);
+			if (missed == 0) {
+				break;
+			}
+		}
+	}
+
+	private void terminate(CoreSubscriber<? super T> a) {
+		Throwable e = error.get();
+		if (e != null) {
+			a.onError(e);
+		} else {
+			a.onComplete();
+		}
+	}
+
+	private final class FluxMpscSink extends Flux<T> implements Scannable {
+
+		@Override
+		public void subscribe(CoreSubscriber<? super T> subscriber) {
+			if (!subscribed.compareAndSet(false, true)) {
+				Operators.error(subscriber, new IllegalStateException("MpscSink allows only a single subscriber"));
+				return;
+			}
+			subscriber.onSubscribe(new MpscSinkSubscription(subscriber));
+			actual = subscriber;
+			drain();
+		}
+
+		@Override
+		public Object scanUnsafe(Attr key) {
+			if (key == Attr.BUFFERED) {
+				return queue.size();
+			}
+			if (key == Attr.CAPACITY) {
+				return capacity;
+			}
+			if (key == Attr.TERMINATED) {
+				return done;
+			}
+			if (key == Attr.CANCELLED) {
+				return cancelled;
+			}
+			if (key == Attr.ERROR) {
+				return error.get();
+			}
+			return null;
+		}
+	}
+
+	private final class MpscSinkSubscription implements Subscription {
+
+		private final CoreSubscriber<? super T> subscriber;
+
+		private MpscSinkSubscription(CoreSubscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				requested.getAndUpdate(r -> Operators.addCap(r, n));
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (cancelled) {
+				return;
+			}
+			cancelled = true;
+			if (wip.getAndIncrement() == 0) {
+				Operators.onDiscardQueueWithClear(queue, subscriber.currentContext(), null);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.github.charlesluxinger.operator;
+
+import reactor.core.Exceptions;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+/**
+ * Ring of direct {@link ByteBuffer} chunks holding serialized elements, so that a long history costs a
+ * handful of objects on the heap whatever its length.
+ * <p>
+ * Each element is a record of its length, its timestamp and its bytes, appended to the newest chunk.
+ * When all chunks are in use the oldest one is dropped as a whole and its memory reused. Chunks whose
+ * newest record is too old are dropped too, and readers skip older records in the chunks that remain.
+ * <p>
+ * Readers keep their own {@link Cursor}. A reader whose chunk was dropped to make room fell too far behind
+ * and gets an overflow error, one whose chunk aged out just moves on to the oldest chunk left.
+ */
+final class OffHeapRingBuffer {
+
+	static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+	private final ByteBuffer[] chunks;
+	private final int[] limits;
+	private final long[] newestTimestamps;
+	private final int chunkBytes;
+
+	// chunks are numbered from 0, chunk n lives in slot n % chunks.length: [first, last] are retained
+	private long first;
+	private long last = -1;
+	// chunks below this one were dropped to make room
+	private long overrun;
+
+	OffHeapRingBuffer(long maxBytes, int chunkBytes) {
+		int count = chunkCount(maxBytes, chunkBytes);
+		this.chunks = new ByteBuffer[count];
+		this.limits = new int[count];
+		this.newestTimestamps = new long[count];
+		this.chunkBytes = chunkBytes;
+	}
+
+	/**
+	 * How many chunks a buffer of {@code maxBytes} has, at least two so that dropping one keeps some history.
+	 */
+	static int chunkCount(long maxBytes, int chunkBytes) {
+		if (chunkBytes <= HEADER_BYTES) {
+			throw new IllegalArgumentException("chunkBytes must be more than " + HEADER_BYTES + ", was " + chunkBytes);
+		}
+		long count = Math.max(2, (maxBytes + chunkBytes - 1) / chunkBytes);
+		if (count > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("maxBytes " + maxBytes + " needs too many chunks of " + chunkBytes);
+		}
+		return (int) count;
+	}
+
+	synchronized void append(byte[] payload, long timestamp) {
+		int size = HEADER_BYTES + payload.length;
+		if (size > chunkBytes) {
+			throw new IllegalArgumentException("element of " + payload.length + " bytes does not fit a chunk of " + chunkBytes);
+		}
+		if (last < first || limits[slot(last)] + size > chunkBytes) {
+			open();
+		}
+
+		int slot = slot(last);
+		ByteBuffer chunk = chunks[slot];
+		int offset = limits[slot];
+		chunk.putInt(offset, payload.length);
+		chunk.putLong(offset + Integer.BYTES, timestamp);
+		chunk.position(offset + HEADER_BYTES);
+		chunk.put(payload);
+		limits[slot] = offset + size;
+		newestTimestamps[slot] = timestamp;
+	}
+
+	/**
+	 * Drops the chunks holding only records older than {@code cutoff}.
+	 */
+	synchronized void evictOlderThan(long cutoff) {
+		while (first <= last && newestTimestamps[slot(first)] < cutoff) {
+			first++;
+		}
+	}
+
+	/**
+	 * A cursor on the oldest record retained.
+	 */
+	synchronized Cursor cursor() {
+		return new Cursor(first);
+	}
+
+	/**
+	 * Moves the cursor to the next record not older than {@code cutoff}, returning false if there is none yet.
+	 */
+	synchronized boolean advance(Cursor cursor, long cutoff) {
+		for (;;) {
+			if (cursor.chunk < first) {
+				if (cursor.chunk < overrun) {
+					throw Exceptions.failWithOverflow("Subscriber fell behind the off-heap replay buffer");
+				}
+				cursor.chunk = first;
+				cursor.offset = 0;
+			}
+			if (cursor.chunk > last) {
+				return false;
+			}
+
+			int slot = slot(cursor.chunk);
+			if (cursor.offset >= limits[slot]) {
+				if (cursor.chunk == last) {
+					return false;
+				}
+				cursor.chunk++;
+				cursor.offset = 0;
+				continue;
+			}
+
+			ByteBuffer chunk = chunks[slot];
+			if (chunk.getLong(cursor.offset + Integer.BYTES) >= cutoff) {
+				return true;
+			}
+			cursor.offset += HEADER_BYTES + chunk.getInt(cursor.offset);
+		}
+	}
+
+	/**
+	 * Decodes the next record not older than {@code cutoff} and moves past it, or returns null if there is none yet.
+	 * The buffer given to {@code decode} is only valid during the call.
+	 */
+	synchronized <T> T read(Cursor cursor, long cutoff, Function<ByteBuffer, T> decode) {
+		if (!advance(cursor, cutoff)) {
+			return null;
+		}
+
+		ByteBuffer chunk = chunks[slot(cursor.chunk)];
+		int length = chunk.getInt(cursor.offset);
+		int start = cursor.offset + HEADER_BYTES;
+		cursor.offset = start + length;
+		return decode.apply(chunk.duplicate().limit(start + length).position(start).slice().asReadOnlyBuffer());
+	}
+
+	/**
+	 * Off-heap bytes taken by the chunks allocated so far.
+	 */
+	synchronized long allocatedBytes() {
+		long allocated = 0;
+		for (ByteBuffer chunk : chunks) {
+			if (chunk != null) {
+				allocated += chunk.capacity();
+			}
+		}
+		return allocated;
+	}
+
+	private void open() {
+		last++;
+		if (last - first >= chunks.length) {
+			first = last - chunks.length + 1;
+			overrun = first;
+		}
+
+		int slot = slot(last);
+		if (chunks[slot] == null) {
+			chunks[slot] = ByteBuffer.allocateDirect(chunkBytes);
+		}
+		limits[slot] = 0;
+	}
+
+	private int slot(long chunk) {
+		return (int) (chunk % chunks.length);
+	}
+
+	static final class Cursor {
+
+		private long chunk;
+		private int offset;
+
+		private Cursor(long chunk) {
+			this.chunk = chunk;
+		}
+	}
+
+}
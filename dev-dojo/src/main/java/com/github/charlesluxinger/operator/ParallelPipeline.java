@@ -0,0 +1,103 @@
+package com.github.charlesluxinger.operator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.ParallelFlux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * CPU-bound per-element stages spread over rails, to be applied with {@link Flux#transform}.
+ * <p>
+ * The source is split round-robin into {@code parallelism} rails, each running every stage on its own
+ * worker of the scheduler, then merged back. Unordered, elements come out as soon as any rail is done
+ * with them. Ordered, each element is tagged with its index and the rails are merged by it: a slow
+ * element holds back the ones after it, but no rail stops working meanwhile, up to {@code prefetch}.
+ * <p>
+ * Pipelines are immutable, every method returns a new one.
+ */
+public final class ParallelPipeline<T, R> implements Function<Flux<T>, Flux<R>> {
+
+	private final Function<? super T, ? extends R> stages;
+	private final int parallelism;
+	private final int prefetch;
+	private final boolean ordered;
+	private final Scheduler scheduler;
+
+	private ParallelPipeline(Function<? super T, ? extends R> stages, int parallelism, int prefetch, boolean ordered,
+							 Scheduler scheduler) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+		}
+		if (prefetch < 1) {
+			throw new IllegalArgumentException("prefetch must be at least 1, was " + prefetch);
+		}
+		this.stages = stages;
+		this.parallelism = parallelism;
+		this.prefetch = prefetch;
+		this.ordered = ordered;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * A pipeline with no stage yet, one rail per core of {@link Schedulers#parallel()}, unordered.
+	 */
+	public static <T> ParallelPipeline<T, T> create() {
+		return new ParallelPipeline<>(Function.identity(), Schedulers.DEFAULT_POOL_SIZE, Queues.SMALL_BUFFER_SIZE, false,
+									  Schedulers.parallel());
+	}
+
+	/**
+	 * Adds a stage after the existing ones, run on the same rail as them.
+	 */
+	public <V> ParallelPipeline<T, V> map(Function<? super R, ? extends V> stage) {
+		return new ParallelPipeline<>(stages.andThen(stage), parallelism, prefetch, ordered, scheduler);
+	}
+
+	public ParallelPipeline<T, R> parallelism(int parallelism) {
+		return new ParallelPipeline<>(stages, parallelism, prefetch, ordered, scheduler);
+	}
+
+	/**
+	 * How many elements each rail takes ahead, and, when ordered, how many the merge holds per rail.
+	 */
+	public ParallelPipeline<T, R> prefetch(int prefetch) {
+		return new ParallelPipeline<>(stages, parallelism, prefetch, ordered, scheduler);
+	}
+
+	/**
+	 * Keeps the source order in the output.
+	 */
+	public ParallelPipeline<T, R> ordered() {
+		return new ParallelPipeline<>(stages, parallelism, prefetch, true, scheduler);
+	}
+
+	/**
+	 * The scheduler the rails run on. It should have at least {@code parallelism} workers, or rails share threads.
+	 */
+	public ParallelPipeline<T, R> runOn(Scheduler scheduler) {
+		return new ParallelPipeline<>(stages, parallelism, prefetch, ordered, scheduler);
+	}
+
+	@Override
+	public Flux<R> apply(Flux<T> source) {
+		if (!ordered) {
+			return rails(source).<R>map(stages::apply).sequential(prefetch);
+		}
+
+		return rails(source.index())
+				.map(indexed -> Tuples.<Long, R>of(indexed.getT1(), stages.apply(indexed.getT2())))
+				.ordered(Comparator.comparingLong(Tuple2::getT1), prefetch)
+				.map(Tuple2::getT2);
+	}
+
+	private <V> ParallelFlux<V> rails(Flux<V> source) {
+		return source.parallel(parallelism, prefetch).runOn(scheduler, prefetch);
+	}
+
+}
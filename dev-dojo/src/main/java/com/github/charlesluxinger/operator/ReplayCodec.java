@@ -0,0 +1,18 @@
+package com.github.charlesluxinger.operator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * How {@link ReplayOperators#offHeapReplay} turns elements into bytes and back.
+ */
+public interface ReplayCodec<T> {
+
+	byte[] encode(T value);
+
+	/**
+	 * Reads an element from exactly the bytes {@link #encode} produced. The buffer must not be kept after
+	 * returning: its memory is reused once the record it holds is dropped.
+	 */
+	T decode(ByteBuffer bytes);
+
+}
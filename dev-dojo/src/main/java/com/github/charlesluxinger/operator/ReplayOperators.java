@@ -0,0 +1,41 @@
+package com.github.charlesluxinger.operator;
+
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Replay operators, to be applied with {@link Flux#as}.
+ */
+public final class ReplayOperators {
+
+	private ReplayOperators() {
+	}
+
+	/**
+	 * Like {@link Flux#replay(Duration)}, but the history is kept serialized in direct memory, in chunks of
+	 * {@code chunkBytes}, at most {@code maxBytes} of them and no older than {@code maxAge}. The heap only
+	 * holds the elements being handed to subscribers, so a large history does not grow the old generation.
+	 */
+	public static <T> Function<Flux<T>, ConnectableFlux<T>> offHeapReplay(ReplayCodec<T> codec, long maxBytes, int chunkBytes,
+																		  Duration maxAge) {
+		return offHeapReplay(codec, maxBytes, chunkBytes, maxAge, Schedulers.parallel());
+	}
+
+	public static <T> Function<Flux<T>, ConnectableFlux<T>> offHeapReplay(ReplayCodec<T> codec, long maxBytes, int chunkBytes,
+																		  Duration maxAge, Scheduler scheduler) {
+		return source -> new FluxOffHeapReplay<>(source, codec, maxBytes, chunkBytes, maxAge.toNanos(), scheduler);
+	}
+
+	/**
+	 * Like {@link Flux#replay(int)}, bounded by {@code maxBytes} of direct memory instead of a number of elements.
+	 */
+	public static <T> Function<Flux<T>, ConnectableFlux<T>> offHeapReplay(ReplayCodec<T> codec, long maxBytes, int chunkBytes) {
+		return source -> new FluxOffHeapReplay<>(source, codec, maxBytes, chunkBytes, Long.MAX_VALUE, Schedulers.parallel());
+	}
+
+}
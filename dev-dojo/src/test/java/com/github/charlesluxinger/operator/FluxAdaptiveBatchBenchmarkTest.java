@@ -0,0 +1,125 @@
+package com.github.charlesluxinger.operator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.github.charlesluxinger.operator.BatchingOperators.adaptiveBatch;
+
+/**
+ * {@link BatchingOperators#adaptiveBatch} against {@code buffer} and {@code bufferTimeout} in front of a
+ * simulated bulk write costing a fixed round trip plus a little per element, one write at a time.
+ * High load arrives in bursts on a 1ms tick, as virtual time does not run sub-millisecond intervals evenly.
+ * Runs on virtual time, so the numbers are exact and the same on every machine.
+ */
+public class FluxAdaptiveBatchBenchmarkTest {
+
+	private static final int MAX_SIZE = 100;
+	private static final Duration MAX_DELAY = Duration.ofMillis(50);
+	private static final Duration TARGET_LATENCY = Duration.ofMillis(20);
+	private static final long ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+	private static final long PER_ELEMENT_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+	@AfterEach
+	public void tearDown() {
+		VirtualTimeScheduler.reset();
+	}
+
+	@Test
+	public void compareWithBufferAndBufferTimeout() {
+		System.out.println(String.format("%-8s %-14s %8s %10s %10s %10s", "load", "operator", "writes", "mean ms", "p99 ms", "total ms"));
+
+		var loads = List.of(new Load("low", Duration.ofMillis(20), 1, 500), new Load("medium", Duration.ofMillis(1), 1, 2_000),
+							new Load("high", Duration.ofMillis(1), 10, 20_000));
+
+		for (var load : loads) {
+			var buffer = run(load, "buffer", flux -> flux.buffer(MAX_SIZE));
+			// bufferTimeout does not wait for demand when its timer fires, so it needs a buffer behind it
+			var bufferTimeout = run(load, "bufferTimeout", flux -> flux.bufferTimeout(MAX_SIZE, MAX_DELAY).onBackpressureBuffer());
+			var adaptive = run(load, "adaptiveBatch", adaptiveBatch(MAX_SIZE, MAX_DELAY, TARGET_LATENCY));
+
+			// near saturation a fixed size fills as fast as anything, the point is not to fall far behind it
+			Assertions.assertTrue(adaptive.p99 <= 1.5 * Math.min(buffer.p99, bufferTimeout.p99), "adaptive p99 " + adaptive.p99 + " ms");
+		}
+	}
+
+	/**
+	 * Each element carries the virtual time it was produced at, so the write can tell how long it waited.
+	 */
+	private Result run(Load load, String name, Function<Flux<Long>, Flux<List<Long>>> batching) {
+		var scheduler = VirtualTimeScheduler.getOrSet();
+		var writes = new AtomicInteger();
+		var latencies = new long[load.count];
+		var written = new AtomicInteger();
+		var lastWrite = new AtomicLong();
+
+		Flux.interval(load.interval)
+			.take(load.count / load.burst)
+			.flatMapIterable(i -> Collections.nCopies(load.burst, scheduler.now(TimeUnit.NANOSECONDS)))
+			.onBackpressureBuffer()
+			.transform(batching)
+			.concatMap(batch -> Mono.delay(Duration.ofNanos(ROUND_TRIP_NANOS + PER_ELEMENT_NANOS * batch.size()))
+									.doOnNext(tick -> {
+										var now = scheduler.now(TimeUnit.NANOSECONDS);
+										writes.incrementAndGet();
+										lastWrite.set(now);
+										batch.forEach(producedAt -> latencies[written.getAndIncrement()] = now - producedAt);
+									}), 1)
+			.subscribe();
+
+		var start = scheduler.now(TimeUnit.NANOSECONDS);
+		scheduler.advanceTimeBy(Duration.ofHours(1));
+		Assertions.assertEquals(load.count, written.get());
+
+		var total = 0L;
+		for (var latency : latencies) {
+			total += latency;
+		}
+		Arrays.sort(latencies);
+		var result = new Result(total / load.count / 1e6, latencies[load.count * 99 / 100] / 1e6);
+
+		System.out.println(String.format("%-8s %-14s %8d %10.1f %10.1f %10.0f", load.name, name, writes.get(), result.mean,
+										 result.p99, (lastWrite.get() - start) / 1e6));
+		VirtualTimeScheduler.reset();
+		return result;
+	}
+
+	private static final class Load {
+
+		private final String name;
+		private final Duration interval;
+		private final int burst;
+		private final int count;
+
+		private Load(String name, Duration interval, int burst, int count) {
+			this.name = name;
+			this.interval = interval;
+			this.burst = burst;
+			this.count = count;
+		}
+	}
+
+	private static final class Result {
+
+		private final double mean;
+		private final double p99;
+
+		private Result(double mean, double p99) {
+			this.mean = mean;
+			this.p99 = p99;
+		}
+	}
+
+}
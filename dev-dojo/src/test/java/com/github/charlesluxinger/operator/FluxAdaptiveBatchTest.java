@@ -0,0 +1,205 @@
+package com.github.charlesluxinger.operator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.charlesluxinger.operator.BatchingOperators.adaptiveBatch;
+
+@Slf4j
+public class FluxAdaptiveBatchTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	@Test
+	public void emitsRightAwayWhileDownstreamKeepsUp() {
+		StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofSeconds(1))
+											   .take(3)
+											   .transform(adaptiveBatch(100, Duration.ofSeconds(10), Duration.ofMillis(50)))
+											   .concatMap(Mono::just, 1))
+					.expectSubscription()
+					.expectNoEvent(Duration.ofSeconds(1))
+					.expectNext(List.of(0L))
+					.expectNoEvent(Duration.ofSeconds(1))
+					.expectNext(List.of(1L))
+					.thenAwait(Duration.ofSeconds(1))
+					.expectNext(List.of(2L))
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void batchesGrowWhileDownstreamIsBusy() {
+		var sizes = new ArrayList<Integer>();
+
+		StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofMillis(10))
+											   .take(100)
+											   .transform(adaptiveBatch(64, Duration.ofSeconds(1), Duration.ofSeconds(1)))
+											   .concatMap(batch -> Mono.delay(Duration.ofMillis(100)).thenReturn(batch.size()), 1))
+					.expectSubscription()
+					.thenAwait(Duration.ofSeconds(2))
+					.recordWith(() -> sizes)
+					.thenConsumeWhile(size -> true)
+					.expectComplete()
+					.verify(TIMEOUT);
+
+		log.info("Batch sizes: {}", sizes);
+		Assertions.assertEquals(List.of(1, 1), sizes.subList(0, 2));
+		sizes.subList(2, sizes.size() - 1).forEach(size -> Assertions.assertTrue(size >= 8, "batch of " + size));
+		Assertions.assertEquals(100, sizes.stream().mapToInt(Integer::intValue).sum());
+	}
+
+	@Test
+	public void targetSizeShrinksToMeetTargetLatency() {
+		var sizes = new ArrayList<Integer>();
+
+		StepVerifier.withVirtualTime(() -> Flux.range(0, 1_000)
+											   .transform(adaptiveBatch(100, Duration.ofSeconds(1), Duration.ofMillis(200)))
+											   .concatMap(batch -> Mono.delay(Duration.ofMillis(10L * batch.size())).thenReturn(batch.size()), 1))
+					.expectSubscription()
+					.thenAwait(Duration.ofMinutes(1))
+					.recordWith(() -> sizes)
+					.thenConsumeWhile(size -> true)
+					.expectComplete()
+					.verify(TIMEOUT);
+
+		log.info("Batch sizes: {}", sizes);
+		Assertions.assertTrue(sizes.contains(100));
+		Assertions.assertEquals(1_000, sizes.stream().mapToInt(Integer::intValue).sum());
+		sizes.subList(sizes.size() / 2, sizes.size() - 1)
+			 .forEach(size -> Assertions.assertTrue(size >= 18 && size <= 22, "batch of " + size));
+	}
+
+	@Test
+	public void targetSizeGrowsBackWhenDownstreamSpeedsUp() {
+		var slow = new AtomicBoolean(true);
+		var sizes = new ArrayList<Integer>();
+
+		StepVerifier.withVirtualTime(() -> Flux.range(0, 3_000)
+											   .transform(adaptiveBatch(100, Duration.ofSeconds(1), Duration.ofMillis(200)))
+											   .concatMap(batch -> Mono.delay(Duration.ofMillis((slow.get() ? 10L : 1L) * batch.size()))
+																	   .thenReturn(batch.size()), 1)
+											   .doOnNext(size -> {
+												   sizes.add(size);
+												   slow.set(sizes.size() < 20);
+											   }))
+					.expectSubscription()
+					.thenAwait(Duration.ofMinutes(1))
+					.thenConsumeWhile(size -> true)
+					.expectComplete()
+					.verify(TIMEOUT);
+
+		log.info("Batch sizes: {}", sizes);
+		Assertions.assertTrue(sizes.get(19) <= 22, "batch of " + sizes.get(19));
+		Assertions.assertEquals(100, sizes.get(sizes.size() - 2));
+	}
+
+	@Test
+	public void maxDelayBoundsWaitWithUnboundedDemand() {
+		StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofMillis(10))
+											   .take(13)
+											   .transform(adaptiveBatch(100, Duration.ofMillis(55), Duration.ofMillis(50))))
+					.expectSubscription()
+					.thenAwait(Duration.ofMillis(10))
+					.expectNext(List.of(0L))
+					.expectNoEvent(Duration.ofMillis(64))
+					.thenAwait(Duration.ofMillis(1))
+					.expectNext(List.of(1L, 2L, 3L, 4L, 5L, 6L))
+					.thenAwait(Duration.ofMillis(55))
+					.expectNext(List.of(7L, 8L, 9L, 10L, 11L, 12L))
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void emitsFullBatchesWithoutWaiting() {
+		StepVerifier.create(Flux.range(0, 10).transform(adaptiveBatch(4, Duration.ofMinutes(1), Duration.ofMinutes(1))))
+					.expectNext(List.of(0))
+					.expectNext(List.of(1, 2, 3, 4))
+					.expectNext(List.of(5, 6, 7, 8))
+					.expectNext(List.of(9))
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void respectsDownstreamDemandAndBoundsUpstreamRequests() {
+		var requestedFromSource = new AtomicLong();
+
+		StepVerifier.create(Flux.range(0, 1_000)
+								.doOnRequest(requestedFromSource::addAndGet)
+								.transform(adaptiveBatch(50, Duration.ofMinutes(1), Duration.ofMinutes(1))), 0)
+					.expectSubscription()
+					.then(() -> Assertions.assertEquals(50, requestedFromSource.get()))
+					.expectNoEvent(Duration.ofMillis(50))
+					.thenRequest(1)
+					.expectNext(range(0, 50))
+					.then(() -> Assertions.assertEquals(100, requestedFromSource.get()))
+					.thenRequest(2)
+					.expectNext(range(50, 100), range(100, 150))
+					.then(() -> Assertions.assertEquals(200, requestedFromSource.get()))
+					.thenCancel()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void errorDiscardsBufferedElements() {
+		var source = TestPublisher.<Integer>create();
+		var discarded = new ArrayList<Object>();
+
+		StepVerifier.create(source.flux()
+								  .transform(adaptiveBatch(10, Duration.ofMinutes(1), Duration.ofMinutes(1)))
+								  .doOnDiscard(Integer.class, discarded::add), 0)
+					.expectSubscription()
+					.then(() -> source.next(1, 2, 3))
+					.then(() -> source.error(new IllegalStateException("boom")))
+					.expectErrorMessage("boom")
+					.verify(TIMEOUT);
+
+		Assertions.assertEquals(List.of(1, 2, 3), discarded);
+	}
+
+	@Test
+	public void cancelCancelsUpstream() {
+		var source = TestPublisher.<Integer>create();
+
+		StepVerifier.create(source.flux().transform(adaptiveBatch(10, Duration.ofMinutes(1), Duration.ofMinutes(1))))
+					.then(() -> source.next(1))
+					.expectNext(List.of(1))
+					.thenCancel()
+					.verify(TIMEOUT);
+
+		source.assertCancelled();
+	}
+
+	@Test
+	public void completionFlushesRemainder() {
+		var source = TestPublisher.<Integer>create();
+
+		StepVerifier.create(source.flux().transform(adaptiveBatch(10, Duration.ofMinutes(1), Duration.ofMinutes(1))), 1)
+					.then(() -> source.next(1, 2, 3))
+					.expectNext(List.of(1))
+					.then(source::complete)
+					.thenRequest(1)
+					.expectNext(List.of(2, 3))
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	private static List<Integer> range(int from, int to) {
+		return IntStream.range(from, to).boxed().collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.github.charlesluxinger.operator;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import static com.github.charlesluxinger.operator.ReplayOperators.offHeapReplay;
+
+/**
+ * Heap and GC cost of keeping a long market-data history with {@code replay(n)} against
+ * {@link ReplayOperators#offHeapReplay}: retained heap once the history is full, collections while filling
+ * it, direct memory, and how long a late subscriber takes to replay it all.
+ */
+public class FluxOffHeapReplayBenchmarkTest {
+
+	private static final int HISTORY = 1_000_000;
+	private static final String[] SYMBOLS = {"PETR4", "VALE3", "ITUB4", "BBDC4", "ABEV3"};
+
+	private static final ReplayCodec<Tick> TICKS = new ReplayCodec<>() {
+		@Override
+		public byte[] encode(Tick tick) {
+			var symbol = tick.getSymbol().getBytes(StandardCharsets.US_ASCII);
+			return ByteBuffer.allocate(1 + symbol.length + Double.BYTES + Long.BYTES)
+							 .put((byte) symbol.length)
+							 .put(symbol)
+							 .putDouble(tick.getPrice())
+							 .putLong(tick.getSequence())
+							 .array();
+		}
+
+		@Override
+		public Tick decode(ByteBuffer bytes) {
+			var symbol = new byte[bytes.get()];
+			bytes.get(symbol);
+			return new Tick(new String(symbol, StandardCharsets.US_ASCII), bytes.getDouble(), bytes.getLong());
+		}
+	};
+
+	@Test
+	public void compareHeapAndGc() {
+		System.out.println(String.format("%-10s %12s %10s %10s %12s %12s", "replay", "heap MB", "gc count", "gc ms", "direct MB", "replay ms"));
+
+		// one round to warm up, one measured
+		for (int round = 0; round < 2; round++) {
+			var print = round == 1;
+			measure("heap", print, source -> source.replay(HISTORY));
+			measure("off-heap", print, source -> source.as(offHeapReplay(TICKS, 40L * HISTORY, 1 << 20)));
+		}
+	}
+
+	private void measure(String name, boolean print, Function<Flux<Tick>, ConnectableFlux<Tick>> replay) {
+		var baseline = usedHeapAfterGc();
+		var directBefore = directBytes();
+		var gcCountBefore = gcCount();
+		var gcTimeBefore = gcMillis();
+
+		var history = replay.apply(ticks());
+		history.connect();
+
+		var gcCount = gcCount() - gcCountBefore;
+		var gcTime = gcMillis() - gcTimeBefore;
+		var heap = usedHeapAfterGc() - baseline;
+		var direct = directBytes() - directBefore;
+
+		var start = System.nanoTime();
+		var replayed = history.count().block();
+		var replayMillis = (System.nanoTime() - start) / 1_000_000;
+		if (replayed != HISTORY) {
+			throw new AssertionError("replayed " + replayed + " of " + HISTORY);
+		}
+
+		if (print) {
+			System.out.println(String.format("%-10s %12.1f %10d %10d %12.1f %12d", name, heap / 1e6, gcCount, gcTime,
+											 direct / 1e6, replayMillis));
+		}
+		// keeps the history reachable until measured
+		history.subscribe().dispose();
+	}
+
+	private static Flux<Tick> ticks() {
+		return Flux.range(0, HISTORY).map(i -> new Tick(SYMBOLS[i % SYMBOLS.length], 10 + (i % 1000) / 100.0, i));
+	}
+
+	private static long usedHeapAfterGc() {
+		System.gc();
+		System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private static long directBytes() {
+		return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)
+								.stream()
+								.filter(pool -> pool.getName().equals("direct"))
+								.mapToLong(BufferPoolMXBean::getMemoryUsed)
+								.sum();
+	}
+
+	private static long gcCount() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+	}
+
+	private static long gcMillis() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static final class Tick {
+
+		private final String symbol;
+		private final double price;
+		private final long sequence;
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.github.charlesluxinger.operator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.github.charlesluxinger.operator.ReplayOperators.offHeapReplay;
+
+public class FluxOffHeapReplayTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private static final ReplayCodec<Long> LONGS = new ReplayCodec<>() {
+		@Override
+		public byte[] encode(Long value) {
+			return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+		}
+
+		@Override
+		public Long decode(ByteBuffer bytes) {
+			return bytes.getLong();
+		}
+	};
+
+	private static final ReplayCodec<String> STRINGS = new ReplayCodec<>() {
+		@Override
+		public byte[] encode(String value) {
+			return value.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String decode(ByteBuffer bytes) {
+			return StandardCharsets.UTF_8.decode(bytes).toString();
+		}
+	};
+
+	@Test
+	public void lateSubscriberReplaysHistoryThenLiveElements() {
+		var source = TestPublisher.<String>create();
+		var replay = source.flux().as(offHeapReplay(STRINGS, 1024, 64));
+		replay.connect();
+
+		source.next("Charles", "Manuel");
+
+		StepVerifier.create(replay)
+					.expectNext("Charles", "Manuel")
+					.then(() -> source.next("Maria"))
+					.expectNext("Maria")
+					.then(source::complete)
+					.expectComplete()
+					.verify(TIMEOUT);
+
+		StepVerifier.create(replay)
+					.expectNext("Charles", "Manuel", "Maria")
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void replaysUnderBackpressure() {
+		var replay = Flux.range(0, 100).map(Long::valueOf).as(offHeapReplay(LONGS, 4096, 256));
+		replay.connect();
+
+		StepVerifier.create(replay, 0)
+					.expectSubscription()
+					.expectNoEvent(Duration.ofMillis(50))
+					.thenRequest(3)
+					.expectNext(0L, 1L, 2L)
+					.thenRequest(97)
+					.expectNextCount(97)
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void sizeBoundDropsOldestChunks() {
+		// 20 bytes per record, 5 records per chunk, 4 chunks
+		var replay = Flux.range(0, 100).map(Long::valueOf).as(offHeapReplay(LONGS, 400, 100));
+		replay.connect();
+
+		StepVerifier.create(replay)
+					.expectNextSequence(range(80, 100))
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void ageBoundSkipsOldElements() {
+		var scheduler = VirtualTimeScheduler.create();
+		var replay = Flux.interval(Duration.ofSeconds(1), scheduler)
+						 .take(10)
+						 .as(offHeapReplay(LONGS, 4096, 128, Duration.ofMillis(3_500), scheduler));
+		replay.connect();
+
+		// element n is emitted at n + 1 seconds
+		scheduler.advanceTimeBy(Duration.ofSeconds(6));
+		StepVerifier.create(replay.take(3))
+					.expectNext(2L, 3L, 4L)
+					.expectComplete()
+					.verify(TIMEOUT);
+
+		scheduler.advanceTimeBy(Duration.ofSeconds(5));
+		StepVerifier.create(replay)
+					.expectNext(7L, 8L, 9L)
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void subscriberOverrunByTheWriterFails() {
+		var source = TestPublisher.<Long>create();
+		var replay = source.flux().as(offHeapReplay(LONGS, 200, 100));
+		replay.connect();
+
+		StepVerifier.create(replay, 1)
+					.then(() -> source.next(0L))
+					.expectNext(0L)
+					.then(() -> LongStream.range(1, 100).forEach(source::next))
+					.expectErrorMatches(Exceptions::isOverflow)
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void errorIsReplayedAfterHistory() {
+		var replay = Flux.concat(Flux.just(1L, 2L), Flux.error(new IllegalStateException("feed down")))
+						 .as(offHeapReplay(LONGS, 1024, 128));
+		replay.connect();
+
+		StepVerifier.create(replay)
+					.expectNext(1L, 2L)
+					.expectErrorMessage("feed down")
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void disposedConnectionIsReplacedWithAnEmptyHistory() {
+		var source = TestPublisher.<Long>create();
+		var replay = source.flux().as(offHeapReplay(LONGS, 1024, 128));
+
+		var connection = replay.connect();
+		source.next(1L);
+		connection.dispose();
+
+		replay.connect();
+		source.next(2L);
+
+		StepVerifier.create(replay.take(1))
+					.expectNext(2L)
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void autoConnectOnFirstSubscriber() {
+		var flux = Flux.range(0, 5).map(Long::valueOf).as(offHeapReplay(LONGS, 1024, 128)).autoConnect();
+
+		StepVerifier.create(flux)
+					.expectNext(0L, 1L, 2L, 3L, 4L)
+					.expectComplete()
+					.verify(TIMEOUT);
+		StepVerifier.create(flux)
+					.expectNext(0L, 1L, 2L, 3L, 4L)
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void rejectsElementsLargerThanAChunk() {
+		var replay = Flux.just("a".repeat(100)).as(offHeapReplay(STRINGS, 1024, 64));
+		replay.connect();
+
+		StepVerifier.create(replay)
+					.expectError(IllegalArgumentException.class)
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void rejectsChunksTooSmallForARecord() {
+		Assertions.assertThrows(IllegalArgumentException.class,
+								() -> Flux.<Long>empty().as(offHeapReplay(LONGS, 1024, OffHeapRingBuffer.HEADER_BYTES)));
+	}
+
+	private static List<Long> range(long from, long to) {
+		return LongStream.range(from, to).boxed().collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.github.charlesluxinger.operator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class MpscArrayQueueTest {
+
+	@Test
+	public void iteratesInOrderWithoutConsuming() {
+		var queue = new MpscArrayQueue<Integer>(4);
+		queue.offer(1);
+		queue.offer(2);
+		queue.offer(3);
+		queue.poll();
+
+		Assertions.assertEquals(List.of(2, 3), new ArrayList<>(queue));
+		Assertions.assertTrue(queue.contains(3));
+		Assertions.assertEquals("[2, 3]", queue.toString());
+		Assertions.assertEquals(2, queue.size());
+	}
+
+	@Test
+	public void skipsWhatIsConsumedMeanwhile() {
+		var queue = new MpscArrayQueue<Integer>(2);
+		queue.offer(1);
+		queue.offer(2);
+
+		var iterator = queue.iterator();
+		queue.poll();
+		queue.poll();
+		// reuses the slots of 1 and 2
+		queue.offer(3);
+		queue.offer(4);
+
+		// the first element is read ahead when the iterator is created, as hasNext() must answer
+		Assertions.assertEquals(1, iterator.next());
+		Assertions.assertFalse(iterator.hasNext());
+		Assertions.assertThrows(NoSuchElementException.class, iterator::next);
+	}
+
+	@Test
+	public void iteratesAcrossTheWrap() {
+		var queue = new MpscArrayQueue<Integer>(4);
+		for (int i = 0; i < 6; i++) {
+			queue.offer(i);
+			if (i < 3) {
+				queue.poll();
+			}
+		}
+
+		Assertions.assertEquals(List.of(3, 4, 5), new ArrayList<>(queue));
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.github.charlesluxinger.operator;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Fan-in throughput from 1 to 64 producer threads into one subscriber: {@link MpscSink} against
+ * {@code Flux.merge} of one source per producer and the serialized sink of an {@link EmitterProcessor}.
+ * Each case runs a few times and the best run is reported, the first ones warm up the JIT.
+ */
+public class MpscSinkBenchmarkTest {
+
+	private static final int ELEMENTS = 1 << 21;
+	private static final int RUNS = 5;
+
+	@Test
+	public void compareFanIn() throws InterruptedException {
+		System.out.println(String.format("%-10s %14s %14s %14s %14s", "producers", "merge/s", "emitter/s", "mpsc/s", "mpsc bounded/s"));
+
+		for (var producers : List.of(1, 4, 16, 64)) {
+			var pool = Executors.newFixedThreadPool(producers);
+			try {
+				var merge = best(() -> merge(pool, producers));
+				var emitter = best(() -> emitter(pool, producers));
+				var mpsc = best(() -> sink(pool, producers, MpscSink.unbounded()));
+				var bounded = best(() -> sink(pool, producers, MpscSink.bounded(4096)));
+
+				System.out.println(String.format("%-10d %14.0f %14.0f %14.0f %14.0f", producers,
+												 ELEMENTS / (merge / 1e9), ELEMENTS / (emitter / 1e9),
+												 ELEMENTS / (mpsc / 1e9), ELEMENTS / (bounded / 1e9)));
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	private long merge(ExecutorService pool, int producers) {
+		var scheduler = Schedulers.fromExecutorService(pool);
+		var sources = new ArrayList<Flux<Long>>();
+		for (int p = 0; p < producers; p++) {
+			sources.add(Flux.<Long>generate(sink -> sink.next(1L))
+							.take(ELEMENTS / producers)
+							.subscribeOn(scheduler));
+		}
+
+		var start = System.nanoTime();
+		Flux.merge(sources).count().block();
+		return System.nanoTime() - start;
+	}
+
+	private long emitter(ExecutorService pool, int producers) throws InterruptedException {
+		var processor = EmitterProcessor.<Long>create();
+		var sink = processor.sink(FluxSink.OverflowStrategy.BUFFER);
+		var count = processor.count().toFuture();
+
+		return produce(pool, producers, sink::next, sink::complete, count::join);
+	}
+
+	private long sink(ExecutorService pool, int producers, MpscSink<Long> sink) throws InterruptedException {
+		var count = sink.asFlux().count().toFuture();
+
+		return produce(pool, producers, value -> {
+			while (!sink.tryNext(value)) {
+				Thread.yield();
+			}
+		}, sink::complete, count::join);
+	}
+
+	private long produce(ExecutorService pool, int producers, LongConsumer next, Runnable complete, Runnable await)
+			throws InterruptedException {
+		var ready = new CountDownLatch(producers);
+		var start = new CountDownLatch(1);
+		var finished = new CountDownLatch(producers);
+
+		for (int p = 0; p < producers; p++) {
+			pool.execute(() -> {
+				ready.countDown();
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = ELEMENTS / producers; i > 0; i--) {
+					next.accept(1L);
+				}
+				finished.countDown();
+			});
+		}
+
+		ready.await();
+		var begin = System.nanoTime();
+		start.countDown();
+		finished.await(1, TimeUnit.MINUTES);
+		complete.run();
+		await.run();
+		return System.nanoTime() - begin;
+	}
+
+	private long best(Run run) throws InterruptedException {
+		var best = Long.MAX_VALUE;
+		for (int i = 0; i < RUNS; i++) {
+			best = Math.min(best, run.nanos());
+		}
+		return best;
+	}
+
+	@FunctionalInterface
+	private interface Run {
+
+		long nanos() throws InterruptedException;
+	}
+
+}
@@ -0,0 +1,179 @@
+package com.github.charlesluxinger.operator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MpscSinkTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	@Test
+	public void buffersUntilSubscribed() {
+		var sink = MpscSink.<Integer>unbounded();
+		sink.tryNext(1);
+		sink.tryNext(2);
+		sink.complete();
+
+		StepVerifier.create(sink.asFlux())
+					.expectNext(1, 2)
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void respectsDemand() {
+		var sink = MpscSink.<Integer>bounded(16);
+
+		StepVerifier.create(sink.asFlux(), 0)
+					.then(() -> Flux.range(0, 5).subscribe(sink::tryNext))
+					.expectNoEvent(Duration.ofMillis(50))
+					.thenRequest(2)
+					.expectNext(0, 1)
+					.thenRequest(10)
+					.expectNext(2, 3, 4)
+					.then(sink::complete)
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void boundedSinkRefusesWhenFull() {
+		var sink = MpscSink.<Integer>bounded(3);
+
+		Assertions.assertTrue(sink.tryNext(1));
+		Assertions.assertTrue(sink.tryNext(2));
+		Assertions.assertTrue(sink.tryNext(3));
+		Assertions.assertFalse(sink.tryNext(4));
+
+		StepVerifier.create(sink.asFlux(), 1)
+					.expectNext(1)
+					.then(() -> Assertions.assertTrue(sink.tryNext(4)))
+					.then(() -> Assertions.assertFalse(sink.tryNext(5)))
+					.thenRequest(3)
+					.expectNext(2, 3, 4)
+					.thenCancel()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void errorAfterBufferedElements() {
+		var sink = MpscSink.<Integer>unbounded();
+		sink.tryNext(1);
+		sink.error(new IllegalStateException("boom"));
+
+		Assertions.assertFalse(sink.tryNext(2));
+		StepVerifier.create(sink.asFlux())
+					.expectNext(1)
+					.expectErrorMessage("boom")
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void allowsASingleSubscriber() {
+		var sink = MpscSink.<Integer>unbounded();
+		sink.asFlux().subscribe();
+
+		StepVerifier.create(sink.asFlux())
+					.expectError(IllegalStateException.class)
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void cancelDiscardsBufferedElements() {
+		var sink = MpscSink.<Integer>bounded(8);
+		var discarded = new ArrayList<Object>();
+		sink.tryNext(1);
+		sink.tryNext(2);
+
+		StepVerifier.create(sink.asFlux().doOnDiscard(Integer.class, discarded::add), 0)
+					.thenCancel()
+					.verify(TIMEOUT);
+
+		Assertions.assertEquals(List.of(1, 2), discarded);
+		Assertions.assertFalse(sink.tryNext(3));
+	}
+
+	@Test
+	public void boundedSinkUnderContention() throws InterruptedException {
+		stress(MpscSink.bounded(256), 64, 20_000);
+	}
+
+	@Test
+	public void unboundedSinkUnderContention() throws InterruptedException {
+		stress(MpscSink.unbounded(), 64, 20_000);
+	}
+
+	/**
+	 * Producers start together and retry while the sink is full, the subscriber takes small batches on
+	 * another thread. Every element must arrive exactly once and in order for its producer.
+	 */
+	private void stress(MpscSink<Long> sink, int producers, int perProducer) throws InterruptedException {
+		var start = new CountDownLatch(1);
+		var pool = Executors.newFixedThreadPool(producers);
+		var last = new long[producers];
+		var outOfOrder = new AtomicInteger();
+		Arrays.fill(last, -1);
+
+		var received = sink.asFlux()
+						   .publishOn(Schedulers.single(), 32)
+						   .doOnNext(value -> {
+							   int producer = (int) (value >>> 32);
+							   long sequence = value & 0xFFFF_FFFFL;
+							   if (sequence != last[producer] + 1) {
+								   outOfOrder.incrementAndGet();
+							   }
+							   last[producer] = sequence;
+						   })
+						   .count()
+						   .toFuture();
+
+		for (int p = 0; p < producers; p++) {
+			long producer = p;
+			pool.execute(() -> {
+				await(start);
+				for (long i = 0; i < perProducer; i++) {
+					while (!sink.tryNext(producer << 32 | i)) {
+						Thread.yield();
+					}
+				}
+			});
+		}
+
+		start.countDown();
+		shutdown(pool);
+		sink.complete();
+
+		Assertions.assertEquals((long) producers * perProducer, received.join());
+		Assertions.assertEquals(0, outOfOrder.get());
+		for (var sequence : last) {
+			Assertions.assertEquals(perProducer - 1, sequence);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void shutdown(ExecutorService pool) throws InterruptedException {
+		pool.shutdown();
+		Assertions.assertTrue(pool.awaitTermination(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.github.charlesluxinger.operator;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * {@link ParallelPipeline} against {@code flatMap} and {@code flatMapSequential} over one
+ * {@code subscribeOn} per element, on a CPU-bound stage, from one rail up to the core count (and at least
+ * 4, to show how oversubscribing behaves on small machines). Each case runs a few times and the best
+ * run is reported, the first ones warm up the JIT.
+ */
+public class ParallelPipelineBenchmarkTest {
+
+	private static final int ELEMENTS = 20_000;
+	private static final int WORK = 2_000;
+	private static final int RUNS = 5;
+
+	@Test
+	public void compareWithFlatMapSubscribeOn() {
+		var cores = Runtime.getRuntime().availableProcessors();
+		System.out.println(String.format("cores: %d", cores));
+		System.out.println(String.format("%-8s %12s %12s %12s %16s", "rails", "pipeline/s", "ordered/s", "flatMap/s", "flatMapSeq/s"));
+
+		for (var rails : rails(cores)) {
+			var scheduler = Schedulers.newParallel("bench", rails);
+			try {
+				var pipeline = ParallelPipeline.<Integer>create().parallelism(rails).runOn(scheduler).map(ParallelPipelineBenchmarkTest::price);
+				Function<Flux<Integer>, Flux<Double>> flatMap = flux -> flux.flatMap(i -> price(i, scheduler), rails);
+				Function<Flux<Integer>, Flux<Double>> flatMapSequential = flux -> flux.flatMapSequential(i -> price(i, scheduler), rails);
+
+				System.out.println(String.format("%-8d %12.0f %12.0f %12.0f %16.0f", rails,
+												 best(pipeline), best(pipeline.ordered()), best(flatMap), best(flatMapSequential)));
+			} finally {
+				scheduler.dispose();
+			}
+		}
+	}
+
+	private static List<Integer> rails(int cores) {
+		var rails = new ArrayList<Integer>();
+		for (int n = 1; n < Math.max(cores, 4); n *= 2) {
+			rails.add(n);
+		}
+		rails.add(Math.max(cores, 4));
+		return rails;
+	}
+
+	private static double best(Function<Flux<Integer>, Flux<Double>> transformer) {
+		var best = Long.MAX_VALUE;
+		for (int i = 0; i < RUNS; i++) {
+			var start = System.nanoTime();
+			Flux.range(0, ELEMENTS).transform(transformer).blockLast();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return ELEMENTS / (best / 1e9);
+	}
+
+	private static Mono<Double> price(int item, Scheduler scheduler) {
+		return Mono.fromCallable(() -> price(item)).subscribeOn(scheduler);
+	}
+
+	/**
+	 * Stand-in for a pricing rule: a fixed amount of floating point work.
+	 */
+	private static double price(int item) {
+		double price = item;
+		for (int i = 1; i <= WORK; i++) {
+			price = Math.sqrt(price * price + i) * 0.999 + Math.sin(i) * 0.001;
+		}
+		return price;
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.github.charlesluxinger.operator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ParallelPipelineTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Test
+	public void appliesStagesInOrder() {
+		var pipeline = ParallelPipeline.<Integer>create()
+									   .parallelism(4)
+									   .map(i -> i * 10)
+									   .map(i -> "item-" + i);
+
+		StepVerifier.create(Flux.range(1, 100).transform(pipeline).collect(Collectors.toSet()))
+					.expectNext(IntStream.rangeClosed(1, 100).mapToObj(i -> "item-" + i * 10).collect(Collectors.toSet()))
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void orderedKeepsSourceOrderWhenRailsFinishOutOfOrder() {
+		var scheduler = Schedulers.newParallel("pipeline", 4);
+		var pipeline = ParallelPipeline.<Integer>create()
+									   .parallelism(4)
+									   .prefetch(8)
+									   .runOn(scheduler)
+									   .map(i -> {
+										   // earlier elements take longer
+										   busyWork((200 - i) * 10_000L);
+										   return i;
+									   })
+									   .ordered();
+
+		try {
+			StepVerifier.create(Flux.range(0, 200).transform(pipeline))
+						.expectNextSequence(IntStream.range(0, 200).boxed().collect(Collectors.toList()))
+						.expectComplete()
+						.verify(TIMEOUT);
+		} finally {
+			scheduler.dispose();
+		}
+	}
+
+	@Test
+	public void runsStagesOnEveryRail() {
+		var scheduler = Schedulers.newParallel("pipeline", 4);
+		var threads = ConcurrentHashMap.<String>newKeySet();
+		var pipeline = ParallelPipeline.<Integer>create()
+									   .parallelism(4)
+									   .runOn(scheduler)
+									   .map(i -> {
+										   threads.add(Thread.currentThread().getName());
+										   return i;
+									   });
+
+		try {
+			StepVerifier.create(Flux.range(0, 1_000).transform(pipeline))
+						.expectNextCount(1_000)
+						.expectComplete()
+						.verify(TIMEOUT);
+		} finally {
+			scheduler.dispose();
+		}
+
+		Assertions.assertEquals(4, threads.size(), threads::toString);
+		threads.forEach(name -> Assertions.assertTrue(name.startsWith("pipeline-"), name));
+	}
+
+	@Test
+	public void stageErrorCancelsTheRails() {
+		var pipeline = ParallelPipeline.<Integer>create()
+									   .parallelism(2)
+									   .map(i -> {
+										   if (i == 50) {
+											   throw new IllegalArgumentException("bad price");
+										   }
+										   return i;
+									   })
+									   .ordered();
+
+		StepVerifier.create(Flux.range(0, 100).transform(pipeline))
+					.thenConsumeWhile(i -> i != 50)
+					.expectErrorMessage("bad price")
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void respectsDownstreamDemand() {
+		var pipeline = ParallelPipeline.<Integer>create().parallelism(2).prefetch(4).ordered();
+
+		StepVerifier.create(Flux.range(0, 100).transform(pipeline), 3)
+					.expectNext(0, 1, 2)
+					.expectNoEvent(Duration.ofMillis(50))
+					.thenRequest(2)
+					.expectNext(3, 4)
+					.thenCancel()
+					.verify(TIMEOUT);
+	}
+
+	@Test
+	public void rejectsInvalidSettings() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ParallelPipeline.create().parallelism(0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ParallelPipeline.create().prefetch(0));
+	}
+
+	@Test
+	public void emptySource() {
+		StepVerifier.create(Flux.<Integer>empty().transform(ParallelPipeline.<Integer>create().ordered()))
+					.expectComplete()
+					.verify(TIMEOUT);
+	}
+
+	/**
+	 * Keeps the rail busy without parking, as the CPU-bound stages this is for do.
+	 */
+	private static void busyWork(long nanos) {
+		long deadline = System.nanoTime() + nanos;
+		while (System.nanoTime() < deadline) {
+			// spin
+		}
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.github.charlesluxinger.bulk;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-bulk-patch")
+public class BulkPatchProperties {
+
+    /**
+     * Patches sent to Mongo in one unordered {@code bulkWrite}.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Lanes patches are hashed to by id. Each lane writes one batch at a time, so patches of the same id
+     * apply in the order they were sent, while lanes write in parallel.
+     */
+    private int parallelism = 4;
+
+}
@@ -0,0 +1,213 @@
+package com.github.charlesluxinger.bulk;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.ItemPatch;
+import com.github.charlesluxinger.history.PriceHistory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Applies a stream of {@link ItemPatch}es as unordered {@code bulkWrite}s of {@code updateOne}s, batch by batch,
+ * so a request of any size holds at most {@code parallelism} batches in memory.
+ * <p>
+ * A {@code bulkWrite} only reports how many documents matched and changed in total, not which. So each batch
+ * first reads the items it patches: ids not found and patches that change nothing are answered from that read,
+ * and every update is conditional on the version read and raises it, like a repository save. When fewer
+ * documents changed than were updated, the items are read again to tell which patches took effect.
+ * <p>
+ * The updates bypass the repository, so the {@link AfterSaveEvent}s it would have sent are published here,
+ * which keeps the summary, the snapshot and the id filter current. The prices a batch changed are added to the
+ * {@link PriceHistory} in one write, before its results are emitted.
+ */
+@Component
+@AllArgsConstructor
+public class ItemBulkPatcher {
+
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BulkPatchProperties properties;
+    private final PriceHistory priceHistory;
+
+    /**
+     * One result per id and batch, in no particular order across ids. Patches of the same id go to the same lane
+     * and so apply in the order they came; those that land in one batch are merged first, later fields winning.
+     */
+    public Flux<ItemPatchResult> patch(Flux<ItemPatch> patches) {
+        var parallelism = properties.getParallelism();
+        return patches
+                .groupBy(patch -> patch.getId() == null ? 0 : Math.floorMod(patch.getId().hashCode(), parallelism))
+                .flatMap(lane -> lane
+                        .buffer(properties.getBatchSize())
+                        .concatMap(this::patchBatch, 1), parallelism);
+    }
+
+    private Flux<ItemPatchResult> patchBatch(List<ItemPatch> batch) {
+        var invalid = new ArrayList<ItemPatchResult>();
+        var merged = new LinkedHashMap<String, ItemPatch>();
+        for (var patch : batch) {
+            if (patch.getId() == null) {
+                invalid.add(ItemPatchResult.error(null, "id is required"));
+            } else {
+                merged.merge(patch.getId(), patch, ItemPatch::then);
+            }
+        }
+        if (merged.isEmpty()) {
+            return Flux.fromIterable(invalid);
+        }
+
+        return Flux.fromIterable(invalid).concatWith(mongoTemplate
+                .find(query(where("id").in(merged.keySet())), Item.class)
+                .collectMap(Item::getId)
+                .flatMapMany(found -> {
+                    var results = new ArrayList<ItemPatchResult>();
+                    var updates = new ArrayList<Update>();
+                    merged.forEach((id, patch) -> {
+                        var item = found.get(id);
+                        if (item == null) {
+                            results.add(ItemPatchResult.of(id, ItemPatchResult.Status.NOT_FOUND));
+                        } else if (!patch.changes(item)) {
+                            results.add(ItemPatchResult.of(id, ItemPatchResult.Status.MATCHED));
+                        } else {
+                            updates.add(new Update(patch, item));
+                        }
+                    });
+                    return Flux.fromIterable(results).concatWith(update(updates));
+                })
+                .onErrorResume(error -> Flux.fromIterable(merged.keySet())
+                        .map(id -> ItemPatchResult.error(id, error.toString()))));
+    }
+
+    private Flux<ItemPatchResult> update(List<Update> updates) {
+        if (updates.isEmpty()) {
+            return Flux.empty();
+        }
+
+        var models = updates.stream().map(this::model).collect(Collectors.toList());
+        return mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(Item.class))
+                .flatMap(collection -> Mono.from(collection.bulkWrite(models, UNORDERED)))
+                .map(result -> result.getModifiedCount() == updates.size())
+                .onErrorResume(MongoBulkWriteException.class, e -> {
+                    for (BulkWriteError error : e.getWriteErrors()) {
+                        updates.get(error.getIndex()).error = error.getMessage();
+                    }
+                    return Mono.just(false);
+                })
+                .flatMapMany(allModified -> allModified
+                        ? Flux.fromIterable(updates).map(update -> modified(update.expected))
+                        : verify(updates))
+                .collectList()
+                .flatMapMany(results -> priceHistory
+                        .record(priceChanges(updates, results))
+                        .thenMany(Flux.fromIterable(results)));
+    }
+
+    private static Map<String, Long> priceChanges(List<Update> updates, List<ItemPatchResult> results) {
+        var modified = results.stream()
+                .filter(result -> result.getStatus() == ItemPatchResult.Status.MODIFIED)
+                .map(ItemPatchResult::getId)
+                .collect(Collectors.toSet());
+        return updates.stream()
+                .filter(update -> update.expected.getPrice() != update.readPrice && modified.contains(update.expected.getId()))
+                .collect(Collectors.toMap(update -> update.expected.getId(), update -> update.expected.getPrice()));
+    }
+
+    /**
+     * Tells which updates took effect by reading the items again: an update whose item now holds its version
+     * and values did, one whose item is gone lost to a delete, and any other lost to a concurrent update.
+     */
+    private Flux<ItemPatchResult> verify(List<Update> updates) {
+        var ids = updates.stream().map(update -> update.expected.getId()).collect(Collectors.toList());
+        return mongoTemplate
+                .find(query(where("id").in(ids)), Item.class)
+                .collectMap(Item::getId)
+                .flatMapIterable(found -> updates.stream()
+                        .map(update -> {
+                            var id = update.expected.getId();
+                            var item = found.get(id);
+                            if (update.error != null) {
+                                return ItemPatchResult.error(id, update.error);
+                            }
+                            if (item == null) {
+                                return ItemPatchResult.of(id, ItemPatchResult.Status.NOT_FOUND);
+                            }
+                            if (update.isAppliedTo(item)) {
+                                return modified(item);
+                            }
+                            return ItemPatchResult.error(id, "concurrent update");
+                        })
+                        .collect(Collectors.toList()));
+    }
+
+    private UpdateOneModel<Document> model(Update update) {
+        var expected = update.expected;
+        var filter = new Document("_id", mongoTemplate.getConverter().convertId(expected.getId(), ObjectId.class))
+                .append("version", update.readVersion);
+        var set = new Document("version", expected.getVersion());
+        if (update.patch.getPrice() != null) {
+            set.append("price", expected.getPrice());
+        }
+        if (update.patch.getDescription() != null) {
+            set.append("description", expected.getDescription());
+        }
+        return new UpdateOneModel<>(filter, new Document("$set", set));
+    }
+
+    private ItemPatchResult modified(Item item) {
+        var document = new Document();
+        mongoTemplate.getConverter().write(item, document);
+        eventPublisher.publishEvent(new AfterSaveEvent<>(item, document, mongoTemplate.getCollectionName(Item.class)));
+        return ItemPatchResult.of(item.getId(), ItemPatchResult.Status.MODIFIED);
+    }
+
+    /**
+     * A patch to write over the item as it was read, and the item it should produce.
+     */
+    private static final class Update {
+
+        private final ItemPatch patch;
+        private final Long readVersion;
+        private final long readPrice;
+        private final Item expected;
+        private String error;
+
+        Update(ItemPatch patch, Item read) {
+            this.patch = patch;
+            this.readVersion = read.getVersion();
+            this.readPrice = read.getPrice();
+            this.expected = new Item(read.getId(), read.getDescription(), read.getPrice(),
+                    read.getVersion() == null ? 0 : read.getVersion() + 1);
+            patch.applyTo(expected);
+        }
+
+        boolean isAppliedTo(Item item) {
+            return Objects.equals(item.getVersion(), expected.getVersion())
+                    && item.getPrice() == expected.getPrice()
+                    && Objects.equals(item.getDescription(), expected.getDescription());
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.github.charlesluxinger.bulk;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * What became of one patch of a bulk update.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemPatchResult {
+
+    public enum Status {
+        /**
+         * The item was changed and its version raised.
+         */
+        MODIFIED,
+        /**
+         * The item already had the patched values and was left as it was.
+         */
+        MATCHED,
+        NOT_FOUND,
+        ERROR
+    }
+
+    private String id;
+    private Status status;
+    private String error;
+
+    static ItemPatchResult of(String id, Status status) {
+        return new ItemPatchResult(id, status, null);
+    }
+
+    static ItemPatchResult error(String id, String error) {
+        return new ItemPatchResult(id, Status.ERROR, error);
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.github.charlesluxinger.changes;
+
+import com.github.charlesluxinger.document.Item;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Where one item ended up after the writes of a burst.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemChange {
+
+    private final String id;
+    /**
+     * The item as last written, {@code null} once deleted.
+     */
+    private final Item item;
+    /**
+     * Whether the burst inserted or replaced the item, as opposed to only updating or deleting it.
+     */
+    private final boolean created;
+
+}
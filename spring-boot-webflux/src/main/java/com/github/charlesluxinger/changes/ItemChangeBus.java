@@ -0,0 +1,185 @@
+package com.github.charlesluxinger.changes;
+
+import com.github.charlesluxinger.document.Item;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The one change stream an instance keeps on the item collection, for every view that has to follow writes
+ * made by other instances: the summary, the snapshot and the id filter.
+ * <p>
+ * Events are collected for up to {@code coalesce-window} and handed on as one {@link ItemChanges} holding the
+ * latest state of each item written, so a burst of writes to the same items costs the views one change per item.
+ * The resume token is only taken up once its burst was handed on to every view: after a reconnect the stream
+ * resumes right after the last burst delivered, and nothing in between is lost. A view that fails on a burst
+ * has to deal with that itself; an exception thrown at the bus would end that view's subscription. When
+ * resuming is no longer possible, because the token fell off the oplog or the collection was dropped or
+ * renamed, the stream starts over from the present and the views are told to reload.
+ * <p>
+ * How far behind the writes the views are is recorded as {@code items.changes.lag}, from the cluster time of the
+ * oldest event in each burst. Mongo keeps that time in whole seconds, so the timer only shows a stream falling
+ * behind, not the usual lag of a few milliseconds.
+ */
+@Slf4j
+@Component
+public class ItemChangeBus {
+
+    // ChangeStreamHistoryLost, and ChangeStreamFatalError, which 4.0 reports for a token no longer in the oplog
+    private static final Set<Integer> HISTORY_LOST = Set.of(286, 280);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ItemChangeBusProperties properties;
+    private final Counter events;
+    private final DistributionSummary bursts;
+    private final Timer lag;
+    private final Flux<ItemChanges> changes;
+
+    private volatile BsonValue resumeToken;
+    private volatile boolean lost;
+
+    public ItemChangeBus(ReactiveMongoTemplate mongoTemplate, ItemChangeBusProperties properties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.events = meterRegistry.counter("items.changes.events");
+        this.bursts = DistributionSummary.builder("items.changes.burst")
+                .description("Items changed per burst")
+                .register(meterRegistry);
+        this.lag = Timer.builder("items.changes.lag")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.changes = tail().publish().refCount();
+    }
+
+    /**
+     * The bursts of item changes from now on. The change stream is shared, and open while anything subscribes.
+     */
+    public Flux<ItemChanges> changes() {
+        return changes;
+    }
+
+    private Flux<ItemChanges> tail() {
+        return Flux
+                .defer(() -> {
+                    var stream = mongoTemplate
+                            .changeStream(Item.class)
+                            .withOptions(options -> options.returnFullDocumentOnUpdate())
+                            .watchCollection(Item.class);
+                    var token = resumeToken;
+                    var reset = lost ? Flux.just(ItemChanges.RESET) : Flux.<ItemChanges>empty();
+                    lost = false;
+                    return reset.concatWith((token == null ? stream.listen() : stream.resumeAfter(token).listen())
+                            .bufferTimeout(properties.getMaxBurst(), properties.getCoalesceWindow())
+                            .map(this::coalesce)
+                            .handle((burst, sink) -> {
+                                sink.next(burst.changes);
+                                // the views apply a burst as it is handed on, so by now they all have it
+                                resumeToken = burst.resumeToken;
+                            }));
+                })
+                // a stream ends after an invalidate, and is opened again on the present
+                .repeatWhen(completions -> completions.delayElements(Duration.ofSeconds(1)))
+                .retryWhen(Retry
+                        .backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(signal -> {
+                            log.warn("Item change stream failed, retrying: {}", signal.failure().toString());
+                            if (isHistoryLost(signal.failure())) {
+                                resumeToken = null;
+                                lost = true;
+                            }
+                        }));
+    }
+
+    private Burst coalesce(List<ChangeStreamEvent<Item>> burst) {
+        var timestamp = burst.get(0).getTimestamp();
+        if (timestamp != null) {
+            lag.record(Duration.between(timestamp, Instant.now()));
+        }
+        events.increment(burst.size());
+
+        var changes = new LinkedHashMap<String, ItemChange>();
+        var reset = false;
+        var token = resumeToken;
+        for (var event : burst) {
+            token = event.getResumeToken();
+            var operation = event.getOperationType();
+            if (operation == null) {
+                continue;
+            }
+
+            switch (operation) {
+                case INSERT:
+                case UPDATE:
+                case REPLACE:
+                case DELETE:
+                    // an update looked up after a later delete has no document either
+                    var item = operation == OperationType.DELETE ? null : event.getBody();
+                    var id = id(event.getRaw().getDocumentKey().get("_id"));
+                    var previous = changes.get(id);
+                    var created = operation == OperationType.INSERT
+                            || operation == OperationType.REPLACE
+                            || (previous != null && previous.isCreated());
+                    changes.put(id, new ItemChange(id, item, created));
+                    break;
+                case INVALIDATE:
+                    // resuming after an invalidate is not possible before 4.2
+                    token = null;
+                    reset = true;
+                    break;
+                case DROP:
+                case DROP_DATABASE:
+                case RENAME:
+                    reset = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        bursts.record(changes.size());
+        return new Burst(new ItemChanges(changes.values(), reset), token);
+    }
+
+    private static boolean isHistoryLost(Throwable error) {
+        for (var cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException && HISTORY_LOST.contains(((MongoException) cause).getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String id(BsonValue key) {
+        return key.isObjectId() ? key.asObjectId().getValue().toHexString() : key.asString().getValue();
+    }
+
+    /**
+     * A burst to hand on, with the token to resume after once it was.
+     */
+    @AllArgsConstructor
+    private static class Burst {
+
+        private final ItemChanges changes;
+        private final BsonValue resumeToken;
+
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.github.charlesluxinger.changes;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-change-bus")
+public class ItemChangeBusProperties {
+
+    /**
+     * How long changes are collected before they are handed on, at most. Adds to how stale other instances' writes
+     * are here, but lets a burst of writes to the same items reach the views as one change per item.
+     */
+    private Duration coalesceWindow = Duration.ofMillis(20);
+
+    /**
+     * Changes after which a burst is handed on without waiting for the rest of its window.
+     */
+    private int maxBurst = 1000;
+
+}
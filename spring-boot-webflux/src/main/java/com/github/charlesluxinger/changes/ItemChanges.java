@@ -0,0 +1,25 @@
+package com.github.charlesluxinger.changes;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The items written within one burst, one {@link ItemChange} per id.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemChanges {
+
+    static final ItemChanges RESET = new ItemChanges(List.of(), true);
+
+    private final Collection<ItemChange> changes;
+    /**
+     * Whether changes may have been missed, or the collection was dropped or renamed, so that whatever is kept
+     * of it must be loaded again.
+     */
+    private final boolean reset;
+
+}
@@ -1,8 +1,23 @@
 package com.github.charlesluxinger.controller;
 
 import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.ItemVersion;
+import com.github.charlesluxinger.document.Prices;
+import com.github.charlesluxinger.executor.KeyedWriteExecutor;
+import com.github.charlesluxinger.hedging.HedgedReads;
+import com.github.charlesluxinger.history.PriceHistory;
+import com.github.charlesluxinger.idfilter.ItemIdFilter;
 import com.github.charlesluxinger.repository.ItemRepository;
+import com.github.charlesluxinger.snapshot.ItemSnapshot;
+import com.github.charlesluxinger.snapshot.ItemSnapshotStore;
+import com.github.charlesluxinger.snapshot.ReadConsistency;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,57 +26,229 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @AllArgsConstructor
 public class ItemController {
 
     private final ItemRepository itemRepository;
+    private final KeyedWriteExecutor writeExecutor;
+    private final HedgedReads hedgedReads;
+    private final ItemSnapshotStore itemSnapshots;
+    private final ItemIdFilter itemIds;
+    private final PriceHistory priceHistory;
 
+    /**
+     * Unbounded listings are streamed as they are read. Pages ({@code limit} given) are small enough to
+     * be tagged: a conditional request first reads only the ids and versions of the page, and the page
+     * itself is only loaded when that does not match.
+     * <p>
+     * With {@code consistency=snapshot} the query is answered from the in-memory {@link ItemSnapshot}, without
+     * calling Mongo, when {@code item-snapshot} is enabled and loaded. It may miss the latest writes.
+     */
     @GetMapping("/items")
-    public Flux<Item> getAllItems(){
-        return itemRepository.findAll();
+    public Mono<ResponseEntity> getAllItems(@RequestParam(required = false) BigDecimal minPrice,
+                                            @RequestParam(required = false) BigDecimal maxPrice,
+                                            @RequestParam(required = false) String sort,
+                                            @RequestParam(required = false) BigDecimal cursorPrice,
+                                            @RequestParam(required = false) String cursorId,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String consistency,
+                                            ServerWebExchange exchange){
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+
+        var snapshot = readConsistency(consistency) == ReadConsistency.SNAPSHOT
+                ? itemSnapshots.current()
+                : Optional.<ItemSnapshot>empty();
+
+        if (minPrice == null && maxPrice == null && sort == null) {
+            return Mono.just(ResponseEntity.ok(snapshot
+                    .map(items -> Flux.fromIterable(items.findAll()))
+                    .orElseGet(itemRepository::findAll)));
+        }
+
+        var direction = priceSortDirection(sort);
+        var pageable = PageRequest.of(0, limit == null ? Integer.MAX_VALUE : limit,
+                Sort.by(direction, "price").and(Sort.by(direction, "id")));
+        var min = minPrice == null ? Long.MIN_VALUE : Prices.ceilCents(minPrice);
+        var max = maxPrice == null ? Long.MAX_VALUE : Prices.floorCents(maxPrice);
+        var cursor = cursorPrice == null ? null : cursorCents(cursorPrice);
+
+        if (snapshot.isPresent()) {
+            var items = snapshot.get().range(min, max, direction.isAscending(), cursor, cursorId,
+                    limit == null ? Integer.MAX_VALUE : limit);
+            if (limit == null) {
+                return Mono.just(ResponseEntity.ok(Flux.fromIterable(items)));
+            }
+            var etag = ItemETags.ofPage(items, Item::getId, Item::getVersion);
+            return Mono.just(exchange.checkNotModified(etag) ? notModified(etag) : ResponseEntity.ok().eTag(etag).body(items));
+        }
+
+        if (limit == null) {
+            return Mono.just(ResponseEntity.ok(findByPriceRange(min, max, direction, cursor, cursorId, pageable, Item.class)));
+        }
+
+        var notModified = exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()
+                ? Mono.<ResponseEntity>empty()
+                : findByPriceRange(min, max, direction, cursor, cursorId, pageable, ItemVersion.class)
+                    .collectList()
+                    .map(versions -> ItemETags.ofPage(versions, ItemVersion::getId, ItemVersion::getVersion))
+                    .filter(exchange::checkNotModified)
+                    .map(this::notModified);
+
+        return notModified.switchIfEmpty(Mono.defer(() -> findByPriceRange(min, max, direction, cursor, cursorId, pageable, Item.class)
+                .collectList()
+                .map(items -> ResponseEntity.ok()
+                        .eTag(ItemETags.ofPage(items, Item::getId, Item::getVersion))
+                        .body(items))));
     }
 
+    /**
+     * The item read is hedged when {@code item-hedging} is enabled: a slow lookup gets a second one and the first answer wins.
+     * Ids the {@link ItemIdFilter} knows were never stored are not looked up at all.
+     */
     @GetMapping("/items/{id}")
-    public Mono<ResponseEntity> getOneItem(@PathVariable String id) {
-        return itemRepository
-                .findById(id)
-                .map(ResponseEntity::ok)
+    public Mono<ResponseEntity> getOneItem(@PathVariable String id, ServerWebExchange exchange) {
+        if (!itemIds.mightExist(id)) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+
+        var notModified = exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()
+                ? Mono.<ResponseEntity>empty()
+                : itemRepository
+                    .findVersionById(id)
+                    .map(version -> ItemETags.of(version.getVersion()))
+                    .filter(exchange::checkNotModified)
+                    .map(this::notModified);
+
+        return notModified.switchIfEmpty(Mono.defer(() -> hedgedReads
+                .read(() -> itemRepository.findById(id))
+                .map(item -> ResponseEntity.ok().eTag(ItemETags.of(item.getVersion())).body(item))
                 .cast(ResponseEntity.class)
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    itemIds.notFound();
+                    return ResponseEntity.notFound().build();
+                }))));
     }
 
+    /**
+     * Only ever inserts: the version is assigned here whatever the body says, and an id that is already
+     * taken is a conflict rather than a replacement.
+     */
     @PostMapping("/items")
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<Item> createItem(@RequestBody Item item) {
-        return itemRepository.save(item);
+        item.setVersion(null);
+        return itemRepository
+                .save(item)
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new ResponseStatusException(HttpStatus.CONFLICT, "Item " + item.getId() + " already exists", e))
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        e -> new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e));
     }
 
     @DeleteMapping("/items/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> deleteItem(@PathVariable String id) {
-        return itemRepository.deleteById(id);
+        return writeExecutor
+                .submit(id, () -> itemRepository.deleteById(id))
+                .onErrorMap(RejectedExecutionException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e));
     }
 
+    /**
+     * With {@code If-Match}, the update only applies to the tagged version. The check runs in the item's
+     * write lane and the save is conditional on the version it read, so it also holds across instances.
+     * A changed price is added to the item's {@link PriceHistory} before the update is answered.
+     */
     @PutMapping("/items/{id}")
     public Mono<ResponseEntity> updateItem(@PathVariable String id,
-                                           @RequestBody Item item) {
-        return itemRepository
-                .findById(id)
-                .flatMap(currentItem -> {
-                    currentItem.setPrice(item.getPrice());
-                    currentItem.setDescription(item.getDescription());
-                    return itemRepository.save(currentItem);
-                })
-                .map(ResponseEntity::ok)
+                                           @RequestBody Item item,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return writeExecutor
+                .submit(id, () -> itemRepository
+                        .findById(id)
+                        .flatMap(currentItem -> {
+                            if (ifMatch != null && !ItemETags.matches(ifMatch, currentItem.getVersion())) {
+                                return Mono.error(new ResponseStatusException(HttpStatus.PRECONDITION_FAILED));
+                            }
+                            var previousPrice = currentItem.getPrice();
+                            currentItem.setPrice(item.getPrice());
+                            currentItem.setDescription(item.getDescription());
+                            return itemRepository
+                                    .save(currentItem)
+                                    .flatMap(savedItem -> priceHistory.recordChange(savedItem, previousPrice));
+                        }))
+                .map(savedItem -> ResponseEntity.ok().eTag(ItemETags.of(savedItem.getVersion())).body(savedItem))
                 .cast(ResponseEntity.class)
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorMap(RejectedExecutionException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e))
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        e -> new ResponseStatusException(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED,
+                                e.getMessage(), e));
+
+    }
+
+    private <T> Flux<T> findByPriceRange(long min, long max, Sort.Direction direction,
+                                         Long cursorPrice, String cursorId, Pageable pageable, Class<T> type) {
+        if (cursorPrice == null || cursorId == null) {
+            return itemRepository.findByPriceRange(min, max, pageable, type);
+        }
+
+        return direction.isAscending()
+                ? itemRepository.findByPriceRangeAfter(Math.max(min, cursorPrice), max, cursorPrice, cursorId, pageable, type)
+                : itemRepository.findByPriceRangeBefore(min, Math.min(max, cursorPrice), cursorPrice, cursorId, pageable, type);
+    }
+
+    /**
+     * A cursor is the price of an item already returned, so unlike the range bounds it must be exact.
+     */
+    private long cursorCents(BigDecimal cursorPrice) {
+        try {
+            return Prices.toCents(cursorPrice);
+        } catch (ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a price: " + cursorPrice, e);
+        }
+    }
+
+    private ReadConsistency readConsistency(String consistency) {
+        return ReadConsistency.parse(consistency)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown consistency " + consistency));
+    }
+
+    private ResponseEntity notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    private Sort.Direction priceSortDirection(String sort) {
+        if (sort == null) {
+            return Sort.Direction.ASC;
+        }
+
+        var parts = sort.split(",");
+        if (!parts[0].trim().equals("price") || parts.length > 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only sort=price[,asc|desc] is supported");
+        }
 
+        return parts.length == 1
+                ? Sort.Direction.ASC
+                : Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort direction " + parts[1]));
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package com.github.charlesluxinger.controller;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Strong ETags derived from item versions. A single item is tagged with its version; a page of items
+ * with a digest of the ids and versions it holds, in order.
+ */
+final class ItemETags {
+
+    private ItemETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+
+    static <T> String ofPage(List<T> items, Function<T, String> id, Function<T, Long> version) {
+        var content = new StringBuilder();
+        for (var item : items) {
+            content.append(id.apply(item)).append(':').append(version.apply(item)).append(';');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Strong comparison against an {@code If-Match} header, so weak tags never match.
+     */
+    static boolean matches(String ifMatch, Long version) {
+        var etag = of(version);
+        return Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidate -> candidate.equals("*") || candidate.equals(etag));
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.export.ExportFormat;
+import com.github.charlesluxinger.export.ItemExporter;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+@RestController
+@AllArgsConstructor
+public class ItemExportController {
+
+    private final ItemExporter itemExporter;
+
+    /**
+     * Each chunk is flushed as its own write, so the response streams under network backpressure
+     * instead of being aggregated.
+     */
+    @GetMapping("/items/export")
+    public Mono<Void> export(@RequestParam(defaultValue = "ndjson") String format,
+                             @RequestParam(defaultValue = "true") boolean gzip,
+                             ServerHttpResponse response) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()));
+        }
+
+        var headers = response.getHeaders();
+        headers.setContentType(exportFormat.getMediaType());
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=items." + exportFormat.getExtension() + (gzip ? ".gz" : ""));
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.writeAndFlushWith(itemExporter
+                .export(exportFormat, response.bufferFactory(), gzip)
+                .map(Mono::just));
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.bulk.ItemBulkPatcher;
+import com.github.charlesluxinger.bulk.ItemPatchResult;
+import com.github.charlesluxinger.document.ItemPatch;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@AllArgsConstructor
+public class ItemPatchController {
+
+    private final ItemBulkPatcher itemBulkPatcher;
+
+    /**
+     * Takes the patches as a JSON array or as newline-delimited JSON, and streams a result per id back as the
+     * batches complete. The request body is decoded as it arrives, so its size is not limited by memory.
+     */
+    @PatchMapping(path = "/items", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<ItemPatchResult> patchItems(@RequestBody Flux<ItemPatch> patches) {
+        return itemBulkPatcher.patch(patches);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.history.PriceHistory;
+import com.github.charlesluxinger.history.PriceHistoryProperties;
+import com.github.charlesluxinger.history.PriceStep;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@RestController
+@AllArgsConstructor
+public class ItemPriceHistoryController {
+
+    private final PriceHistory priceHistory;
+    private final PriceHistoryProperties properties;
+
+    /**
+     * The price changes of an item within {@code [from, to)}, as min, max, average and last price per {@code step}
+     * from {@code from}. Steps without a change are left out. {@code from} and {@code to} are ISO-8601 instants,
+     * {@code step} a duration such as {@code 15m} or {@code PT15M}.
+     */
+    @GetMapping("/items/{id}/prices")
+    public Flux<PriceStep> getPriceHistory(@PathVariable String id,
+                                           @RequestParam(required = false) Instant from,
+                                           @RequestParam(required = false) Instant to,
+                                           @RequestParam(required = false) String step) {
+        var end = to == null ? Instant.now() : to;
+        var start = from == null ? end.minus(properties.getDefaultRange()) : from;
+        return priceHistory
+                .read(id, start, end, step == null ? properties.getDefaultStep() : step(step))
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e));
+    }
+
+    private Duration step(String step) {
+        try {
+            return DurationStyle.detectAndParse(step);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a duration: " + step, e);
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.Prices;
+import com.github.charlesluxinger.executor.KeyedWriteExecutor;
+import com.github.charlesluxinger.history.PriceHistory;
+import com.github.charlesluxinger.repository.ItemRepository;
+import com.github.charlesluxinger.rsocket.ItemRSocketProperties;
+import com.github.charlesluxinger.rsocket.ItemRangeRequest;
+import com.github.charlesluxinger.rsocket.ItemSearchRequest;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.ReplayProcessor;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The item operations over RSocket, on the TCP port and the WebSocket path alike.
+ * <p>
+ * Streams are returned straight from the repository, so the client's {@code REQUEST_N} reaches the Mongo
+ * cursor, which sizes its batches by it: a client that stops requesting stops the cursor. As the stream keeps
+ * its repository permits meanwhile, one left without demand for {@code stream-idle-timeout} is ended, while a
+ * slow one the client is still waiting on is not. A channel requests items from the client only as fast as they
+ * are written.
+ */
+@Slf4j
+@Controller
+@AllArgsConstructor
+public class ItemRSocketController {
+
+    private final ItemRepository itemRepository;
+    private final KeyedWriteExecutor writeExecutor;
+    private final ItemRSocketProperties properties;
+    private final PriceHistory priceHistory;
+
+    @MessageMapping("items.get.{id}")
+    public Mono<Item> getOneItem(@DestinationVariable String id) {
+        return itemRepository.findById(id);
+    }
+
+    @MessageMapping("items.list")
+    public Flux<Item> getAllItems() {
+        return boundIdle(itemRepository.findAll());
+    }
+
+    /**
+     * Items priced within the bounds given, either of which may be left out, in {@code (price, _id)} order.
+     */
+    @MessageMapping("items.range")
+    public Flux<Item> getItemsByPriceRange(ItemRangeRequest request) {
+        var min = request.getMinPrice() == null ? Long.MIN_VALUE : Prices.ceilCents(request.getMinPrice());
+        var max = request.getMaxPrice() == null ? Long.MAX_VALUE : Prices.floorCents(request.getMaxPrice());
+        return boundIdle(itemRepository.findByPriceRange(min, max,
+                PageRequest.of(0, Integer.MAX_VALUE, Sort.by("price").and(Sort.by("id")))));
+    }
+
+    @MessageMapping("items.search")
+    public Flux<Item> searchByText(ItemSearchRequest request) {
+        return boundIdle(itemRepository.searchByText(request.getText(), request.getLimit()));
+    }
+
+    /**
+     * Saves each item received and answers with it as saved, in the order received. Items with the id of a stored
+     * item replace its price and description, through its write lane as {@code PUT /items/{id}} does; others are created.
+     * An item whose write conflicts with a concurrent one is logged and left out, and the channel goes on with the
+     * next; any other failure ends it.
+     */
+    @MessageMapping("items.upsert")
+    public Flux<Item> upsertItems(Flux<Item> items) {
+        return items.flatMapSequential(item -> upsert(item)
+                        .onErrorResume(error -> error instanceof OptimisticLockingFailureException
+                                || error instanceof DuplicateKeyException, error -> {
+                            log.warn("Skipped upsert of item {}: {}", item.getId(), error.toString());
+                            return Mono.empty();
+                        }),
+                properties.getUpsertConcurrency());
+    }
+
+    /**
+     * Ends {@code items} with a {@link TimeoutException} once the client has had no outstanding demand for
+     * {@code stream-idle-timeout}, which also hands back the permits the stream holds.
+     */
+    private <T> Flux<T> boundIdle(Flux<T> items) {
+        var idle = properties.getStreamIdleTimeout();
+        return Flux.defer(() -> {
+            var demand = new Demand();
+            var stalls = demand.exhausted
+                    .switchMap(exhausted -> exhausted ? Mono.delay(idle) : Mono.<Long>never())
+                    .doOnNext(tick -> demand.stalled = true);
+            return items
+                    .takeUntilOther(stalls)
+                    .concatWith(Flux.defer(() -> demand.stalled
+                            ? Flux.error(new TimeoutException("No item requested for " + idle.toMillis() + "ms"))
+                            : Flux.empty()))
+                    .doOnRequest(demand::requested)
+                    .doOnNext(item -> demand.delivered());
+        });
+    }
+
+    private Mono<Item> upsert(Item item) {
+        if (item.getId() == null) {
+            return itemRepository.save(item);
+        }
+
+        return writeExecutor.submit(item.getId(), () -> itemRepository
+                .findById(item.getId())
+                .flatMap(currentItem -> {
+                    var previousPrice = currentItem.getPrice();
+                    currentItem.setPrice(item.getPrice());
+                    currentItem.setDescription(item.getDescription());
+                    return itemRepository
+                            .save(currentItem)
+                            .flatMap(savedItem -> priceHistory.recordChange(savedItem, previousPrice));
+                })
+                .switchIfEmpty(Mono.defer(() -> itemRepository.save(new Item(item.getId(), item.getDescription(), item.getPrice())))));
+    }
+
+    /**
+     * The items a stream's client requested but has not been sent yet, published as whether there are none.
+     */
+    private static final class Demand {
+
+        private final ReplayProcessor<Boolean> exhausted = ReplayProcessor.cacheLastOrDefault(true);
+        private final FluxSink<Boolean> sink = exhausted.sink();
+        private long outstanding;
+        private volatile boolean stalled;
+
+        synchronized void requested(long n) {
+            if (outstanding == 0) {
+                sink.next(false);
+            }
+            outstanding = Operators.addCap(outstanding, n);
+        }
+
+        synchronized void delivered() {
+            if (outstanding != Long.MAX_VALUE && --outstanding == 0) {
+                sink.next(true);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import com.github.charlesluxinger.search.DescriptionSuggester;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@AllArgsConstructor
+public class ItemSearchController {
+
+    private final ItemRepository itemRepository;
+    private final DescriptionSuggester descriptionSuggester;
+
+    @GetMapping("/items/search/text")
+    public Flux<Item> searchByText(@RequestParam String q,
+                                   @RequestParam(defaultValue = "20") int limit) {
+        return itemRepository.searchByText(q, limit);
+    }
+
+    @GetMapping("/items/suggest")
+    public Mono<List<String>> suggest(@RequestParam String prefix,
+                                      @RequestParam(defaultValue = "10") int limit) {
+        return Mono.fromSupplier(() -> descriptionSuggester.suggest(prefix, limit));
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.document.ItemSummary;
+import com.github.charlesluxinger.summary.ItemSummaryView;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@AllArgsConstructor
+public class ItemSummaryController {
+
+    private final ItemSummaryView itemSummaryView;
+
+    @GetMapping("/items/summary")
+    public Mono<ItemSummary> getSummary() {
+        return Mono.fromSupplier(itemSummaryView::summary);
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.github.charlesluxinger.deadline;
+
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Point in time after which nobody is waiting for the answer any more. Set by {@link DeadlineFilter} in the
+ * subscriber {@link Context} of the request, and read back by everything downstream that can stop work early.
+ */
+public final class Deadline {
+
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public static Deadline in(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static Optional<Deadline> from(Context context) {
+        return context.getOrEmpty(Deadline.class);
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAt - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAt - System.nanoTime() <= 0;
+    }
+
+    public Context putIn(Context context) {
+        return context.put(Deadline.class, this);
+    }
+
+}
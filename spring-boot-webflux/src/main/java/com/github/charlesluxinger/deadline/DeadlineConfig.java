@@ -0,0 +1,34 @@
+package com.github.charlesluxinger.deadline;
+
+import com.github.charlesluxinger.repository.support.RepositoryCallDecorator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+@Configuration
+public class DeadlineConfig {
+
+    /**
+     * Replaces Boot's template, which backs off when one is defined.
+     */
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory,
+                                                       MongoConverter converter) {
+        return new DeadlineMongoTemplate(reactiveMongoDatabaseFactory, converter);
+    }
+
+    /**
+     * Outside the resilience decorator, so the deadline bounds all retries together rather than each attempt,
+     * and a deadline cutting a call short does not count against the circuit breaker.
+     */
+    @Bean
+    @Order(1)
+    public RepositoryCallDecorator deadlineRepositoryDecorator(MeterRegistry meterRegistry) {
+        return new DeadlineRepositoryDecorator(meterRegistry);
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.github.charlesluxinger.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Gives each request a {@link Deadline}, from the client's timeout header or the default of its route, puts it
+ * in the subscriber context and cancels the whole exchange once it passes.
+ */
+@Component
+public class DeadlineFilter implements WebFilter {
+
+    private final DeadlineProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<PathPattern, Duration> routes = new LinkedHashMap<>();
+
+    public DeadlineFilter(DeadlineProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        properties.getRoutes().forEach((pattern, timeout) -> routes.put(PathPatternParser.defaultInstance.parse(pattern), timeout));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        var timeout = timeoutOf(exchange.getRequest());
+        if (timeout == null) {
+            return chain.filter(exchange);
+        }
+
+        var deadline = Deadline.in(timeout);
+        return chain
+                .filter(exchange)
+                .timeout(timeout, Mono.error(() -> {
+                    meterRegistry.counter("items.deadline.exceeded", "stage", "request").increment();
+                    return new DeadlineExceededException("Request deadline of " + timeout.toMillis() + "ms exceeded", null);
+                }))
+                .subscriberContext(deadline::putIn);
+    }
+
+    /**
+     * The client's timeout capped to {@code max-timeout}, else the first matching route default, else none.
+     * An unparsable header is ignored.
+     */
+    Duration timeoutOf(ServerHttpRequest request) {
+        var header = request.getHeaders().getFirst(properties.getHeader());
+        if (header != null) {
+            try {
+                var requested = DurationStyle.detectAndParse(header.trim(), ChronoUnit.MILLIS);
+                if (!requested.isNegative()) {
+                    return requested.compareTo(properties.getMaxTimeout()) > 0 ? properties.getMaxTimeout() : requested;
+                }
+            } catch (IllegalArgumentException e) {
+                // fall back to the route default
+            }
+        }
+
+        var path = request.getPath().pathWithinApplication();
+        return routes.entrySet().stream()
+                .filter(route -> route.getKey().matches(path))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.github.charlesluxinger.deadline;
+
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.reactivestreams.client.AggregatePublisher;
+import com.mongodb.reactivestreams.client.DistinctPublisher;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template sending what is left of the request {@link Deadline} as {@code maxTimeMS} on every find, aggregate,
+ * distinct and count, so that Mongo stops working on a query whose caller is gone.
+ * <p>
+ * Every operation, repository queries included, gets its database through {@link #doGetDatabase()}, which is
+ * subscribed within the request and so sees its context. When a deadline is set the database is handed out
+ * behind a proxy that sets {@code maxTime} on the publishers and options created from it.
+ */
+public class DeadlineMongoTemplate extends ReactiveMongoTemplate {
+
+    public DeadlineMongoTemplate(ReactiveMongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter) {
+        super(mongoDatabaseFactory, mongoConverter);
+    }
+
+    @Override
+    protected Mono<MongoDatabase> doGetDatabase() {
+        return super.doGetDatabase().flatMap(database -> Mono.subscriberContext()
+                .map(context -> Deadline.from(context)
+                        .map(deadline -> MaxTimeHandler.proxy(MongoDatabase.class, database, deadline))
+                        .orElse(database)));
+    }
+
+    private static final class MaxTimeHandler implements InvocationHandler {
+
+        private final Object target;
+        private final Deadline deadline;
+
+        private MaxTimeHandler(Object target, Deadline deadline) {
+            this.target = target;
+            this.deadline = deadline;
+        }
+
+        static <T> T proxy(Class<T> type, T target, Deadline deadline) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new MaxTimeHandler(target, deadline)));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (args != null) {
+                for (var arg : args) {
+                    if (arg instanceof CountOptions) {
+                        ((CountOptions) arg).maxTime(maxTimeMillis(), TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (result instanceof MongoCollection) {
+                return proxy(MongoCollection.class, (MongoCollection<?>) result, deadline);
+            }
+            if (result instanceof MongoDatabase) {
+                return proxy(MongoDatabase.class, (MongoDatabase) result, deadline);
+            }
+            if (result instanceof FindPublisher) {
+                return ((FindPublisher<?>) result).maxTime(maxTimeMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (result instanceof AggregatePublisher) {
+                return ((AggregatePublisher<?>) result).maxTime(maxTimeMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (result instanceof DistinctPublisher) {
+                return ((DistinctPublisher<?>) result).maxTime(maxTimeMillis(), TimeUnit.MILLISECONDS);
+            }
+            return result;
+        }
+
+        /**
+         * At least 1, as 0 means no limit to Mongo.
+         */
+        private long maxTimeMillis() {
+            return Math.max(1, deadline.remaining().toMillis());
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.github.charlesluxinger.deadline;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-deadline")
+public class DeadlineProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Request header holding how long the client is willing to wait, in milliseconds or as a duration such as {@code 200ms}.
+     */
+    private String header = "X-Request-Timeout";
+
+    /**
+     * Deadline of requests without the header, by path pattern. The first matching pattern wins; requests
+     * matching none have no deadline.
+     */
+    private Map<String, Duration> routes = new LinkedHashMap<>();
+
+    /**
+     * Upper bound of what a client may ask for through the header.
+     */
+    private Duration maxTimeout = Duration.ofSeconds(30);
+
+}
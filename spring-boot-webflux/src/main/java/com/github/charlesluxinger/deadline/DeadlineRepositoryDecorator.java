@@ -0,0 +1,72 @@
+package com.github.charlesluxinger.deadline;
+
+import com.github.charlesluxinger.repository.support.RepositoryCallDecorator;
+import com.mongodb.MongoExecutionTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+
+/**
+ * Bounds repository calls by the request {@link Deadline}: a call is not made at all once the deadline passed,
+ * and is cancelled when it passes while running. A stream is bounded as a whole, not per element.
+ * Mongo giving up on {@code maxTimeMS} is reported the same way.
+ */
+public class DeadlineRepositoryDecorator implements RepositoryCallDecorator {
+
+    private final MeterRegistry meterRegistry;
+
+    public DeadlineRepositoryDecorator(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T> Mono<T> decorate(Method method, Mono<T> call) {
+        return Mono.subscriberContext().flatMap(context -> {
+            var deadline = Deadline.from(context).orElse(null);
+            if (deadline == null) {
+                return call;
+            }
+            if (deadline.isExpired()) {
+                return Mono.error(exceeded(method, "repository", null));
+            }
+            return call
+                    .timeout(Mono.delay(deadline.remaining()), Mono.error(() -> exceeded(method, "repository", null)))
+                    .onErrorMap(DeadlineRepositoryDecorator::isMaxTimeExpired, error -> exceeded(method, "mongo", error));
+        });
+    }
+
+    @Override
+    public <T> Flux<T> decorate(Method method, Flux<T> call) {
+        return Mono.subscriberContext().flatMapMany(context -> {
+            var deadline = Deadline.from(context).orElse(null);
+            if (deadline == null) {
+                return call;
+            }
+            if (deadline.isExpired()) {
+                return Flux.error(exceeded(method, "repository", null));
+            }
+            // each element re-arms the timeout to what is left of the deadline, bounding the whole stream
+            return call
+                    .timeout(Mono.delay(deadline.remaining()), element -> Mono.delay(deadline.remaining()),
+                            Flux.error(() -> exceeded(method, "repository", null)))
+                    .onErrorMap(DeadlineRepositoryDecorator::isMaxTimeExpired, error -> exceeded(method, "mongo", error));
+        });
+    }
+
+    private static boolean isMaxTimeExpired(Throwable error) {
+        for (var cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof MongoExecutionTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private DeadlineExceededException exceeded(Method method, String stage, Throwable cause) {
+        meterRegistry.counter("items.deadline.exceeded", "stage", stage).increment();
+        return new DeadlineExceededException("Deadline exceeded in ItemRepository." + method.getName(), cause);
+    }
+
+}
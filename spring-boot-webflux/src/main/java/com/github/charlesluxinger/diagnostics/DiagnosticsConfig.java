@@ -0,0 +1,49 @@
+package com.github.charlesluxinger.diagnostics;
+
+import com.github.charlesluxinger.repository.support.RepositoryCallDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+
+@Configuration
+public class DiagnosticsConfig {
+
+    /**
+     * Innermost decorator, so the checkpoint names the repository call itself rather than whatever wraps it.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public RepositoryCallDecorator checkpointRepositoryDecorator() {
+        return new RepositoryCallDecorator() {
+
+            @Override
+            public <T> Mono<T> decorate(Method method, Mono<T> call) {
+                return ReactorDiagnostics.checkpoint("ItemRepository." + method.getName(), call);
+            }
+
+            @Override
+            public <T> Flux<T> decorate(Method method, Flux<T> call) {
+                return ReactorDiagnostics.checkpoint("ItemRepository." + method.getName(), call);
+            }
+        };
+    }
+
+    /**
+     * Names the request on errors escaping its handler.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public WebFilter checkpointWebFilter() {
+        return (exchange, chain) -> {
+            var request = exchange.getRequest();
+            return ReactorDiagnostics.checkpoint(request.getMethodValue() + " " + request.getPath().value(), chain.filter(exchange));
+        };
+    }
+
+}
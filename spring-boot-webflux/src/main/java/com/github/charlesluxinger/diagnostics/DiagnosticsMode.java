@@ -0,0 +1,33 @@
+package com.github.charlesluxinger.diagnostics;
+
+/**
+ * How much assembly information a failing pipeline carries, from cheapest to most expensive.
+ */
+public enum DiagnosticsMode {
+
+    /**
+     * Plain stack traces.
+     */
+    OFF,
+
+    /**
+     * Light checkpoints on controller and repository boundaries, naming the request and the repository call.
+     */
+    CHECKPOINT,
+
+    /**
+     * Checkpoints plus the {@code ReactorDebugAgent}, which rewrites operator call sites at class load
+     * to record where each operator was assembled. Cannot be uninstalled without a restart.
+     */
+    AGENT,
+
+    /**
+     * Checkpoints plus {@code Hooks.onOperatorDebug()}, capturing a stack trace on every assembly.
+     */
+    FULL;
+
+    public boolean checkpoints() {
+        return this != OFF;
+    }
+
+}
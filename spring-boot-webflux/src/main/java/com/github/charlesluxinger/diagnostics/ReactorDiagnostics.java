@@ -0,0 +1,58 @@
+package com.github.charlesluxinger.diagnostics;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.tools.agent.ReactorDebugAgent;
+
+/**
+ * Holds the active {@link DiagnosticsMode}. Hooks and the agent are global to the JVM, and so is this.
+ */
+@Slf4j
+public final class ReactorDiagnostics {
+
+    private static volatile DiagnosticsMode mode = DiagnosticsMode.OFF;
+    private static boolean agentInstalled;
+
+    private ReactorDiagnostics() {
+    }
+
+    public static DiagnosticsMode mode() {
+        return mode;
+    }
+
+    /**
+     * Switches modes. Only pipelines assembled afterwards are affected, which for a controller means
+     * the next request.
+     */
+    public static synchronized void install(DiagnosticsMode newMode) {
+        if (newMode == DiagnosticsMode.FULL) {
+            Hooks.onOperatorDebug();
+        } else {
+            Hooks.resetOnOperatorDebug();
+        }
+
+        if (newMode == DiagnosticsMode.AGENT && !agentInstalled) {
+            ReactorDebugAgent.init();
+            ReactorDebugAgent.processExistingClasses();
+            agentInstalled = true;
+        } else if (agentInstalled && newMode != DiagnosticsMode.AGENT) {
+            log.warn("Switching to {} diagnostics, but the Reactor debug agent stays installed until restart", newMode);
+        }
+
+        if (newMode != mode) {
+            log.info("Reactor diagnostics mode is {}", newMode);
+        }
+        mode = newMode;
+    }
+
+    public static <T> Mono<T> checkpoint(String description, Mono<T> mono) {
+        return mode.checkpoints() ? mono.checkpoint(description) : mono;
+    }
+
+    public static <T> Flux<T> checkpoint(String description, Flux<T> flux) {
+        return mode.checkpoints() ? flux.checkpoint(description) : flux;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.github.charlesluxinger.diagnostics;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * Installs the configured {@code reactor-diagnostics.mode} once the configuration files are read but
+ * before any bean, and so any pipeline, is created. The agent in particular has to be in place before
+ * the classes it rewrites are loaded to be cheap.
+ */
+public class ReactorDiagnosticsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        var mode = Binder.get(environment)
+                .bind("reactor-diagnostics.mode", DiagnosticsMode.class)
+                .orElse(DiagnosticsMode.OFF);
+
+        ReactorDiagnostics.install(mode);
+    }
+
+}
@@ -1,11 +1,18 @@
 package com.github.charlesluxinger.document;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import reactor.core.publisher.Mono;
 
@@ -13,13 +20,41 @@ import reactor.core.publisher.Mono;
 @Getter
 @Builder
 @Document
+@CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}")
 @AllArgsConstructor
 @NoArgsConstructor
 public class Item {
 
     @Id
     private String id;
+    @TextIndexed
     private String description;
-    private Double price;
+    /**
+     * In cents, see {@link Prices}. Stored as an Int64, written and read as a decimal in JSON.
+     */
+    @JsonSerialize(using = Prices.Serializer.class)
+    @JsonDeserialize(using = Prices.Deserializer.class)
+    private long price;
+    @Version
+    private Long version;
+
+    public Item(String id, String description, long price) {
+        this(id, description, price, null);
+    }
+
+    /**
+     * Reads an item from JSON. A price left out, or {@code null}, is rejected instead of being read as 0.
+     */
+    @JsonCreator
+    private static Item fromJson(@JsonProperty("id") String id,
+                                 @JsonProperty("description") String description,
+                                 @JsonProperty(value = "price", required = true)
+                                 @JsonDeserialize(using = Prices.Deserializer.class) Long price,
+                                 @JsonProperty("version") Long version) {
+        if (price == null) {
+            throw new IllegalArgumentException("An item needs a price");
+        }
+        return new Item(id, description, price, version);
+    }
 
 }
@@ -0,0 +1,54 @@
+package com.github.charlesluxinger.document;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A partial update of one item: only the fields given are changed.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemPatch {
+
+    private String id;
+    /**
+     * In cents, see {@link Prices}.
+     */
+    @JsonSerialize(using = Prices.Serializer.class)
+    @JsonDeserialize(using = Prices.Deserializer.class)
+    private Long price;
+    private String description;
+
+    /**
+     * This patch followed by {@code later}: fields {@code later} sets win.
+     */
+    public ItemPatch then(ItemPatch later) {
+        return new ItemPatch(id,
+                later.price != null ? later.price : price,
+                later.description != null ? later.description : description);
+    }
+
+    /**
+     * Whether applying this patch to {@code item} would change it.
+     */
+    public boolean changes(Item item) {
+        return (price != null && price != item.getPrice())
+                || (description != null && !description.equals(item.getDescription()));
+    }
+
+    public void applyTo(Item item) {
+        if (price != null) {
+            item.setPrice(price);
+        }
+        if (description != null) {
+            item.setDescription(description);
+        }
+    }
+
+}
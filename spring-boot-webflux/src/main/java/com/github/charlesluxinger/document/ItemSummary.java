@@ -0,0 +1,50 @@
+package com.github.charlesluxinger.document;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Totals over the whole item collection, kept in a single document of its own. Descriptions are
+ * stored as a list rather than a map, as they may contain dots.
+ */
+@Getter
+@Builder
+@Document(collection = "item_summary")
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemSummary {
+
+    public static final String ID = "items";
+
+    @Id
+    private String id;
+    private long count;
+    /**
+     * In cents, like {@link Item#getPrice()}.
+     */
+    @JsonSerialize(using = Prices.Serializer.class)
+    @JsonDeserialize(using = Prices.Deserializer.class)
+    private long totalValue;
+    private List<DescriptionCount> descriptions;
+    private Instant updatedAt;
+
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class DescriptionCount {
+
+        private String description;
+        private long count;
+
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.github.charlesluxinger.document;
+
+/**
+ * Projection of an {@link Item} down to what its ETag is made of.
+ */
+public interface ItemVersion {
+
+    String getId();
+
+    Long getVersion();
+
+}
@@ -0,0 +1,35 @@
+package com.github.charlesluxinger.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Price changes of one item within one time window, as parallel arrays of times and prices in cents. A window
+ * with more changes than a bucket holds spills over into further buckets with the same {@code start}.
+ * <p>
+ * Changes are appended in the order they are recorded, which across instances is not always the order of
+ * their times.
+ */
+@Getter
+@Document(collection = "item_price_history")
+@CompoundIndex(name = "itemId_start", def = "{'itemId': 1, 'start': 1}")
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceBucket {
+
+    @Id
+    private String id;
+    private String itemId;
+    private Instant start;
+    private int count;
+    private List<Instant> times;
+    private List<Long> prices;
+
+}
@@ -0,0 +1,114 @@
+package com.github.charlesluxinger.document;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices are kept as a {@code long} count of cents: exact, and without a box per item. They are decimals
+ * only at the edges, in JSON, CSV and request parameters.
+ */
+public final class Prices {
+
+    public static final int SCALE = 2;
+
+    private static final BigDecimal MIN = BigDecimal.valueOf(Long.MIN_VALUE, SCALE);
+    private static final BigDecimal MAX = BigDecimal.valueOf(Long.MAX_VALUE, SCALE);
+
+    private Prices() {
+    }
+
+    /**
+     * The cents of {@code price}.
+     *
+     * @throws ArithmeticException if it has more than two decimal places or does not fit
+     */
+    public static long toCents(BigDecimal price) {
+        return price.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * The fewest cents that are at least {@code price}, for the lower bound of a range.
+     */
+    public static long ceilCents(BigDecimal price) {
+        return clamp(price).setScale(SCALE, RoundingMode.CEILING).unscaledValue().longValueExact();
+    }
+
+    /**
+     * The most cents that are at most {@code price}, for the upper bound of a range.
+     */
+    public static long floorCents(BigDecimal price) {
+        return clamp(price).setScale(SCALE, RoundingMode.FLOOR).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public static String format(long cents) {
+        return toDecimal(cents).toPlainString();
+    }
+
+    private static BigDecimal clamp(BigDecimal price) {
+        return price.max(MIN).min(MAX);
+    }
+
+    /**
+     * Writes cents as a decimal number, {@code 14999} as {@code 149.99}.
+     */
+    public static class Serializer extends StdSerializer<Long> {
+
+        public Serializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long cents, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(toDecimal(cents));
+        }
+    }
+
+    /**
+     * Reads a decimal number, or a string holding one, into cents. Prices with fractions of a cent are rejected
+     * rather than rounded.
+     */
+    public static class Deserializer extends StdDeserializer<Long> {
+
+        public Deserializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            var token = parser.currentToken();
+            BigDecimal price;
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                price = parser.getDecimalValue();
+            } else if (token == JsonToken.VALUE_STRING) {
+                try {
+                    price = new BigDecimal(parser.getText().trim());
+                } catch (NumberFormatException e) {
+                    throw InvalidFormatException.from(parser, "Not a price", parser.getText(), Long.class);
+                }
+            } else {
+                return (Long) context.handleUnexpectedToken(Long.class, parser);
+            }
+
+            try {
+                return toCents(price);
+            } catch (ArithmeticException e) {
+                throw InvalidFormatException.from(parser, "Prices have at most " + SCALE + " decimal places", price, Long.class);
+            }
+        }
+    }
+
+}
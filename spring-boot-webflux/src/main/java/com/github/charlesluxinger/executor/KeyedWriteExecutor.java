@@ -0,0 +1,205 @@
+package com.github.charlesluxinger.executor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs writes for the same key one after the other, in submission order, while writes for
+ * different keys run in parallel. Keys are hashed to a fixed number of lanes, each lane being
+ * a bounded lock-free queue drained by whichever thread finished the previous write.
+ * <p>
+ * A write holds its lane until it completes or fails, even once its caller cancelled or gave up on it after
+ * {@code write-timeout}: disposing a Mongo write does not stop it on the server, so the next write for the same
+ * key could otherwise run alongside it. How long that can take is bounded by the driver's socket timeout.
+ */
+@Component
+public class KeyedWriteExecutor {
+
+    private final Lane[] lanes;
+    private final int queueCapacity;
+    private final Duration writeTimeout;
+    private final Timer queueWait;
+    private final AtomicInteger busyLanes = new AtomicInteger();
+
+    public KeyedWriteExecutor(WriteExecutorProperties properties, MeterRegistry meterRegistry) {
+        this.queueCapacity = properties.getQueueCapacity();
+        this.writeTimeout = properties.getWriteTimeout();
+        this.lanes = new Lane[properties.getLanes()];
+        this.queueWait = Timer
+                .builder("items.write.queue.wait")
+                .register(meterRegistry);
+
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+            Gauge.builder("items.write.lane.queued", lanes[i].size, AtomicInteger::get)
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("items.write.lanes.busy", busyLanes, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues {@code write} behind the writes already submitted for {@code key}. The write is
+     * subscribed once it reaches the head of its lane; if the lane is full the returned
+     * {@link Mono} fails with {@link RejectedExecutionException}, and if the write runs past
+     * {@code write-timeout} with a {@link TimeoutException}, while the write itself runs on.
+     */
+    public <T> Mono<T> submit(String key, Supplier<Mono<T>> write) {
+        return Mono.create(sink -> {
+            var task = new Task<>(write, sink);
+            sink.onCancel(task::cancel);
+
+            if (!laneFor(key).offer(task)) {
+                sink.error(new RejectedExecutionException("Write queue full for key " + key));
+            }
+        });
+    }
+
+    int laneIndex(String key) {
+        var hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    private Lane laneFor(String key) {
+        return lanes[laneIndex(key)];
+    }
+
+    private class Lane {
+
+        private final Queue<Task<?>> queue = Queues.<Task<?>>unboundedMultiproducer().get();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean running;
+
+        boolean offer(Task<?> task) {
+            if (size.incrementAndGet() > queueCapacity) {
+                size.decrementAndGet();
+                return false;
+            }
+
+            queue.offer(task);
+            drain();
+            return true;
+        }
+
+        void done() {
+            running = false;
+            busyLanes.decrementAndGet();
+            drain();
+        }
+
+        /**
+         * Serialized by {@code wip}: only one thread at a time gets past the first check, and a
+         * write completing synchronously loops here instead of recursing.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            var missed = 1;
+            for (;;) {
+                if (!running) {
+                    var task = queue.poll();
+                    if (task != null) {
+                        size.decrementAndGet();
+                        running = true;
+                        busyLanes.incrementAndGet();
+                        task.run(this);
+                    }
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private class Task<T> {
+
+        private final Supplier<Mono<T>> write;
+        private final MonoSink<T> sink;
+        private final long enqueuedAt = System.nanoTime();
+        private final AtomicBoolean answered = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        Task(Supplier<Mono<T>> write, MonoSink<T> sink) {
+            this.write = write;
+            this.sink = sink;
+        }
+
+        /**
+         * Before the write started it is skipped once it reaches the head of its lane; after, it runs on, as
+         * disposing it would not stop it on the server.
+         */
+        void cancel() {
+            cancelled = true;
+        }
+
+        void run(Lane lane) {
+            queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+
+            if (cancelled) {
+                lane.done();
+                return;
+            }
+
+            Mono<T> mono;
+            try {
+                mono = write.get();
+            } catch (Throwable e) {
+                sink.error(e);
+                lane.done();
+                return;
+            }
+
+            var timeout = Schedulers.parallel().schedule(
+                    () -> fail(new TimeoutException("Write did not complete within " + writeTimeout.toMillis() + "ms")),
+                    writeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            mono.subscriberContext(sink.currentContext())
+                    .subscribe(
+                            value -> {
+                                if (answered.compareAndSet(false, true)) {
+                                    sink.success(value);
+                                }
+                            },
+                            error -> {
+                                timeout.dispose();
+                                fail(error);
+                                lane.done();
+                            },
+                            () -> {
+                                timeout.dispose();
+                                if (answered.compareAndSet(false, true)) {
+                                    sink.success();
+                                }
+                                lane.done();
+                            });
+        }
+
+        private void fail(Throwable error) {
+            if (answered.compareAndSet(false, true)) {
+                sink.error(error);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.github.charlesluxinger.executor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-write")
+public class WriteExecutorProperties {
+
+    /**
+     * Number of lanes item ids are hashed to. Writes in different lanes run in parallel.
+     */
+    private int lanes = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Pending writes a lane accepts before new ones are rejected.
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * How long a caller waits for its write before it fails. The write itself keeps running, and holds up the
+     * writes queued behind it in its lane, until it ends.
+     */
+    private Duration writeTimeout = Duration.ofSeconds(30);
+
+}
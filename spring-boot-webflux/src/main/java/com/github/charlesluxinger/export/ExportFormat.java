@@ -0,0 +1,76 @@
+package com.github.charlesluxinger.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.Prices;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson") {
+        @Override
+        void writeHeader(JsonGenerator generator) {
+        }
+
+        @Override
+        void write(Item item, JsonGenerator generator, ObjectWriter objectWriter) throws IOException {
+            objectWriter.writeValue(generator, item);
+            generator.writeRaw('\n');
+        }
+    },
+
+    CSV(MediaType.parseMediaType("text/csv"), "csv") {
+        @Override
+        void writeHeader(JsonGenerator generator) throws IOException {
+            generator.writeRaw("id,description,price\n");
+        }
+
+        @Override
+        void write(Item item, JsonGenerator generator, ObjectWriter objectWriter) throws IOException {
+            generator.writeRaw(escape(item.getId()));
+            generator.writeRaw(',');
+            generator.writeRaw(escape(item.getDescription()));
+            generator.writeRaw(',');
+            generator.writeRaw(Prices.format(item.getPrice()));
+            generator.writeRaw('\n');
+        }
+
+        private String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    };
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    /**
+     * Both formats go through a {@link JsonGenerator}: NDJSON needs it for Jackson and CSV only
+     * uses its raw writes, which saves a second encoding layer over the gzip stream.
+     */
+    abstract void writeHeader(JsonGenerator generator) throws IOException;
+
+    abstract void write(Item item, JsonGenerator generator, ObjectWriter objectWriter) throws IOException;
+
+    public static ExportFormat of(String format) {
+        for (var value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format " + format);
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.github.charlesluxinger.export;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-export")
+public class ExportProperties {
+
+    /**
+     * Documents fetched per cursor round trip.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Items encoded into each compressed chunk. Each chunk is written and flushed on its own, so this
+     * bounds the memory held per export.
+     */
+    private int chunkItems = 500;
+
+}
@@ -0,0 +1,147 @@
+package com.github.charlesluxinger.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.charlesluxinger.document.Item;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes one export, chunk by chunk, into {@link DataBuffer}s taken from the response's factory.
+ * A single gzip stream spans the whole export and is sync-flushed at the end of every chunk, so
+ * each buffer can be sent as soon as it is produced and nothing but the current chunk is held.
+ * <p>
+ * Not thread-safe: chunks must be encoded one at a time, which {@code concatMap} guarantees.
+ */
+public class ItemExportEncoder implements AutoCloseable {
+
+    private final ExportFormat format;
+    private final DataBufferFactory bufferFactory;
+    private final ObjectWriter objectWriter;
+    private final boolean gzip;
+    private final ChunkOutputStream chunk = new ChunkOutputStream();
+
+    private OutputStream compressed;
+    private JsonGenerator generator;
+
+    public ItemExportEncoder(ExportFormat format, DataBufferFactory bufferFactory, ObjectMapper objectMapper, boolean gzip) {
+        this.format = format;
+        this.bufferFactory = bufferFactory;
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.gzip = gzip;
+    }
+
+    public DataBuffer encode(List<Item> items) {
+        return writeChunk(items.size() * 64, () -> {
+            for (var item : items) {
+                format.write(item, generator, objectWriter);
+            }
+        });
+    }
+
+    /**
+     * Last chunk: the gzip trailer, or the header alone for an empty export.
+     */
+    public DataBuffer finish() {
+        return writeChunk(64, () -> {
+            generator.close();
+            compressed.close();
+        });
+    }
+
+    /**
+     * Frees the Deflater's native memory and any half-written chunk, also when the export is cancelled.
+     */
+    @Override
+    public void close() {
+        chunk.release();
+        if (compressed instanceof SyncFlushGzipOutputStream) {
+            ((SyncFlushGzipOutputStream) compressed).end();
+        }
+    }
+
+    private DataBuffer writeChunk(int sizeHint, ChunkWriter writer) {
+        chunk.start(bufferFactory.allocateBuffer(Math.max(sizeHint, 256)));
+        try {
+            if (generator == null) {
+                compressed = gzip ? new SyncFlushGzipOutputStream(chunk) : chunk;
+                generator = objectWriter.getFactory().createGenerator(compressed);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                format.writeHeader(generator);
+            }
+
+            writer.write();
+            generator.flush();
+            return chunk.take();
+        } catch (IOException e) {
+            chunk.release();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface ChunkWriter {
+        void write() throws IOException;
+    }
+
+    private static class SyncFlushGzipOutputStream extends GZIPOutputStream {
+
+        SyncFlushGzipOutputStream(OutputStream out) throws IOException {
+            super(out, 8192, true);
+        }
+
+        void end() {
+            def.end();
+        }
+    }
+
+    /**
+     * Sink of the gzip stream, switched to a fresh {@link DataBuffer} for every chunk.
+     */
+    private static class ChunkOutputStream extends OutputStream {
+
+        private DataBuffer buffer;
+
+        void start(DataBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        DataBuffer take() {
+            var taken = buffer;
+            buffer = null;
+            return taken;
+        }
+
+        void release() {
+            if (buffer != null) {
+                DataBufferUtils.release(buffer);
+                buffer = null;
+            }
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.write((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() {
+            // the buffers are handed downstream, never closed here
+        }
+    }
+
+}
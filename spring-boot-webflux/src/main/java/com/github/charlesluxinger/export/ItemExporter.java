@@ -0,0 +1,42 @@
+package com.github.charlesluxinger.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.charlesluxinger.document.Item;
+import lombok.AllArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+@Component
+@AllArgsConstructor
+public class ItemExporter {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final ExportProperties properties;
+
+    /**
+     * Streams the whole collection as compressed chunks. Demand from the returned {@link Flux} drives
+     * the cursor, so a slow client slows the cursor down instead of filling memory.
+     */
+    public Flux<DataBuffer> export(ExportFormat format, DataBufferFactory bufferFactory, boolean gzip) {
+        var query = new Query().cursorBatchSize(properties.getBatchSize());
+
+        return Flux.using(
+                () -> new ItemExportEncoder(format, bufferFactory, objectMapper, gzip),
+                encoder -> mongoTemplate
+                        .find(query, Item.class)
+                        .limitRate(properties.getBatchSize())
+                        .buffer(properties.getChunkItems())
+                        .concatMap(items -> Flux.just(encoder.encode(items)), 1)
+                        .concatWith(Flux.defer(() -> Flux.just(encoder.finish()))),
+                ItemExportEncoder::close)
+                .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+    }
+
+}
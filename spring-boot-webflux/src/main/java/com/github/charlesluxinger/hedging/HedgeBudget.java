@@ -0,0 +1,40 @@
+package com.github.charlesluxinger.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket refilled by reads rather than by time: each read deposits {@code ratio} of a token and each
+ * hedge takes a whole one, so hedges stay under {@code ratio} of reads whatever the traffic. Tokens are kept
+ * in thousandths to stay on a lock-free long.
+ */
+class HedgeBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    HedgeBudget(double ratio, int burst) {
+        this.deposit = Math.round(ratio * TOKEN);
+        this.capacity = Math.max(1, burst) * TOKEN;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    void onRead() {
+        balance.getAndUpdate(current -> Math.min(capacity, current + deposit));
+    }
+
+    boolean tryAcquire() {
+        for (;;) {
+            var current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+}
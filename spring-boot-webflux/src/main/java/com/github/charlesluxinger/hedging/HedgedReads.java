@@ -0,0 +1,109 @@
+package com.github.charlesluxinger.hedging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cuts the tail of point reads: when a read has not answered after a while, the same read is issued a second
+ * time and whichever answers first, value, empty or error, is the result, the other one being cancelled.
+ * <p>
+ * The wait is either fixed or tracked from the live latency percentile, and hedges are capped by a
+ * {@link HedgeBudget} so that a slow database does not get twice the load when it can least take it.
+ */
+@Component
+public class HedgedReads {
+
+    private final HedgingProperties properties;
+    private final LatencyTracker latency;
+    private final HedgeBudget budget;
+    private final Counter reads;
+    private final Counter hedges;
+    private final Counter wins;
+
+    public HedgedReads(HedgingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.latency = new LatencyTracker(properties.getPercentile(), properties.getLatencySamples());
+        this.budget = new HedgeBudget(properties.getBudgetRatio(), properties.getBudgetBurst());
+        this.reads = meterRegistry.counter("items.read.hedge.reads");
+        this.hedges = meterRegistry.counter("items.read.hedge.issued");
+        this.wins = meterRegistry.counter("items.read.hedge.wins");
+
+        Gauge.builder("items.read.hedge.rate", this, HedgedReads::hedgeRate)
+                .description("Share of reads that issued a second read")
+                .register(meterRegistry);
+        Gauge.builder("items.read.hedge.win-rate", this, HedgedReads::winRate)
+                .description("Share of second reads that answered first")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes {@code read} and, if it is still pending after the hedge delay and the budget allows it,
+     * subscribes it a second time. {@code read} must be safe to run twice.
+     */
+    public <T> Mono<T> read(Supplier<Mono<T>> read) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(read);
+        }
+
+        return Mono.defer(() -> {
+            reads.increment();
+            budget.onRead();
+
+            var clock = Schedulers.parallel();
+            var start = clock.now(TimeUnit.NANOSECONDS);
+
+            // cancelled primaries are recorded too, their elapsed time being a lower bound of their latency
+            Mono<Tuple2<Signal<T>, Boolean>> primary = read.get()
+                    .materialize()
+                    .doFinally(signal -> latency.record(clock.now(TimeUnit.NANOSECONDS) - start))
+                    .map(signal -> Tuples.of(signal, false));
+
+            Mono<Tuple2<Signal<T>, Boolean>> hedge = Mono.delay(delay())
+                    .flatMap(tick -> {
+                        if (!budget.tryAcquire()) {
+                            return Mono.never();
+                        }
+                        hedges.increment();
+                        return read.get().materialize();
+                    })
+                    .map(signal -> Tuples.of(signal, true));
+
+            return Mono.first(primary, hedge)
+                    .doOnNext(winner -> {
+                        if (winner.getT2()) {
+                            wins.increment();
+                        }
+                    })
+                    .map(Tuple2::getT1)
+                    .dematerialize();
+        });
+    }
+
+    Duration delay() {
+        var fixed = properties.getDelay();
+        if (fixed != null) {
+            return fixed;
+        }
+        return Duration.ofNanos(Math.max(properties.getMinDelay().toNanos(), latency.nanos()));
+    }
+
+    private double hedgeRate() {
+        return reads.count() == 0 ? 0 : hedges.count() / reads.count();
+    }
+
+    private double winRate() {
+        return hedges.count() == 0 ? 0 : wins.count() / hedges.count();
+    }
+
+}
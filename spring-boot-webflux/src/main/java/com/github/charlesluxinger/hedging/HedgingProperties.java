@@ -0,0 +1,51 @@
+package com.github.charlesluxinger.hedging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-hedging")
+public class HedgingProperties {
+
+    /**
+     * Off by default: every hedge is one more read on the database.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Fixed wait before the second read. When unset the wait follows the live {@link #percentile} of read latency.
+     */
+    private Duration delay;
+
+    /**
+     * Latency percentile, between 0 and 1, the wait is tracked from when no fixed {@link #delay} is set.
+     */
+    private double percentile = 0.95;
+
+    /**
+     * Floor of the tracked wait, also used until enough reads were seen to track it.
+     */
+    private Duration minDelay = Duration.ofMillis(10);
+
+    /**
+     * Most recent reads the tracked percentile is computed over.
+     */
+    private int latencySamples = 1024;
+
+    /**
+     * Extra reads allowed per read, e.g. 0.05 for at most 5% more load on the database.
+     */
+    private double budgetRatio = 0.05;
+
+    /**
+     * Hedges that can be issued back to back before the budget is refilled by new reads.
+     */
+    private int budgetBurst = 10;
+
+}
@@ -0,0 +1,50 @@
+package com.github.charlesluxinger.hedging;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Percentile of the last {@code samples} latencies. Recording is a single slot write; the percentile is
+ * recomputed from a sorted copy every {@code samples / 16} records, not on every read.
+ */
+class LatencyTracker {
+
+    private final double percentile;
+    private final AtomicLongArray window;
+    private final AtomicLong recorded = new AtomicLong();
+    private final int recomputeEvery;
+    private volatile long current = -1;
+
+    LatencyTracker(double percentile, int samples) {
+        this.percentile = percentile;
+        this.window = new AtomicLongArray(samples);
+        this.recomputeEvery = Math.max(1, samples / 16);
+    }
+
+    void record(long nanos) {
+        var count = recorded.getAndIncrement();
+        window.lazySet((int) (count % window.length()), nanos);
+
+        if ((count + 1) % recomputeEvery == 0 && count + 1 >= window.length() / 4) {
+            recompute(Math.min(count + 1, window.length()));
+        }
+    }
+
+    /**
+     * The tracked percentile in nanoseconds, or -1 until a quarter of the window was filled.
+     */
+    long nanos() {
+        return current;
+    }
+
+    private void recompute(long filled) {
+        var sorted = new long[(int) filled];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = window.get(i);
+        }
+        Arrays.sort(sorted);
+        current = sorted[(int) Math.max(0, Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1))];
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.github.charlesluxinger.history;
+
+import com.github.charlesluxinger.document.PriceBucket;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Folds the price changes of buckets read in any order into fixed steps from {@code from}, keeping only
+ * their count, min, max, sum and latest price. Changes outside {@code [from, to)} are skipped.
+ */
+final class PriceDownsampler {
+
+    private final long from;
+    private final long to;
+    private final long step;
+
+    private final int[] count;
+    private final long[] min;
+    private final long[] max;
+    private final long[] sum;
+    private final long[] lastAt;
+    private final long[] last;
+
+    /**
+     * @throws IllegalArgumentException if {@code [from, to)} is empty or holds more than {@code maxSteps} steps
+     */
+    PriceDownsampler(Instant from, Instant to, Duration step, int maxSteps) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (step.isNegative() || step.isZero()) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+
+        this.from = from.toEpochMilli();
+        this.to = to.toEpochMilli();
+        this.step = Math.max(1, step.toMillis());
+        var steps = (this.to - this.from + this.step - 1) / this.step;
+        if (steps > maxSteps) {
+            throw new IllegalArgumentException(steps + " steps asked, at most " + maxSteps + " allowed");
+        }
+
+        var size = (int) steps;
+        count = new int[size];
+        min = new long[size];
+        max = new long[size];
+        sum = new long[size];
+        lastAt = new long[size];
+        last = new long[size];
+    }
+
+    void add(PriceBucket bucket) {
+        var times = bucket.getTimes();
+        var prices = bucket.getPrices();
+        for (int i = 0; i < Math.min(times.size(), prices.size()); i++) {
+            add(times.get(i).toEpochMilli(), prices.get(i));
+        }
+    }
+
+    void add(long at, long price) {
+        if (at < from || at >= to) {
+            return;
+        }
+
+        var i = (int) ((at - from) / step);
+        if (count[i] == 0) {
+            min[i] = price;
+            max[i] = price;
+        } else {
+            min[i] = Math.min(min[i], price);
+            max[i] = Math.max(max[i], price);
+        }
+        count[i]++;
+        sum[i] += price;
+        // of changes recorded within the same millisecond, the one recorded last wins
+        if (count[i] == 1 || at >= lastAt[i]) {
+            lastAt[i] = at;
+            last[i] = price;
+        }
+    }
+
+    /**
+     * The steps that saw any change, in time order.
+     */
+    List<PriceStep> steps() {
+        var steps = new ArrayList<PriceStep>();
+        for (int i = 0; i < count.length; i++) {
+            if (count[i] > 0) {
+                steps.add(new PriceStep(Instant.ofEpochMilli(from + i * step), count[i], min[i], max[i],
+                        Math.round((double) sum[i] / count[i]), last[i]));
+            }
+        }
+        return steps;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.github.charlesluxinger.history;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.PriceBucket;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Price changes of items, appended to one {@link PriceBucket} per item and time window rather than one
+ * document per change, so that a range read touches one bucket per window it spans.
+ * <p>
+ * A change is an upsert that pushes onto the window's bucket while it has room, and otherwise starts a new
+ * one. The history is secondary to the item: a change that cannot be recorded is logged and counted, and the
+ * write that made it still succeeds.
+ */
+@Slf4j
+@Component
+public class PriceHistory {
+
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final PriceHistoryProperties properties;
+    private final Counter failures;
+    private final Clock clock;
+
+    public PriceHistory(ReactiveMongoTemplate mongoTemplate, PriceHistoryProperties properties, MeterRegistry meterRegistry) {
+        this(mongoTemplate, properties, meterRegistry, Clock.systemUTC());
+    }
+
+    PriceHistory(ReactiveMongoTemplate mongoTemplate, PriceHistoryProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.failures = meterRegistry.counter("items.price-history.failures");
+        this.clock = clock;
+    }
+
+    /**
+     * Records the price of {@code saved} if it differs from {@code previousPrice}, then emits {@code saved}.
+     */
+    public Mono<Item> recordChange(Item saved, long previousPrice) {
+        if (saved.getPrice() == previousPrice) {
+            return Mono.just(saved);
+        }
+        return record(Map.of(saved.getId(), saved.getPrice())).thenReturn(saved);
+    }
+
+    /**
+     * Records the new prices of several items, by id, in one unordered {@code bulkWrite}.
+     */
+    public Mono<Void> record(Map<String, Long> pricesById) {
+        if (!properties.isEnabled() || pricesById.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return Mono.defer(() -> {
+                    var at = clock.instant();
+                    var start = Date.from(bucketStart(at));
+                    var models = pricesById.entrySet().stream()
+                            .map(price -> new UpdateOneModel<Document>(
+                                    new Document("itemId", price.getKey())
+                                            .append("start", start)
+                                            .append("count", new Document("$lt", properties.getBucketCapacity())),
+                                    new Document("$push", new Document("times", Date.from(at)).append("prices", price.getValue()))
+                                            .append("$inc", new Document("count", 1)),
+                                    UPSERT))
+                            .collect(Collectors.toList());
+                    return mongoTemplate
+                            .getCollection(mongoTemplate.getCollectionName(PriceBucket.class))
+                            .flatMap(collection -> Mono.from(collection.bulkWrite(models, UNORDERED)));
+                })
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Could not record the price history of {}: {}", pricesById.keySet(), error.toString());
+                    failures.increment();
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * The price changes of an item within {@code [from, to)}, downsampled to steps of {@code step} from {@code from}.
+     * Fails with an {@link IllegalArgumentException} if the range is empty or split into more than
+     * {@code max-steps} steps.
+     */
+    public Flux<PriceStep> read(String itemId, Instant from, Instant to, Duration step) {
+        var buckets = query(where("itemId").is(itemId).and("start").gte(bucketStart(from)).lt(to))
+                .with(Sort.by("start", "id"));
+
+        return Flux.defer(() -> {
+            var downsampler = new PriceDownsampler(from, to, step, properties.getMaxSteps());
+            return mongoTemplate
+                    .find(buckets, PriceBucket.class)
+                    .doOnNext(downsampler::add)
+                    .thenMany(Flux.defer(() -> Flux.fromIterable(downsampler.steps())));
+        });
+    }
+
+    private Instant bucketStart(Instant at) {
+        var window = properties.getBucketDuration().toMillis();
+        return Instant.ofEpochMilli(Math.floorDiv(at.toEpochMilli(), window) * window);
+    }
+
+}
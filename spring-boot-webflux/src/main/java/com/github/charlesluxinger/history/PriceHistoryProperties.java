@@ -0,0 +1,41 @@
+package com.github.charlesluxinger.history;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-price-history")
+public class PriceHistoryProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * The time window an item's bucket covers, counted from the epoch. A range read touches one bucket per
+     * window it spans, so this should be well above the usual step.
+     */
+    private Duration bucketDuration = Duration.ofDays(1);
+
+    /**
+     * Price changes one bucket holds at most. Further changes within its window go to a new bucket.
+     */
+    private int bucketCapacity = 200;
+
+    /**
+     * How far back a read goes when {@code from} is not given.
+     */
+    private Duration defaultRange = Duration.ofDays(7);
+
+    private Duration defaultStep = Duration.ofHours(1);
+
+    /**
+     * Steps a single read may ask for, as each one is aggregated in memory.
+     */
+    private int maxSteps = 10_000;
+
+}
@@ -0,0 +1,32 @@
+package com.github.charlesluxinger.history;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.github.charlesluxinger.document.Prices;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * The price changes of one item within one step of a price history read. Prices are in cents, the average
+ * rounded to the nearest.
+ */
+@Getter
+@AllArgsConstructor
+public class PriceStep {
+
+    private Instant start;
+    private int count;
+    @JsonSerialize(using = Prices.Serializer.class)
+    private long min;
+    @JsonSerialize(using = Prices.Serializer.class)
+    private long max;
+    @JsonSerialize(using = Prices.Serializer.class)
+    private long avg;
+    /**
+     * The price the item had at the end of the step.
+     */
+    @JsonSerialize(using = Prices.Serializer.class)
+    private long last;
+
+}
@@ -0,0 +1,234 @@
+package com.github.charlesluxinger.idfilter;
+
+import com.github.charlesluxinger.changes.ItemChangeBus;
+import com.github.charlesluxinger.changes.ItemChanges;
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.support.DeleteEvents;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.MongoMappingEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Knows which item ids cannot exist, so lookups of ids that were never stored, as bots and stale links
+ * make, need not reach Mongo.
+ * <p>
+ * The ids are kept in a {@link ScalableBloomFilter} built from an {@code _id}-only scan, and added to as items
+ * are saved here or, through the {@link ItemChangeBus}, elsewhere. A Bloom filter cannot forget an id, so
+ * deleted ids still cost a query; once they make up {@code rebuild-ratio} of the filter it is built again. Ids
+ * added while a new filter is being built go into both. Until the first build completes, and from a change
+ * stream reset until the build it starts completes, every id might exist.
+ */
+@Slf4j
+@Component
+public class ItemIdFilter extends AbstractMongoEventListener<Item> {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ItemIdFilterProperties properties;
+    private final ItemChangeBus changeBus;
+    private final Counter avoided;
+    private final Counter falsePositives;
+
+    private final Disposable.Composite jobs = Disposables.composite();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong deletes = new AtomicLong();
+
+    private volatile ScalableBloomFilter filter;
+    private volatile ScalableBloomFilter building;
+
+    public ItemIdFilter(ReactiveMongoTemplate mongoTemplate, ItemIdFilterProperties properties, MeterRegistry meterRegistry,
+                        ItemChangeBus changeBus) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.changeBus = changeBus;
+        this.avoided = meterRegistry.counter("items.idfilter.avoided");
+        this.falsePositives = meterRegistry.counter("items.idfilter.false-positives");
+        meterRegistry.gauge("items.idfilter.false-positive.rate", this, ItemIdFilter::observedFalsePositiveRate);
+        meterRegistry.gauge("items.idfilter.false-positive.expected", this,
+                idFilter -> idFilter.filter == null ? 0 : idFilter.filter.expectedFalsePositiveRate());
+        meterRegistry.gauge("items.idfilter.entries", this, idFilter -> idFilter.filter == null ? 0 : idFilter.filter.count());
+    }
+
+    /**
+     * {@code false} only when no item with this id can exist, counted as an avoided query.
+     */
+    public boolean mightExist(String id) {
+        var current = filter;
+        if (current == null || current.mightContain(id)) {
+            return true;
+        }
+        avoided.increment();
+        return false;
+    }
+
+    /**
+     * Reports that an id the filter let through was not found after all.
+     */
+    public void notFound() {
+        if (filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        // listening first, so that ids created during the scan are not missed
+        if (properties.isChangeStream()) {
+            jobs.add(changeBus
+                    .changes()
+                    .subscribe(this::apply, error -> log.error("Item id filter change stream stopped", error)));
+        }
+
+        jobs.add(rebuild().subscribe(null, error -> log.error("Could not build the item id filter", error)));
+
+        jobs.add(Flux.interval(properties.getRebuildInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> rebuild()
+                        .onErrorResume(error -> {
+                            log.error("Could not rebuild the item id filter", error);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobs.dispose();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onApplicationEvent(MongoMappingEvent<?> event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (DeleteEvents.isUntypedItemDelete(event)) {
+            onAfterDelete((AfterDeleteEvent<Item>) event);
+            return;
+        }
+        super.onApplicationEvent(event);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Item> event) {
+        add(event.getSource().getId());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Item> event) {
+        deleted();
+    }
+
+    /**
+     * Builds a new filter from an {@code _id}-only scan and swaps it in. Only one build runs at a time.
+     */
+    Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            if (!rebuilding.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+
+            var collection = mongoTemplate.getCollectionName(Item.class);
+            var ids = new Query();
+            ids.fields().include("_id");
+            return mongoTemplate
+                    .getCollection(collection)
+                    .flatMap(items -> Mono.from(items.estimatedDocumentCount()))
+                    .flatMapMany(count -> {
+                        var next = new ScalableBloomFilter(count + properties.getHeadroom(), properties.getFalsePositiveRate());
+                        building = next;
+                        deletes.set(0);
+                        return mongoTemplate
+                                .find(ids, Document.class, collection)
+                                .doOnNext(document -> next.add(id(document.get("_id"))))
+                                .doOnComplete(() -> {
+                                    filter = next;
+                                    log.info("Built item id filter over {} ids", next.count());
+                                });
+                    })
+                    .doFinally(signal -> {
+                        building = null;
+                        rebuilding.set(false);
+                    })
+                    .then();
+        });
+    }
+
+    private void add(String id) {
+        var next = building;
+        if (next != null) {
+            next.add(id);
+        }
+        var current = filter;
+        if (current != null && current != next) {
+            current.add(id);
+        }
+    }
+
+    private void deleted() {
+        var current = filter;
+        if (current != null && deletes.incrementAndGet() > properties.getRebuildRatio() * current.count()) {
+            rebuild().subscribe(null, error -> log.error("Could not rebuild the item id filter", error));
+        }
+    }
+
+    void apply(ItemChanges changes) {
+        if (!changes.isReset()) {
+            try {
+                for (var change : changes.getChanges()) {
+                    if (change.isCreated()) {
+                        add(change.getId());
+                    }
+                    if (change.getItem() == null) {
+                        deleted();
+                    }
+                }
+                return;
+            } catch (RuntimeException e) {
+                // rebuilt as after a reset, rather than ending the subscription to the bus
+                log.error("Could not apply item changes to the id filter, rebuilding it", e);
+            }
+        }
+
+        // ids created meanwhile may be missing; let everything through until rebuilt
+        filter = null;
+        rebuild().subscribe(null, error -> log.error("Could not rebuild the item id filter", error));
+    }
+
+    private double observedFalsePositiveRate() {
+        var misses = avoided.count() + falsePositives.count();
+        return misses == 0 ? 0 : falsePositives.count() / misses;
+    }
+
+    private static String id(Object key) {
+        if (key instanceof BsonValue) {
+            var value = (BsonValue) key;
+            return value.isObjectId() ? value.asObjectId().getValue().toHexString() : value.asString().getValue();
+        }
+        return key instanceof ObjectId ? ((ObjectId) key).toHexString() : key.toString();
+    }
+
+}
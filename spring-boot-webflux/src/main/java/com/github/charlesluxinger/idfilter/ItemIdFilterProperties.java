@@ -0,0 +1,50 @@
+package com.github.charlesluxinger.idfilter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-id-filter")
+public class ItemIdFilterProperties {
+
+    /**
+     * Answer {@code GET /items/{id}} for ids that were never stored with a 404, without asking Mongo.
+     * With more than one instance this needs the change stream, or ids created elsewhere are not found here;
+     * even with it, an id created on another instance is answered with a 404 here until its burst arrives, at
+     * least {@code item-change-bus.coalesce-window} after the write, so only enable this where a client that
+     * creates an item on one instance and reads it back from another can live with a retry.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Share of lookups for missing ids the filter lets through to Mongo anyway.
+     */
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * Ids the filter is sized for beyond those found when it is built; it grows past that as needed.
+     */
+    private long headroom = 10_000;
+
+    /**
+     * Rebuild once deleted ids, which the filter keeps answering for, make up this share of its entries.
+     */
+    private double rebuildRatio = 0.2;
+
+    /**
+     * How often the filter is rebuilt regardless, to drop the ids of deletes it did not see.
+     */
+    private Duration rebuildInterval = Duration.ofHours(1);
+
+    /**
+     * Learn about ids created and deleted by other instances through a change stream (needs a replica set).
+     */
+    private boolean changeStream = true;
+
+}
@@ -0,0 +1,140 @@
+package com.github.charlesluxinger.idfilter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over strings that grows as it fills: once a stage holds as many entries as it was sized
+ * for, a new stage with twice the capacity and {@value #TIGHTENING} times the false positive rate takes the
+ * adds. A lookup asks every stage. The first stage gets {@code 1 - }{@value #TIGHTENING} of the rate asked
+ * for, so the stages' rates form a series that stays below it however many are added, and so does the
+ * filter's. Each stage is sized so that its own rate holds once it is full, with a whole number of hashes.
+ * <p>
+ * Adds and lookups may run concurrently; bits are only ever set, with a compare-and-set, so no add is lost.
+ */
+class ScalableBloomFilter {
+
+    private static final double TIGHTENING = 0.85;
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        stages.add(new Stage(Math.max(1, initialCapacity), falsePositiveRate * (1 - TIGHTENING)));
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        var stage = stages.get(stages.size() - 1);
+        if (stage.count.get() >= stage.capacity) {
+            stage = grow(stage);
+        }
+        stage.add(hash);
+    }
+
+    /**
+     * {@code false} only when {@code value} was never added.
+     */
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        for (var stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long count() {
+        return stages.stream().mapToLong(stage -> stage.count.get()).sum();
+    }
+
+    /**
+     * The false positive rate expected from how full each stage actually is.
+     */
+    double expectedFalsePositiveRate() {
+        double none = 1;
+        for (var stage : stages) {
+            none *= 1 - stage.expectedFalsePositiveRate();
+        }
+        return 1 - none;
+    }
+
+    private synchronized Stage grow(Stage full) {
+        var last = stages.get(stages.size() - 1);
+        if (last != full) {
+            return last;
+        }
+        var next = new Stage(full.capacity * 2, full.falsePositiveRate * TIGHTENING);
+        stages.add(next);
+        return next;
+    }
+
+    /**
+     * FNV-1a over the chars, finished with the MurmurHash3 mixer so every bit depends on every char.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static final class Stage {
+
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final AtomicLongArray bits;
+        private final long size;
+        private final int hashes;
+        private final AtomicLong count = new AtomicLong();
+
+        Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            // the optimal count of hashes rounded up, then as many bits as that count needs to hold the rate
+            this.hashes = Math.max(1, (int) Math.ceil(-Math.log(falsePositiveRate) / Math.log(2)));
+            long neededBits = (long) Math.ceil(-hashes * (double) capacity / Math.log(1 - Math.pow(falsePositiveRate, 1.0 / hashes)));
+            this.bits = new AtomicLongArray(Math.toIntExact(Math.max(1, (neededBits + 63) / 64)));
+            this.size = bits.length() * 64L;
+        }
+
+        void add(long hash) {
+            long second = mix(hash) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(hash + i * second, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                    // another add set a bit of the same word, try again
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        boolean mightContain(long hash) {
+            long second = mix(hash) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(hash + i * second, size);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-hashes * (double) count.get() / size), hashes);
+        }
+    }
+
+}
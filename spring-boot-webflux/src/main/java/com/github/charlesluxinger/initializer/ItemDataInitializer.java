@@ -23,10 +23,10 @@ public class ItemDataInitializer implements CommandLineRunner {
     }
 
     public List<Item> data() {
-        return List.of(new Item(null, "Samsung TV", 399.99),
-                new Item(null, "LG TV", 329.99),
-                new Item(null, "Apple Watch", 349.99),
-                new Item("ABC", "Beats HeadPhones", 19.99));
+        return List.of(new Item(null, "Samsung TV", 39999),
+                new Item(null, "LG TV", 32999),
+                new Item(null, "Apple Watch", 34999),
+                new Item("ABC", "Beats HeadPhones", 1999));
     }
 
     private void initialDataSetUp() {
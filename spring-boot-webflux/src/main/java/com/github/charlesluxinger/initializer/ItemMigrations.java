@@ -0,0 +1,29 @@
+package com.github.charlesluxinger.initializer;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Brings stored items up to date before the application serves them, one migration after the other, and
+ * fails startup when they do not complete within {@link #TIMEOUT} rather than hang on an unreachable Mongo.
+ */
+@Component
+@AllArgsConstructor
+public class ItemMigrations implements CommandLineRunner {
+
+    static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+    private final ItemVersionMigration versionMigration;
+    private final ItemPriceMigration priceMigration;
+
+    @Override
+    public void run(String... args) {
+        versionMigration.migrate()
+                .then(priceMigration.migrate())
+                .block(TIMEOUT);
+    }
+
+}
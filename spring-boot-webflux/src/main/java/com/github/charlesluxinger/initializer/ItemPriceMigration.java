@@ -0,0 +1,57 @@
+package com.github.charlesluxinger.initializer;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.ItemSummary;
+import com.github.charlesluxinger.document.Prices;
+import com.mongodb.client.result.UpdateResult;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Rewrites prices stored as doubles, before they were kept in cents, to Int64 cents: {@code 149.99} becomes
+ * {@code 14999}. The last persisted summary total is converted the same way. Documents already in cents are
+ * not matched, so running it again does nothing.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class ItemPriceMigration {
+
+    private static final int CENTS = (int) Math.pow(10, Prices.SCALE);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    /**
+     * Run at startup by {@link ItemMigrations}.
+     */
+    public Mono<Void> migrate() {
+        return Mono.zip(toCents("price", Item.class), toCents("totalValue", ItemSummary.class))
+                .doOnNext(converted -> {
+                    if (converted.getT1() > 0 || converted.getT2() > 0) {
+                        log.info("Converted the prices of {} items and {} summaries to cents", converted.getT1(), converted.getT2());
+                    }
+                })
+                .then();
+    }
+
+    private Mono<Long> toCents(String field, Class<?> type) {
+        var cents = ConvertOperators.ToLong.toLong(ArithmeticOperators.Round
+                .roundValueOf(ArithmeticOperators.Multiply.valueOf(field).multiplyBy(CENTS)));
+        return mongoTemplate
+                .updateMulti(new Query(where(field).type(JsonSchemaObject.Type.DOUBLE)),
+                        AggregationUpdate.update().set(field).toValue(cents), type)
+                .map(UpdateResult::getModifiedCount)
+                .defaultIfEmpty(0L);
+    }
+
+}
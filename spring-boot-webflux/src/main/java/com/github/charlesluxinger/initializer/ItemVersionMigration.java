@@ -0,0 +1,39 @@
+package com.github.charlesluxinger.initializer;
+
+import com.github.charlesluxinger.document.Item;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Gives items stored before they were versioned a version of 0. Spring Data treats an entity without
+ * a version as new, so saving one of those would try to insert it again.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class ItemVersionMigration {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    /**
+     * Run at startup by {@link ItemMigrations}.
+     */
+    public Mono<Void> migrate() {
+        return mongoTemplate
+                .updateMulti(new Query(where("version").exists(false)), new Update().set("version", 0L), Item.class)
+                .doOnNext(result -> {
+                    if (result.getModifiedCount() > 0) {
+                        log.info("Set an initial version on {} items", result.getModifiedCount());
+                    }
+                })
+                .then();
+    }
+
+}
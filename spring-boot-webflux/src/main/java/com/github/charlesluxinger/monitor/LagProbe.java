@@ -0,0 +1,130 @@
+package com.github.charlesluxinger.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A task that reschedules itself on one thread, or one scheduler, every {@code interval} and records how late it
+ * ran as the {@code scheduler.lag} timer. A thread busy with other tasks, or blocked, runs it late.
+ * <p>
+ * The thread is only known once the probe ran on it; until then, and for schedulers that do not pin it to one
+ * thread, its meters are tagged with {@code thread} given.
+ */
+final class LagProbe implements Runnable {
+
+    /**
+     * Schedules a task after a delay on whatever the probe watches.
+     */
+    interface Delayer {
+
+        void schedule(Runnable task, long delayNanos);
+    }
+
+    private final String scheduler;
+    private final boolean pinned;
+    private final Delayer delayer;
+    private final MeterRegistry meterRegistry;
+    private final long intervalNanos;
+
+    private volatile long due;
+    private volatile boolean stopped;
+    private volatile Thread thread;
+    private volatile Timer lag;
+    private volatile Counter stalls;
+    private long stalledDue;
+    private long stackLoggedAt;
+
+    /**
+     * @param pinned whether every run happens on the same thread, so that its stack tells what delays the probe
+     */
+    LagProbe(String scheduler, String thread, boolean pinned, Delayer delayer, MeterRegistry meterRegistry, Duration interval) {
+        this.scheduler = scheduler;
+        this.pinned = pinned;
+        this.delayer = delayer;
+        this.meterRegistry = meterRegistry;
+        this.intervalNanos = interval.toNanos();
+        if (!pinned) {
+            meters(thread);
+        }
+    }
+
+    void start() {
+        due = System.nanoTime() + intervalNanos;
+        delayer.schedule(this, intervalNanos);
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void run() {
+        var now = System.nanoTime();
+        if (thread == null && pinned) {
+            thread = Thread.currentThread();
+            meters(thread.getName());
+        }
+        lag.record(Math.max(0, now - due), TimeUnit.NANOSECONDS);
+
+        if (!stopped) {
+            due = now + intervalNanos;
+            delayer.schedule(this, intervalNanos);
+        }
+    }
+
+    /**
+     * How late the pending run is at {@code now}, or 0 while it is not due yet.
+     */
+    long overdue(long now) {
+        return Math.max(0, now - due);
+    }
+
+    /**
+     * Called by the watchdog, never concurrently, when the pending run is overdue past the stall threshold.
+     * Counts each stall once, and tells whether the stack of the stalled thread should be logged now.
+     */
+    boolean stalled(long now, long stackLogIntervalNanos) {
+        var pending = due;
+        if (stalledDue == pending) {
+            return false;
+        }
+        stalledDue = pending;
+        if (stalls != null) {
+            stalls.increment();
+        }
+
+        if (thread == null || (stackLoggedAt != 0 && now - stackLoggedAt < stackLogIntervalNanos)) {
+            return false;
+        }
+        stackLoggedAt = now;
+        return true;
+    }
+
+    String getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * The thread the probe is pinned to, {@code null} before its first run or when it is not pinned.
+     */
+    Thread getThread() {
+        return thread;
+    }
+
+    private void meters(String threadName) {
+        stalls = Counter.builder("scheduler.stalls")
+                .tags("scheduler", scheduler, "thread", threadName)
+                .register(meterRegistry);
+        lag = Timer.builder("scheduler.lag")
+                .tags("scheduler", scheduler, "thread", threadName)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+}
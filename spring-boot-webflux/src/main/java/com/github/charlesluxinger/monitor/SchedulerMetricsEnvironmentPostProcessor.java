@@ -0,0 +1,27 @@
+package com.github.charlesluxinger.monitor;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Enables Reactor's executor metrics when {@code scheduler-monitor.executor-metrics} is set. Only schedulers
+ * created afterwards are instrumented, so this runs before any bean is, once the configuration files are read.
+ * The metrics go to Micrometer's global registry, which Boot's registry is added to.
+ */
+public class SchedulerMetricsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        var binder = Binder.get(environment);
+        var enabled = binder.bind("scheduler-monitor.enabled", Boolean.class).orElse(true)
+                && binder.bind("scheduler-monitor.executor-metrics", Boolean.class).orElse(true);
+
+        if (enabled) {
+            Schedulers.enableMetrics();
+        }
+    }
+
+}
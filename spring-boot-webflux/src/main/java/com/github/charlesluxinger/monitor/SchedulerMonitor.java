@@ -0,0 +1,123 @@
+package com.github.charlesluxinger.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.concurrent.EventExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures how late tasks run on the Reactor Netty event loops and on the {@code parallel} and
+ * {@code boundedElastic} schedulers, to tell latency spikes caused by a busy or blocked thread from slow
+ * downstream calls.
+ * <p>
+ * Each event-loop thread and each {@code parallel} worker gets its own {@link LagProbe}, published per thread.
+ * {@code boundedElastic} gets one probe, which lags when all its threads are taken. A watchdog on a thread of
+ * its own checks the probes every {@code interval} and logs the stack of a pinned thread whose probe is overdue
+ * past {@code stall-threshold}, while it is still stuck.
+ */
+@Slf4j
+@Component
+public class SchedulerMonitor {
+
+    private final SchedulerMonitorProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<ReactorResourceFactory> resourceFactory;
+    private final List<LagProbe> probes = new ArrayList<>();
+    private final List<Scheduler.Worker> workers = new ArrayList<>();
+    private ScheduledExecutorService watchdog;
+
+    public SchedulerMonitor(SchedulerMonitorProperties properties, MeterRegistry meterRegistry,
+                            ObjectProvider<ReactorResourceFactory> resourceFactory) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.resourceFactory = resourceFactory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!properties.isEnabled() || watchdog != null) {
+            return;
+        }
+
+        var factory = resourceFactory.getIfAvailable();
+        if (factory != null) {
+            for (EventExecutor eventLoop : factory.getLoopResources().onServer(true)) {
+                probe("event-loop", null, true, (task, delay) -> eventLoop.schedule(task, delay, TimeUnit.NANOSECONDS));
+            }
+        }
+
+        // a worker stays on the thread it was assigned, and workers are assigned round-robin
+        for (int i = 0; i < Schedulers.DEFAULT_POOL_SIZE; i++) {
+            var worker = Schedulers.parallel().createWorker();
+            workers.add(worker);
+            probe("parallel", null, true, (task, delay) -> worker.schedule(task, delay, TimeUnit.NANOSECONDS));
+        }
+
+        probe("bounded-elastic", "any", false,
+                (task, delay) -> Schedulers.boundedElastic().schedule(task, delay, TimeUnit.NANOSECONDS));
+
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "scheduler-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var interval = properties.getInterval().toNanos();
+        watchdog.scheduleAtFixedRate(this::check, interval, interval, TimeUnit.NANOSECONDS);
+        probes.forEach(LagProbe::start);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        probes.forEach(LagProbe::stop);
+        workers.forEach(Scheduler.Worker::dispose);
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+    }
+
+    private void probe(String scheduler, String thread, boolean pinned, LagProbe.Delayer delayer) {
+        probes.add(new LagProbe(scheduler, thread, pinned, delayer, meterRegistry, properties.getInterval()));
+    }
+
+    private void check() {
+        var now = System.nanoTime();
+        var threshold = properties.getStallThreshold().toNanos();
+        var stackLogInterval = properties.getStackLogInterval().toNanos();
+
+        // an exception would cancel the watchdog for good
+        try {
+            for (var probe : probes) {
+                var overdue = probe.overdue(now);
+                if (overdue > threshold && probe.stalled(now, stackLogInterval)) {
+                    var thread = probe.getThread();
+                    log.warn("{} thread {} stalled for {}ms:\n{}", probe.getScheduler(), thread.getName(),
+                            TimeUnit.NANOSECONDS.toMillis(overdue), stack(thread.getStackTrace()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Scheduler monitor check failed", e);
+        }
+    }
+
+    private static String stack(StackTraceElement[] frames) {
+        return Arrays.stream(frames)
+                .map(frame -> "\tat " + frame)
+                .collect(Collectors.joining("\n"));
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.github.charlesluxinger.monitor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scheduler-monitor")
+public class SchedulerMonitorProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * How often each thread is probed. A probe is due this long after the previous one ran; how late it runs is its lag.
+     */
+    private Duration interval = Duration.ofMillis(100);
+
+    /**
+     * Lag past which a thread counts as stalled and its stack is logged, taken while it is still stalled.
+     */
+    private Duration stallThreshold = Duration.ofMillis(200);
+
+    /**
+     * At most one stack is logged per thread within this time, however often it stalls.
+     */
+    private Duration stackLogInterval = Duration.ofSeconds(30);
+
+    /**
+     * Turns on Reactor's executor metrics ({@code Schedulers.enableMetrics()}) at startup, before any scheduler is created.
+     */
+    private boolean executorMetrics = true;
+
+}
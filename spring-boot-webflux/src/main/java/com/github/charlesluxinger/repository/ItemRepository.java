@@ -1,12 +1,54 @@
 package com.github.charlesluxinger.repository;
 
 import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.ItemVersion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface ItemRepository extends ReactiveMongoRepository<Item, String> {
+public interface ItemRepository extends ReactiveMongoRepository<Item, String>, ItemTextSearch {
+
+    String PRICE_RANGE = "{ 'price': { $gte: ?0, $lte: ?1 } }";
+    String PRICE_RANGE_AFTER = "{ 'price': { $gte: ?0, $lte: ?1 }, $or: [ { 'price': { $gt: ?2 } }, { 'price': ?2, '_id': { $gt: ?3 } } ] }";
+    String PRICE_RANGE_BEFORE = "{ 'price': { $gte: ?0, $lte: ?1 }, $or: [ { 'price': { $lt: ?2 } }, { 'price': ?2, '_id': { $lt: ?3 } } ] }";
 
     Flux<Item> findByDescription(String description);
 
+    /**
+     * Only the id and version of an item, enough to answer a conditional request without reading the whole document.
+     */
+    Mono<ItemVersion> findVersionById(String id);
+
+    /**
+     * Items priced within {@code [minPrice, maxPrice]}, in cents. Sorting on {@code price, _id} is served by the
+     * {@code price_id} index, so results stream in index order without an in-memory sort.
+     */
+    @Query(PRICE_RANGE)
+    Flux<Item> findByPriceRange(long minPrice, long maxPrice, Pageable pageable);
+
+    @Query(PRICE_RANGE)
+    <T> Flux<T> findByPriceRange(long minPrice, long maxPrice, Pageable pageable, Class<T> type);
+
+    /**
+     * Keyset continuation of {@link #findByPriceRange} in ascending order: items strictly after {@code (afterPrice, afterId)}.
+     * Callers should raise {@code minPrice} to {@code afterPrice} so the index scan starts at the cursor.
+     */
+    @Query(PRICE_RANGE_AFTER)
+    Flux<Item> findByPriceRangeAfter(long minPrice, long maxPrice, long afterPrice, String afterId, Pageable pageable);
+
+    @Query(PRICE_RANGE_AFTER)
+    <T> Flux<T> findByPriceRangeAfter(long minPrice, long maxPrice, long afterPrice, String afterId, Pageable pageable, Class<T> type);
+
+    /**
+     * Keyset continuation of {@link #findByPriceRange} in descending order: items strictly before {@code (beforePrice, beforeId)}.
+     * Callers should lower {@code maxPrice} to {@code beforePrice} so the index scan starts at the cursor.
+     */
+    @Query(PRICE_RANGE_BEFORE)
+    Flux<Item> findByPriceRangeBefore(long minPrice, long maxPrice, long beforePrice, String beforeId, Pageable pageable);
+
+    @Query(PRICE_RANGE_BEFORE)
+    <T> Flux<T> findByPriceRangeBefore(long minPrice, long maxPrice, long beforePrice, String beforeId, Pageable pageable, Class<T> type);
+
 }
\ No newline at end of file
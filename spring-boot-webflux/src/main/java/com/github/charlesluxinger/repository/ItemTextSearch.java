@@ -0,0 +1,13 @@
+package com.github.charlesluxinger.repository;
+
+import com.github.charlesluxinger.document.Item;
+import reactor.core.publisher.Flux;
+
+public interface ItemTextSearch {
+
+    /**
+     * Full-text search on {@code description} through the text index, most relevant first.
+     */
+    Flux<Item> searchByText(String text, int limit);
+
+}
@@ -0,0 +1,25 @@
+package com.github.charlesluxinger.repository;
+
+import com.github.charlesluxinger.document.Item;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import reactor.core.publisher.Flux;
+
+@AllArgsConstructor
+class ItemTextSearchImpl implements ItemTextSearch {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<Item> searchByText(String text, int limit) {
+        var query = TextQuery
+                .queryText(TextCriteria.forDefaultLanguage().matching(text))
+                .sortByScore()
+                .limit(limit);
+
+        return mongoTemplate.find(query, Item.class);
+    }
+
+}
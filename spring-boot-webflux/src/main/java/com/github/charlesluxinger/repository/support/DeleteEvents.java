@@ -0,0 +1,57 @@
+package com.github.charlesluxinger.repository.support;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.MongoMappingEvent;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the ids out of the query carried by an {@link org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent}.
+ */
+public final class DeleteEvents {
+
+    private static final String ITEM_COLLECTION = "item";
+
+    private DeleteEvents() {
+    }
+
+    /**
+     * Whether the event is a delete on the item collection that carries no entity type, as sent by
+     * {@code deleteAll()}. {@link org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener}
+     * only passes on typed delete events, so listeners have to pick these up themselves.
+     */
+    public static boolean isUntypedItemDelete(MongoMappingEvent<?> event) {
+        return event instanceof AfterDeleteEvent
+                && ((AfterDeleteEvent<?>) event).getType() == null
+                && ITEM_COLLECTION.equals(event.getCollectionName());
+    }
+
+    /**
+     * Ids targeted by a delete query shaped as {@code {_id: value}} or {@code {_id: {$in: [...]}}}
+     * (the repository uses the property name {@code id}), empty for any other query.
+     */
+    public static List<String> deletedIds(Document query) {
+        if (query.size() != 1) {
+            return List.of();
+        }
+
+        var value = query.containsKey("_id") ? query.get("_id") : query.get("id");
+        if (value instanceof Document && ((Document) value).get("$in") instanceof Collection) {
+            return ((Collection<?>) ((Document) value).get("$in"))
+                    .stream()
+                    .map(DeleteEvents::idToString)
+                    .collect(Collectors.toList());
+        }
+
+        return value == null || value instanceof Document ? List.of() : List.of(idToString(value));
+    }
+
+    private static String idToString(Object id) {
+        return id instanceof ObjectId ? ((ObjectId) id).toHexString() : id.toString();
+    }
+
+}
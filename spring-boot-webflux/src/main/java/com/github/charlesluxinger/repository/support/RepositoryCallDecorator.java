@@ -0,0 +1,23 @@
+package com.github.charlesluxinger.repository.support;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+
+/**
+ * Hook applied to every reactive call made through {@code ItemRepository}.
+ * Decorators are picked up as beans and applied in {@link org.springframework.core.Ordered} order,
+ * the first one being the innermost.
+ */
+public interface RepositoryCallDecorator {
+
+    default <T> Mono<T> decorate(Method method, Mono<T> call) {
+        return call;
+    }
+
+    default <T> Flux<T> decorate(Method method, Flux<T> call) {
+        return call;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.github.charlesluxinger.repository.support;
+
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Wraps the {@link ItemRepository} bean so that every {@link Mono} or {@link Flux} it returns goes
+ * through the registered {@link RepositoryCallDecorator}s.
+ */
+@Component
+public class RepositoryDecoratingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<RepositoryCallDecorator> decoratorProvider;
+    private volatile List<RepositoryCallDecorator> decorators;
+
+    public RepositoryDecoratingPostProcessor(ObjectProvider<RepositoryCallDecorator> decoratorProvider) {
+        this.decoratorProvider = decoratorProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof ItemRepository)) {
+            return bean;
+        }
+
+        var proxyFactory = new ProxyFactory();
+        proxyFactory.setTarget(bean);
+        proxyFactory.setInterfaces(ItemRepository.class);
+        proxyFactory.addAdvice(new DecoratingInterceptor());
+
+        return proxyFactory.getProxy();
+    }
+
+    private List<RepositoryCallDecorator> decorators() {
+        var current = decorators;
+        if (current == null) {
+            current = decoratorProvider.orderedStream().collect(Collectors.toUnmodifiableList());
+            decorators = current;
+        }
+        return current;
+    }
+
+    private class DecoratingInterceptor implements MethodInterceptor {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            var result = invocation.proceed();
+            var method = invocation.getMethod();
+
+            if (result instanceof Mono) {
+                var mono = (Mono<Object>) result;
+                for (var decorator : decorators()) {
+                    mono = decorator.decorate(method, mono);
+                }
+                return mono;
+            }
+
+            if (result instanceof Flux) {
+                var flux = (Flux<Object>) result;
+                for (var decorator : decorators()) {
+                    flux = decorator.decorate(method, flux);
+                }
+                return flux;
+            }
+
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.github.charlesluxinger.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps calls in flight at a limit adapted to the latency they see, after Netflix's gradient limiter: the
+ * limit is scaled by how far the average latency of the last window of calls rose above the lowest recent
+ * one, plus a headroom of its square root to keep probing for more. While Mongo keeps up latency stays flat
+ * and the limit grows; once calls queue up inside Mongo latency rises and the limit settles near what it can
+ * run at once. A transient error shrinks it by a tenth.
+ * <p>
+ * Calls over the limit wait in a queue without holding a thread, and fail with {@link LimitExceededException}
+ * once {@code max-queued} are already waiting. A stream holds its permit until it ends, but its latency is
+ * taken at its first signal, which is when Mongo answered.
+ */
+public class AdaptiveLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int MIN_WINDOW = 10;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long minRttWindowNanos;
+    private final int maxQueued;
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Permit> waiters = new ConcurrentLinkedQueue<>();
+    private final Counter rejected;
+
+    private volatile int limit;
+
+    // guarded by this
+    private double estimate;
+    private long minRtt = Long.MAX_VALUE;
+    private long previousMinRtt = Long.MAX_VALUE;
+    private long minRttSince;
+    private long windowRtt;
+    private int windowCount;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    public AdaptiveLimiter(String name, ResilienceProperties.Limiter properties, MeterRegistry meterRegistry) {
+        this(name, properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveLimiter(String name, ResilienceProperties.Limiter properties, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.name = name;
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.tolerance = properties.getTolerance();
+        this.smoothing = properties.getSmoothing();
+        this.minRttWindowNanos = properties.getMinRttWindow().toNanos();
+        this.maxQueued = properties.getMaxQueued();
+        this.clock = clock;
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, properties.getInitialLimit()));
+        this.limit = (int) estimate;
+        this.minRttSince = clock.getAsLong();
+
+        this.rejected = meterRegistry.counter("items.repository.limit.rejected", "limiter", name);
+        Gauge.builder("items.repository.limit", this, AdaptiveLimiter::getLimit)
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("items.repository.limit.in-flight", inFlight, AtomicInteger::get)
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("items.repository.limit.queued", queued, AtomicInteger::get)
+                .tag("limiter", name)
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        return acquire().flatMap(permit -> !permit.take() ? Mono.<T>empty() : call
+                .doOnEach(signal -> permit.answered(signal.getThrowable()))
+                .doFinally(signal -> release()));
+    }
+
+    public <T> Flux<T> protect(Flux<T> call) {
+        return acquire().flatMapMany(permit -> !permit.take() ? Flux.<T>empty() : call
+                .doOnEach(signal -> permit.answered(signal.getThrowable()))
+                .doFinally(signal -> release()));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Emits a permit, at once when under the limit, otherwise once one frees up.
+     */
+    private Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            var permit = new Permit(sink);
+            sink.onCancel(permit::cancel);
+            if (tryAcquire()) {
+                permit.grant();
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                rejected.increment();
+                sink.error(new LimitExceededException(name, limit, maxQueued));
+                return;
+            }
+
+            waiters.offer(permit);
+            // a permit may have been released before this one was queued
+            drain();
+        });
+    }
+
+    private boolean tryAcquire() {
+        for (;;) {
+            var current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hands free permits to waiters in arrival order. Safe to run from several threads at once: every permit
+     * is taken before a waiter is polled, and given back if there is none left to take it.
+     */
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            var granted = false;
+            Permit waiter;
+            while (!granted && (waiter = waiters.poll()) != null) {
+                queued.decrementAndGet();
+                granted = waiter.grant();
+            }
+            if (!granted) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private synchronized void onSample(long rtt, int inFlightAtStart, boolean dropped) {
+        var now = clock.getAsLong();
+        if (now - minRttSince > minRttWindowNanos) {
+            previousMinRtt = minRtt;
+            minRtt = Long.MAX_VALUE;
+            minRttSince = now;
+        }
+        minRtt = Math.min(minRtt, rtt);
+
+        windowRtt += rtt;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        windowDropped |= dropped;
+        if (windowCount < Math.max(MIN_WINDOW, limit)) {
+            return;
+        }
+
+        double next;
+        if (windowDropped) {
+            next = estimate * BACKOFF_RATIO;
+        } else {
+            var averageRtt = (double) windowRtt / windowCount;
+            var gradient = Math.max(0.5, Math.min(1.0, tolerance * Math.min(minRtt, previousMinRtt) / averageRtt));
+            next = estimate * gradient + Math.sqrt(estimate);
+            // a window that never came close to the limit says nothing about whether more would fit
+            if (windowMaxInFlight < estimate / 2) {
+                next = Math.min(next, estimate);
+            }
+            next = estimate + smoothing * (next - estimate);
+        }
+
+        estimate = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimate;
+        windowRtt = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    /**
+     * One call's permit, from waiting for it until the call is subscribed, so that a caller cancelling at any
+     * point in between neither leaks the permit nor gives it back twice. Its latency is sampled at its first
+     * signal; cancelled calls are not sampled.
+     */
+    private final class Permit {
+
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int TAKEN = 2;
+        private static final int CANCELLED = 3;
+
+        private final MonoSink<Permit> sink;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final AtomicBoolean answered = new AtomicBoolean();
+        private volatile long start;
+        private int inFlightAtStart;
+
+        Permit(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Hands a permit already counted in flight to this caller, unless it is gone.
+         */
+        boolean grant() {
+            if (!state.compareAndSet(WAITING, GRANTED)) {
+                return false;
+            }
+            start = clock.getAsLong();
+            sink.success(this);
+            return true;
+        }
+
+        boolean take() {
+            inFlightAtStart = inFlight.get();
+            return state.compareAndSet(GRANTED, TAKEN);
+        }
+
+        void cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                // still queued: drain() skips it, but it would count as queued until then
+                if (waiters.remove(this)) {
+                    queued.decrementAndGet();
+                }
+            } else if (state.compareAndSet(GRANTED, CANCELLED)) {
+                release();
+            }
+        }
+
+        void answered(Throwable error) {
+            if (answered.compareAndSet(false, true)) {
+                onSample(clock.getAsLong() - start, inFlightAtStart, error != null && TransientErrors.isTransient(error));
+                drain();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.github.charlesluxinger.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many calls of one kind are in flight. A call over the cap is not queued but fails at once with
+ * {@link BulkheadFullException}, so a slow database turns into quick 503s instead of a pile of waiting requests.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public Bulkhead(String name, int maxConcurrent, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.rejected = meterRegistry.counter("items.repository.bulkhead.rejected", "bulkhead", name);
+        Gauge.builder("items.repository.bulkhead.in-flight", inFlight, AtomicInteger::get)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.error(new BulkheadFullException(name, maxConcurrent));
+            }
+            return call.doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+
+    public <T> Flux<T> protect(Flux<T> call) {
+        return Flux.defer(() -> {
+            if (!tryAcquire()) {
+                return Flux.error(new BulkheadFullException(name, maxConcurrent));
+            }
+            return call.doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > maxConcurrent) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.github.charlesluxinger.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A call refused without being made because its bulkhead already has as many calls in flight as it allows.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String name, int maxConcurrent) {
+        super("Bulkhead " + name + " is full (" + maxConcurrent + " calls in flight)");
+    }
+
+}
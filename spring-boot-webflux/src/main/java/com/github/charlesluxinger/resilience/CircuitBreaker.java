@@ -0,0 +1,208 @@
+package com.github.charlesluxinger.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Count-based circuit breaker. While closed it keeps the outcome of the last {@code windowSize} calls and
+ * opens once enough of them failed; while open every call fails fast with {@link CircuitOpenException};
+ * after {@code openDuration} it lets {@code halfOpenCalls} probes through, closing again if they all succeed
+ * and reopening on the first failure.
+ * <p>
+ * Only errors matching {@code isFailure} count against the database; a cancelled call counts as nothing.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Predicate<Throwable> isFailure;
+    private final LongSupplier clock;
+
+    private final boolean[] window;
+    private final Counter rejected;
+    private final MeterRegistry meterRegistry;
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    public CircuitBreaker(String name, ResilienceProperties.Breaker properties, Predicate<Throwable> isFailure,
+                          MeterRegistry meterRegistry) {
+        this(name, properties, isFailure, meterRegistry, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, ResilienceProperties.Breaker properties, Predicate<Throwable> isFailure,
+                   MeterRegistry meterRegistry, LongSupplier clock) {
+        this.name = name;
+        this.window = new boolean[properties.getWindowSize()];
+        this.minimumCalls = Math.min(properties.getMinimumCalls(), window.length);
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.halfOpenCalls = properties.getHalfOpenCalls();
+        this.isFailure = isFailure;
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+        this.rejected = meterRegistry.counter("items.repository.circuit.rejected", "breaker", name);
+
+        for (var each : State.values()) {
+            Gauge.builder("items.repository.circuit.state", this, breaker -> breaker.getState() == each ? 1 : 0)
+                    .tag("breaker", name)
+                    .tag("state", each.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            var permit = acquire();
+            if (permit == null) {
+                return Mono.error(new CircuitOpenException(name));
+            }
+            return call
+                    .doOnSuccess(value -> permit.record(null))
+                    .doOnError(permit::record)
+                    .doFinally(signal -> permit.release());
+        });
+    }
+
+    public <T> Flux<T> protect(Flux<T> call) {
+        return Flux.defer(() -> {
+            var permit = acquire();
+            if (permit == null) {
+                return Flux.error(new CircuitOpenException(name));
+            }
+            return call
+                    .doOnComplete(() -> permit.record(null))
+                    .doOnError(permit::record)
+                    .doFinally(signal -> permit.release());
+        });
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    private synchronized Permit acquire() {
+        switch (getState()) {
+            case CLOSED:
+                return new Permit(false);
+            case HALF_OPEN:
+                if (probesStarted < halfOpenCalls) {
+                    probesStarted++;
+                    return new Permit(true);
+                }
+                break;
+            default:
+                break;
+        }
+        rejected.increment();
+        return null;
+    }
+
+    private synchronized void onOutcome(boolean probe, boolean failed) {
+        if (probe) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            if (failed) {
+                open();
+            } else if (++probesSucceeded >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+
+        if (state != State.CLOSED) {
+            // a call admitted before the breaker opened, it says nothing about the database now
+            return;
+        }
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+
+        if (windowCount >= minimumCalls && windowFailures >= failureRateThreshold * windowCount) {
+            open();
+        }
+    }
+
+    private synchronized void onCancelledProbe() {
+        if (state == State.HALF_OPEN) {
+            probesStarted--;
+        }
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        transition(State.OPEN);
+    }
+
+    private void transition(State to) {
+        var from = state;
+        state = to;
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        meterRegistry.counter("items.repository.circuit.transitions",
+                "breaker", name, "from", from.name().toLowerCase(), "to", to.name().toLowerCase())
+                .increment();
+    }
+
+    /**
+     * One admitted call, recording its outcome at most once whichever of completion, error or cancellation wins.
+     */
+    private class Permit {
+
+        private final boolean probe;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Permit(boolean probe) {
+            this.probe = probe;
+        }
+
+        void record(Throwable error) {
+            if (done.compareAndSet(false, true)) {
+                onOutcome(probe, error != null && isFailure.test(error));
+            }
+        }
+
+        void release() {
+            if (done.compareAndSet(false, true) && probe) {
+                onCancelledProbe();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.github.charlesluxinger.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A call refused without being made because the breaker is open, or half-open with all probes taken.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String name) {
+        super("Circuit breaker " + name + " is open");
+    }
+
+}
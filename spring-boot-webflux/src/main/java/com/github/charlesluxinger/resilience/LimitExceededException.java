@@ -0,0 +1,16 @@
+package com.github.charlesluxinger.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A call refused without being made because its adaptive limit is reached and too many calls already wait for it.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class LimitExceededException extends RuntimeException {
+
+    public LimitExceededException(String name, int limit, int maxQueued) {
+        super("Limiter " + name + " is full (" + limit + " calls in flight, " + maxQueued + " waiting)");
+    }
+
+}
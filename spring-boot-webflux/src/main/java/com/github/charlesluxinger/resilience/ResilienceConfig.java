@@ -0,0 +1,22 @@
+package com.github.charlesluxinger.resilience;
+
+import com.github.charlesluxinger.repository.support.RepositoryCallDecorator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+public class ResilienceConfig {
+
+    /**
+     * Between the checkpoint and Server-Timing decorators: the db span then covers retries and backoff,
+     * while the checkpoint still names the call each failed attempt was made for.
+     */
+    @Bean
+    @Order(0)
+    public RepositoryCallDecorator resilientRepositoryDecorator(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        return new ResilientRepositoryDecorator(properties, meterRegistry);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.github.charlesluxinger.resilience;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-resilience")
+public class ResilienceProperties {
+
+    /**
+     * Turns the whole layer into a pass-through.
+     */
+    private boolean enabled = true;
+
+    private final Retry retry = new Retry();
+    private final Breaker breaker = new Breaker();
+    private final Bulkhead bulkhead = new Bulkhead();
+    private final Limiter limiter = new Limiter();
+
+    @Getter
+    @Setter
+    public static class Retry {
+
+        /**
+         * Retries after the first attempt, 0 to never retry.
+         */
+        private int maxRetries = 2;
+
+        private Duration minBackoff = Duration.ofMillis(50);
+
+        private Duration maxBackoff = Duration.ofMillis(500);
+
+        /**
+         * Fraction, between 0 and 1, of each backoff that is randomized so that clients do not retry in lockstep.
+         */
+        private double jitter = 0.5;
+
+        /**
+         * Repository methods starting with one of these are safe to run twice and may be retried.
+         * A stream is only retried if it failed before emitting anything.
+         */
+        private List<String> idempotentPrefixes = List.of("find", "count", "exists", "search", "delete");
+
+    }
+
+    @Getter
+    @Setter
+    public static class Breaker {
+
+        /**
+         * Number of most recent calls the failure rate is computed over.
+         */
+        private int windowSize = 50;
+
+        /**
+         * Calls needed in the window before the failure rate can open the breaker.
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * Failure rate, between 0 and 1, at which the breaker opens.
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * How long an open breaker fails calls fast before letting probes through.
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * Probes let through while half-open. All must succeed to close the breaker, one failure opens it again.
+         */
+        private int halfOpenCalls = 5;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+
+        /**
+         * Reads allowed in flight at once, further ones are rejected.
+         */
+        private int maxConcurrentReads = 64;
+
+        /**
+         * Writes allowed in flight at once, further ones are rejected.
+         */
+        private int maxConcurrentWrites = 32;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Limiter {
+
+        /**
+         * Replaces the fixed bulkheads by one limit shared by every call, adapted to the latency Mongo answers with.
+         */
+        private boolean enabled = false;
+
+        private int initialLimit = 20;
+
+        private int minLimit = 4;
+
+        private int maxLimit = 256;
+
+        /**
+         * How far, as a multiple of the lowest recent latency, the average latency may rise before the limit
+         * shrinks. Above 1, so that ordinary jitter is not taken for queueing.
+         */
+        private double tolerance = 1.5;
+
+        /**
+         * Fraction, between 0 and 1, of the way the limit moves toward the new estimate after each window of calls.
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * The lowest latency is taken over the last one to two of these, so that it follows a slower database
+         * rather than holding on to the best it ever saw.
+         */
+        private Duration minRttWindow = Duration.ofSeconds(30);
+
+        /**
+         * Calls waiting for a permit, further ones are rejected. Waiting takes no thread.
+         */
+        private int maxQueued = 64;
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.github.charlesluxinger.resilience;
+
+import com.github.charlesluxinger.repository.support.RepositoryCallDecorator;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Makes every repository call go through, from the outside in: a retry with jittered exponential backoff,
+ * the circuit breaker, and the read or write bulkhead. Each retry attempt passes the breaker again, so retries
+ * stop as soon as it opens. With the adaptive limiter enabled, one {@link AdaptiveLimiter} shared by reads and
+ * writes takes the place of the bulkheads.
+ * <p>
+ * Only transient errors of idempotent methods are retried, and a stream only until its first element:
+ * resubscribing afterwards would hand the caller the same elements twice.
+ */
+public class ResilientRepositoryDecorator implements RepositoryCallDecorator {
+
+    private static final List<String> WRITE_PREFIXES = List.of("save", "insert", "delete");
+
+    private final ResilienceProperties properties;
+    private final CircuitBreaker breaker;
+    private final Bulkhead reads;
+    private final Bulkhead writes;
+    private final AdaptiveLimiter limiter;
+    private final MeterRegistry meterRegistry;
+
+    public ResilientRepositoryDecorator(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.breaker = new CircuitBreaker("items", properties.getBreaker(), TransientErrors::isTransient, meterRegistry);
+        this.reads = new Bulkhead("read", properties.getBulkhead().getMaxConcurrentReads(), meterRegistry);
+        this.writes = new Bulkhead("write", properties.getBulkhead().getMaxConcurrentWrites(), meterRegistry);
+        this.limiter = properties.getLimiter().isEnabled()
+                ? new AdaptiveLimiter("items", properties.getLimiter(), meterRegistry)
+                : null;
+    }
+
+    @Override
+    public <T> Mono<T> decorate(Method method, Mono<T> call) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+
+        var protectedCall = breaker.protect(limit(method, call));
+        if (!isIdempotent(method)) {
+            return protectedCall;
+        }
+        return protectedCall.retryWhen(retry(method, error -> true));
+    }
+
+    @Override
+    public <T> Flux<T> decorate(Method method, Flux<T> call) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+
+        var protectedCall = breaker.protect(limit(method, call));
+        if (!isIdempotent(method)) {
+            return protectedCall;
+        }
+        return Flux.defer(() -> {
+            var emitted = new AtomicBoolean();
+            return protectedCall
+                    .doOnNext(value -> emitted.lazySet(true))
+                    .retryWhen(retry(method, error -> !emitted.get()));
+        });
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    private Retry retry(Method method, Predicate<Throwable> retryable) {
+        var settings = properties.getRetry();
+        var retries = meterRegistry.counter("items.repository.retries", "method", method.getName());
+
+        return Retry.backoff(settings.getMaxRetries(), settings.getMinBackoff())
+                .maxBackoff(settings.getMaxBackoff())
+                .jitter(settings.getJitter())
+                .filter(retryable.and(TransientErrors::isTransient))
+                .doBeforeRetry(signal -> retries.increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private <T> Mono<T> limit(Method method, Mono<T> call) {
+        return limiter != null ? limiter.protect(call) : bulkheadFor(method).protect(call);
+    }
+
+    private <T> Flux<T> limit(Method method, Flux<T> call) {
+        return limiter != null ? limiter.protect(call) : bulkheadFor(method).protect(call);
+    }
+
+    private Bulkhead bulkheadFor(Method method) {
+        return startsWithAny(method, WRITE_PREFIXES) ? writes : reads;
+    }
+
+    private boolean isIdempotent(Method method) {
+        return properties.getRetry().getMaxRetries() > 0 && startsWithAny(method, properties.getRetry().getIdempotentPrefixes());
+    }
+
+    private static boolean startsWithAny(Method method, List<String> prefixes) {
+        return prefixes.stream().anyMatch(method.getName()::startsWith);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.github.charlesluxinger.resilience;
+
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tells errors that say the database is unreachable or slow, worth retrying and counted by the breaker,
+ * from errors the database answered with, such as a duplicate key or a version conflict.
+ */
+public final class TransientErrors {
+
+    private TransientErrors() {
+    }
+
+    public static boolean isTransient(Throwable error) {
+        for (var cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof MongoSocketException
+                    || cause instanceof MongoTimeoutException
+                    || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
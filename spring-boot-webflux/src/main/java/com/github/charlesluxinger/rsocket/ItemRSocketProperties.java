@@ -0,0 +1,35 @@
+package com.github.charlesluxinger.rsocket;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-rsocket")
+public class ItemRSocketProperties {
+
+    /**
+     * Path the RSocket WebSocket transport is served at on the HTTP port, next to the TCP transport on
+     * {@code spring.rsocket.server.port}. Empty to serve TCP only.
+     */
+    private String webSocketPath = "/rsocket";
+
+    /**
+     * Upserts of one {@code items.upsert} channel in flight at once. Only this many items are requested from
+     * the client ahead of the writes, so a client sending faster than Mongo writes is held back.
+     */
+    private int upsertConcurrency = 32;
+
+    /**
+     * How long a request stream may go without demand from its client before it is ended with an error. A stream
+     * holds its repository bulkhead and limiter permits until it ends, so a client that stops requesting would hold
+     * them for good. A stream the client is waiting on is never ended for being slow.
+     */
+    private Duration streamIdleTimeout = Duration.ofSeconds(30);
+
+}
@@ -0,0 +1,22 @@
+package com.github.charlesluxinger.rsocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Optional price bounds of an {@code items.range} stream, as {@code minPrice} and {@code maxPrice} of {@code GET /items}.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemRangeRequest {
+
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+}
@@ -0,0 +1,17 @@
+package com.github.charlesluxinger.rsocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemSearchRequest {
+
+    private String text;
+    private int limit = 20;
+
+}
@@ -0,0 +1,25 @@
+package com.github.charlesluxinger.rsocket;
+
+import io.rsocket.core.RSocketServer;
+import io.rsocket.transport.netty.server.WebsocketRouteTransport;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.embedded.netty.NettyRouteProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+
+@Configuration
+public class RSocketConfig {
+
+    /**
+     * Boot serves RSocket either over TCP on its own port or over WebSocket on the HTTP server, not both. It
+     * runs the TCP server; this route adds the WebSocket transport, for clients that can only reach the HTTP port.
+     */
+    @Bean
+    @ConditionalOnExpression("!'${item-rsocket.web-socket-path:/rsocket}'.isEmpty()")
+    public NettyRouteProvider rsocketWebSocketRoute(RSocketMessageHandler messageHandler, ItemRSocketProperties properties) {
+        var acceptor = RSocketServer.create(messageHandler.responder()).asConnectionAcceptor();
+        return routes -> routes.ws(properties.getWebSocketPath(), WebsocketRouteTransport.newHandler(acceptor));
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.github.charlesluxinger.search;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import com.github.charlesluxinger.repository.support.DeleteEvents;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.MongoMappingEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Serves description autocomplete from memory. The trie is loaded once at startup and then kept
+ * up to date from the repository's save and delete events, one item at a time. A delete it cannot
+ * follow item by item is answered by loading a new trie next to the current one.
+ */
+@Slf4j
+@Component
+public class DescriptionSuggester extends AbstractMongoEventListener<Item> {
+
+    private final ItemRepository itemRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Consumer<Index>> pending = new ArrayList<>();
+    private Index index = new Index();
+    private int loads;
+
+    public DescriptionSuggester(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.trie.complete(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload().subscribe(count -> log.info("Loaded {} item descriptions for autocomplete", count),
+                error -> log.error("Could not load item descriptions for autocomplete", error));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onApplicationEvent(MongoMappingEvent<?> event) {
+        if (DeleteEvents.isUntypedItemDelete(event)) {
+            onAfterDelete((AfterDeleteEvent<Item>) event);
+            return;
+        }
+        super.onApplicationEvent(event);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Item> event) {
+        put(event.getSource());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Item> event) {
+        var query = event.getSource();
+        if (query.isEmpty()) {
+            mutate(Index::clear);
+            return;
+        }
+
+        var ids = DeleteEvents.deletedIds(query);
+        if (ids.isEmpty()) {
+            log.warn("Reloading autocomplete after delete by {}", query.toJson());
+            load();
+            return;
+        }
+        ids.forEach(this::remove);
+    }
+
+    /**
+     * Scans the collection into a new trie and swaps it in, so suggestions keep coming from the old one meanwhile.
+     * Safe to run concurrently with writes and with other loads, as each one replays every write seen since it
+     * started.
+     */
+    Mono<Integer> reload() {
+        return Mono.defer(() -> {
+            int replayFrom = begin();
+            return itemRepository
+                    .findAll()
+                    .collect(Index::new, (fresh, item) -> fresh.put(item.getId(), item.getDescription()))
+                    .map(fresh -> swap(fresh, replayFrom))
+                    .doOnError(error -> abandon())
+                    .doOnCancel(this::abandon);
+        });
+    }
+
+    void put(Item item) {
+        mutate(index -> index.put(item.getId(), item.getDescription()));
+    }
+
+    void remove(String id) {
+        mutate(index -> index.put(id, null));
+    }
+
+    private void mutate(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (loads > 0) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int begin() {
+        lock.writeLock().lock();
+        try {
+            loads++;
+            return pending.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int swap(Index fresh, int replayFrom) {
+        lock.writeLock().lock();
+        try {
+            pending.subList(replayFrom, pending.size()).forEach(change -> change.accept(fresh));
+            index = fresh;
+            end();
+            return fresh.descriptionsById.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void abandon() {
+        lock.writeLock().lock();
+        try {
+            end();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void end() {
+        if (--loads == 0) {
+            pending.clear();
+        }
+    }
+
+    /**
+     * The trie together with the description each item put into it, so that a changed or deleted item can take
+     * its own out again.
+     */
+    private static class Index {
+
+        private DescriptionTrie trie = new DescriptionTrie();
+        private final Map<String, String> descriptionsById = new HashMap<>();
+
+        /**
+         * Replaces the description of the item, {@code null} for none.
+         */
+        void put(String id, String description) {
+            var previous = description == null
+                    ? descriptionsById.remove(id)
+                    : descriptionsById.put(id, description);
+            if (previous != null) {
+                trie.remove(previous);
+            }
+            if (description != null) {
+                trie.add(description);
+            }
+        }
+
+        void clear() {
+            trie = new DescriptionTrie();
+            descriptionsById.clear();
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.github.charlesluxinger.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Radix tree (path-compressed trie) from lower-cased keys to the descriptions indexed under them.
+ * Every word of a description is a key, so {@code "tv"} completes to both {@code "LG TV"} and
+ * {@code "Samsung TV"}. Descriptions are reference counted, as several items can share one.
+ * <p>
+ * Not thread-safe, see {@link DescriptionSuggester}.
+ */
+public class DescriptionTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node("");
+    private int keys;
+
+    public void add(String description) {
+        for (var key : keys(description)) {
+            add(key, description);
+        }
+    }
+
+    public void remove(String description) {
+        for (var key : keys(description)) {
+            remove(key, description);
+        }
+    }
+
+    /**
+     * Distinct descriptions having a word that starts with {@code prefix}, in key order.
+     */
+    public List<String> complete(String prefix, int limit) {
+        var node = find(prefix.toLowerCase().trim());
+        if (node == null || limit <= 0) {
+            return List.of();
+        }
+
+        var found = new LinkedHashSet<String>();
+        collect(node, found, limit);
+        return new ArrayList<>(found);
+    }
+
+    public int size() {
+        return keys;
+    }
+
+    static List<String> keys(String description) {
+        var lowerCase = description.toLowerCase().trim();
+        var keys = new ArrayList<String>();
+
+        for (int i = 0; i < lowerCase.length(); i++) {
+            var wordStart = !Character.isWhitespace(lowerCase.charAt(i))
+                    && (i == 0 || Character.isWhitespace(lowerCase.charAt(i - 1)));
+            if (wordStart) {
+                keys.add(lowerCase.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    private void add(String key, String description) {
+        var node = root;
+        var i = 0;
+
+        while (i < key.length()) {
+            var index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                node.insert(-index - 1, new Node(key.substring(i)));
+                node = node.children[-index - 1];
+                break;
+            }
+
+            var child = node.children[index];
+            var common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                child = node.split(index, common);
+            }
+
+            node = child;
+            i += common;
+        }
+
+        if (node.values == null) {
+            node.values = new LinkedHashMap<>(2);
+        }
+        if (node.values.isEmpty()) {
+            keys++;
+        }
+        node.values.merge(description, 1, Integer::sum);
+    }
+
+    private void remove(String key, String description) {
+        var path = new ArrayList<Node>();
+        var node = root;
+        var i = 0;
+
+        while (i < key.length()) {
+            var index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                return;
+            }
+
+            var child = node.children[index];
+            if (!key.startsWith(child.label, i)) {
+                return;
+            }
+
+            path.add(node);
+            node = child;
+            i += child.label.length();
+        }
+
+        var count = node.values == null ? null : node.values.get(description);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            node.values.put(description, count - 1);
+            return;
+        }
+
+        node.values.remove(description);
+        if (!node.values.isEmpty()) {
+            return;
+        }
+
+        node.values = null;
+        keys--;
+
+        var parent = path.isEmpty() ? null : path.get(path.size() - 1);
+        if (node.children.length == 0 && parent != null) {
+            parent.delete(node);
+            if (parent != root && parent.values == null && parent.children.length == 1) {
+                parent.mergeWithOnlyChild();
+            }
+        } else if (node.children.length == 1 && node != root) {
+            node.mergeWithOnlyChild();
+        }
+    }
+
+    private Node find(String prefix) {
+        var node = root;
+        var i = 0;
+
+        while (i < prefix.length()) {
+            var index = node.indexOf(prefix.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+
+            var child = node.children[index];
+            var common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    private void collect(Node node, Set<String> found, int limit) {
+        if (node.values != null) {
+            for (var description : node.values.keySet()) {
+                found.add(description);
+                if (found.size() >= limit) {
+                    return;
+                }
+            }
+        }
+
+        for (var child : node.children) {
+            collect(child, found, limit);
+            if (found.size() >= limit) {
+                return;
+            }
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        var max = Math.min(label.length(), key.length() - offset);
+        var i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static class Node {
+
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private Map<String, Integer> values;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Children are kept sorted by first character, so lookups are a binary search and
+         * completions come out in key order.
+         */
+        int indexOf(char first) {
+            var low = 0;
+            var high = children.length - 1;
+            while (low <= high) {
+                var mid = (low + high) >>> 1;
+                var c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insert(int index, Node child) {
+            var grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        void delete(Node child) {
+            var index = indexOf(child.label.charAt(0));
+            var shrunk = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        /**
+         * Splits the edge to {@code children[index]} after {@code length} characters and returns the new middle node.
+         */
+        Node split(int index, int length) {
+            var child = children[index];
+            var middle = new Node(child.label.substring(0, length));
+            child.label = child.label.substring(length);
+            middle.children = new Node[]{child};
+            children[index] = middle;
+            return middle;
+        }
+
+        void mergeWithOnlyChild() {
+            var child = children[0];
+            label = label + child.label;
+            children = child.children;
+            values = child.values;
+        }
+    }
+
+}
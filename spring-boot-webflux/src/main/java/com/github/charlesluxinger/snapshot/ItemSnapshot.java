@@ -0,0 +1,320 @@
+package com.github.charlesluxinger.snapshot;
+
+import com.github.charlesluxinger.document.Item;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable copy of the item collection laid out by column: prices in a {@code long[]}, descriptions
+ * dictionary-encoded into an {@code int[]}, and an index from id to row. Rows are kept in {@code (price, _id)}
+ * order, the order of the {@code price_id} index, so price ranges and keyset cursors are binary searches.
+ * <p>
+ * Items are only materialized for the rows a query returns. Changes produce a new snapshot by merging them
+ * into a copy of the columns; the previous one stays valid for whoever is still reading it.
+ */
+public final class ItemSnapshot {
+
+    private static final int NO_DESCRIPTION = -1;
+    private static final long NO_VERSION = Long.MIN_VALUE;
+
+    private static final Comparator<String> ID_ORDER = ItemSnapshot::compareIds;
+    private static final Comparator<Item> ROW_ORDER = Comparator.comparingLong(Item::getPrice)
+            .thenComparing(Item::getId, ID_ORDER);
+
+    private final long generation;
+    private final String[] ids;
+    private final long[] prices;
+    private final int[] descriptions;
+    private final long[] versions;
+    private final String[] dictionary;
+    private final Map<String, Integer> codes;
+    private final int[] rowsById;
+
+    private ItemSnapshot(long generation, String[] ids, long[] prices, int[] descriptions, long[] versions,
+                         String[] dictionary, Map<String, Integer> codes) {
+        this.generation = generation;
+        this.ids = ids;
+        this.prices = prices;
+        this.descriptions = descriptions;
+        this.versions = versions;
+        this.dictionary = dictionary;
+        this.codes = codes;
+        this.rowsById = new int[Math.max(2, Integer.highestOneBit(Math.max(1, ids.length * 2 - 1)) << 1)];
+        for (int row = 0; row < ids.length; row++) {
+            int slot = slot(ids[row]);
+            while (rowsById[slot] != 0) {
+                slot = (slot + 1) & (rowsById.length - 1);
+            }
+            rowsById[slot] = row + 1;
+        }
+    }
+
+    /**
+     * A snapshot of {@code items}, with a fresh dictionary holding only the descriptions in use.
+     */
+    public static ItemSnapshot of(long generation, Collection<Item> items) {
+        var sorted = items.stream().sorted(ROW_ORDER).collect(Collectors.toList());
+        var columns = new Columns(sorted.size(), new String[0], Map.of());
+        sorted.forEach(columns::add);
+        return columns.build(generation);
+    }
+
+    /**
+     * This snapshot with {@code changes} applied: each id maps to the item as it is now, or to {@code null}
+     * when it was deleted. A change carrying an older version than the row it replaces arrived out of order
+     * and is ignored. Descriptions no longer in use stay in the dictionary until the next {@link #of}.
+     */
+    public ItemSnapshot apply(long generation, Map<String, Item> changes) {
+        changes = changes.entrySet().stream()
+                .filter(change -> !isOutdated(change.getKey(), change.getValue()))
+                .collect(HashMap::new, (map, change) -> map.put(change.getKey(), change.getValue()), Map::putAll);
+        var changed = changes.values().stream()
+                .filter(Objects::nonNull)
+                .sorted(ROW_ORDER)
+                .collect(Collectors.toList());
+        var replaced = new boolean[ids.length];
+        var kept = ids.length;
+        for (var id : changes.keySet()) {
+            int row = row(id);
+            if (row >= 0) {
+                replaced[row] = true;
+                kept--;
+            }
+        }
+
+        var columns = new Columns(kept + changed.size(), dictionary, codes);
+        int row = 0;
+        int next = 0;
+        while (row < ids.length || next < changed.size()) {
+            if (row < ids.length && replaced[row]) {
+                row++;
+            } else if (next == changed.size() || (row < ids.length && compare(row, changed.get(next)) < 0)) {
+                columns.copy(this, row++);
+            } else {
+                columns.add(changed.get(next++));
+            }
+        }
+        return columns.build(generation);
+    }
+
+    /**
+     * Increases with every snapshot published, so two reads can tell whether they saw the same data.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public Optional<Item> findById(String id) {
+        int row = row(id);
+        return row < 0 ? Optional.empty() : Optional.of(item(row));
+    }
+
+    public List<Item> findAll() {
+        return range(Long.MIN_VALUE, Long.MAX_VALUE, true, null, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * At most {@code limit} items priced within {@code [minPrice, maxPrice]}, in {@code (price, _id)} order,
+     * the same page the repository's {@code findByPriceRange} queries return. Given a cursor, only items strictly
+     * after it (or before it, descending) are returned.
+     */
+    public List<Item> range(long minPrice, long maxPrice, boolean ascending, Long cursorPrice, String cursorId, int limit) {
+        int from = lowerBound(minPrice, null);
+        int to = maxPrice == Long.MAX_VALUE ? ids.length : lowerBound(maxPrice + 1, null);
+        if (cursorPrice != null && cursorId != null) {
+            if (ascending) {
+                from = Math.max(from, upperBound(cursorPrice, cursorId));
+            } else {
+                to = Math.min(to, lowerBound(cursorPrice, cursorId));
+            }
+        }
+
+        var items = new ArrayList<Item>(Math.max(0, Math.min(limit, to - from)));
+        for (int i = 0; i < to - from && items.size() < limit; i++) {
+            items.add(item(ascending ? from + i : to - 1 - i));
+        }
+        return items;
+    }
+
+    private boolean isOutdated(String id, Item item) {
+        if (item == null || item.getVersion() == null) {
+            return false;
+        }
+        int row = row(id);
+        return row >= 0 && versions[row] != NO_VERSION && item.getVersion() < versions[row];
+    }
+
+    /**
+     * The row holding {@code id}, or -1. The index is an open-addressing table of row numbers plus one,
+     * at most half full, so it costs an {@code int} per slot rather than an entry and a boxed row per id.
+     */
+    private int row(String id) {
+        int slot = slot(id);
+        int entry;
+        while ((entry = rowsById[slot]) != 0) {
+            if (ids[entry - 1].equals(id)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & (rowsById.length - 1);
+        }
+        return -1;
+    }
+
+    private int slot(String id) {
+        int hash = id.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (rowsById.length - 1);
+    }
+
+    private Item item(int row) {
+        return new Item(ids[row],
+                descriptions[row] == NO_DESCRIPTION ? null : dictionary[descriptions[row]],
+                prices[row],
+                versions[row] == NO_VERSION ? null : versions[row]);
+    }
+
+    /**
+     * The first row at or after {@code (price, id)}; a {@code null} id sorts before every id.
+     */
+    private int lowerBound(long price, String id) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, price, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The first row after {@code (price, id)}.
+     */
+    private int upperBound(long price, String id) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, price, id) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compare(int row, Item item) {
+        return compare(row, item.getPrice(), item.getId());
+    }
+
+    private int compare(int row, long price, String id) {
+        var byPrice = Long.compare(prices[row], price);
+        if (byPrice != 0 || id == null) {
+            return byPrice != 0 ? byPrice : 1;
+        }
+        return compareIds(ids[row], id);
+    }
+
+    /**
+     * Mongo's order for the ids Spring Data writes: ids that look like an ObjectId are stored as one,
+     * and ObjectIds sort after strings.
+     */
+    private static int compareIds(String a, String b) {
+        boolean objectIdA = ObjectId.isValid(a);
+        boolean objectIdB = ObjectId.isValid(b);
+        if (objectIdA != objectIdB) {
+            return objectIdA ? 1 : -1;
+        }
+        return a.compareTo(b);
+    }
+
+    /**
+     * Fills the columns of a new snapshot row by row, extending the dictionary it started from as new
+     * descriptions come in. The dictionary it was given is only copied once it has to grow.
+     */
+    private static final class Columns {
+
+        private final String[] ids;
+        private final long[] prices;
+        private final int[] descriptions;
+        private final long[] versions;
+        private final List<String> added = new ArrayList<>();
+        private String[] dictionary;
+        private Map<String, Integer> codes;
+        private boolean copied;
+        private int size;
+
+        Columns(int capacity, String[] dictionary, Map<String, Integer> codes) {
+            this.ids = new String[capacity];
+            this.prices = new long[capacity];
+            this.descriptions = new int[capacity];
+            this.versions = new long[capacity];
+            this.dictionary = dictionary;
+            this.codes = codes;
+        }
+
+        void add(Item item) {
+            ids[size] = item.getId();
+            prices[size] = item.getPrice();
+            descriptions[size] = encode(item.getDescription());
+            versions[size] = item.getVersion() == null ? NO_VERSION : item.getVersion();
+            size++;
+        }
+
+        void copy(ItemSnapshot from, int row) {
+            ids[size] = from.ids[row];
+            prices[size] = from.prices[row];
+            descriptions[size] = from.descriptions[row];
+            versions[size] = from.versions[row];
+            size++;
+        }
+
+        ItemSnapshot build(long generation) {
+            if (!added.isEmpty()) {
+                var grown = Arrays.copyOf(dictionary, dictionary.length + added.size());
+                for (int i = 0; i < added.size(); i++) {
+                    grown[dictionary.length + i] = added.get(i);
+                }
+                dictionary = grown;
+            }
+            return new ItemSnapshot(generation, ids, prices, descriptions, versions, dictionary, codes);
+        }
+
+        private int encode(String description) {
+            if (description == null) {
+                return NO_DESCRIPTION;
+            }
+
+            var code = codes.get(description);
+            if (code != null) {
+                return code;
+            }
+            if (!copied) {
+                codes = new HashMap<>(codes);
+                copied = true;
+            }
+            code = dictionary.length + added.size();
+            codes.put(description, code);
+            added.add(description);
+            return code;
+        }
+    }
+
+}
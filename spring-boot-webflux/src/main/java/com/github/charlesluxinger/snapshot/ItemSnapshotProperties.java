@@ -0,0 +1,38 @@
+package com.github.charlesluxinger.snapshot;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-snapshot")
+public class ItemSnapshotProperties {
+
+    /**
+     * Keep an in-memory snapshot of the item collection, for list queries asking for {@code consistency=snapshot}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often writes seen since the last snapshot are merged into a new one, the most a snapshot lags
+     * behind the writes this instance has seen. Each merge copies every column, so large catalogs with
+     * steady writes may want a longer interval.
+     */
+    private Duration publishInterval = Duration.ofMillis(100);
+
+    /**
+     * How often the snapshot is reloaded from a full scan, which also compacts its description dictionary.
+     */
+    private Duration reconcileInterval = Duration.ofMinutes(15);
+
+    /**
+     * Also follow writes made outside this instance through a change stream (needs a replica set).
+     */
+    private boolean changeStream = true;
+
+}
@@ -0,0 +1,269 @@
+package com.github.charlesluxinger.snapshot;
+
+import com.github.charlesluxinger.changes.ItemChangeBus;
+import com.github.charlesluxinger.changes.ItemChanges;
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.support.DeleteEvents;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.MongoMappingEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps an {@link ItemSnapshot} of the item collection when {@code item-snapshot.enabled} is set.
+ * <p>
+ * Writes are collected by id as they are seen, from repository events and from the {@link ItemChangeBus},
+ * and merged into a new snapshot every {@code publish-interval}. Readers get whichever snapshot was published
+ * last, so everything one request reads comes from the same version. A periodic reload from a full scan
+ * corrects whatever was missed; writes seen while it scans are applied on top before it is published.
+ */
+@Slf4j
+@Component
+public class ItemSnapshotStore extends AbstractMongoEventListener<Item> {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ItemSnapshotProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ItemChangeBus changeBus;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Map.Entry<String, Item>> pending = new ArrayList<>();
+    private final Disposable.Composite jobs = Disposables.composite();
+    private final AtomicLong generations = new AtomicLong();
+    private Map<String, Item> unpublished = new HashMap<>();
+    private int reloads;
+
+    private volatile ItemSnapshot snapshot;
+
+    public ItemSnapshotStore(ReactiveMongoTemplate mongoTemplate, ItemSnapshotProperties properties, MeterRegistry meterRegistry,
+                             ItemChangeBus changeBus) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.changeBus = changeBus;
+        meterRegistry.gauge("items.snapshot.rows", this, store -> store.snapshot == null ? 0 : store.snapshot.size());
+    }
+
+    /**
+     * The last published snapshot, empty until the first load completed or when snapshots are disabled.
+     */
+    public Optional<ItemSnapshot> current() {
+        var current = snapshot;
+        if (current != null) {
+            meterRegistry.counter("items.snapshot.reads").increment();
+        }
+        return Optional.ofNullable(current);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        jobs.add(reload().subscribe(null, error -> log.error("Could not load the item snapshot", error)));
+
+        if (properties.isChangeStream()) {
+            jobs.add(changeBus
+                    .changes()
+                    .subscribe(this::apply, error -> log.error("Item snapshot change stream stopped", error)));
+        }
+
+        jobs.add(Flux.interval(properties.getPublishInterval())
+                .onBackpressureDrop()
+                .subscribe(tick -> publish()));
+
+        jobs.add(Flux.interval(properties.getReconcileInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> reload()
+                        .onErrorResume(error -> {
+                            log.error("Could not reload the item snapshot", error);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobs.dispose();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onApplicationEvent(MongoMappingEvent<?> event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (DeleteEvents.isUntypedItemDelete(event)) {
+            onAfterDelete((AfterDeleteEvent<Item>) event);
+            return;
+        }
+        super.onApplicationEvent(event);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Item> event) {
+        var item = event.getSource();
+        record(item.getId(), new Item(item.getId(), item.getDescription(), item.getPrice(), item.getVersion()));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Item> event) {
+        var ids = DeleteEvents.deletedIds(event.getSource());
+        if (ids.isEmpty()) {
+            reload().subscribe(null, error -> log.error("Could not reload the item snapshot", error));
+            return;
+        }
+        ids.forEach(id -> record(id, null));
+    }
+
+    /**
+     * Scans the collection into a new snapshot and publishes it. Safe to run concurrently with writes and with
+     * other reloads, as each one applies every write seen since it started.
+     */
+    Mono<ItemSnapshot> reload() {
+        return Mono.defer(() -> {
+            int replayFrom = begin();
+            return mongoTemplate
+                    .find(new Query(), Item.class)
+                    .collectList()
+                    .map(items -> swap(items, replayFrom))
+                    .doOnError(error -> abandon())
+                    .doOnCancel(this::abandon);
+        });
+    }
+
+    /**
+     * Merges the writes seen since the last publish into a new snapshot. The merge copies every column, so it
+     * runs outside the lock; if a reload published in the meantime, that one already holds these writes.
+     */
+    void publish() {
+        ItemSnapshot base;
+        Map<String, Item> changes;
+        lock.lock();
+        try {
+            base = snapshot;
+            if (base == null || unpublished.isEmpty()) {
+                return;
+            }
+            changes = unpublished;
+            unpublished = new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+
+        var next = base.apply(generations.incrementAndGet(), changes);
+        lock.lock();
+        try {
+            if (snapshot == base) {
+                snapshot = next;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A reset is answered by a reload alone: its scan starts after every change of the burst was made.
+     */
+    private void apply(ItemChanges changes) {
+        if (!changes.isReset()) {
+            try {
+                changes.getChanges().forEach(change -> record(change.getId(), change.getItem()));
+                return;
+            } catch (RuntimeException e) {
+                // reloaded as after a reset, rather than ending the subscription to the bus
+                log.error("Could not apply item changes to the snapshot, reloading it", e);
+            }
+        }
+
+        reload().subscribe(null, error -> log.error("Could not reload the item snapshot", error));
+    }
+
+    /**
+     * Remembers the latest state of an item, {@code null} once deleted, for the next publish and for any
+     * reload in progress.
+     */
+    private void record(String id, Item item) {
+        lock.lock();
+        try {
+            var previous = unpublished.get(id);
+            if (item != null && previous != null && item.getVersion() != null && previous.getVersion() != null
+                    && item.getVersion() < previous.getVersion()) {
+                return;
+            }
+            unpublished.put(id, item);
+            if (reloads > 0) {
+                pending.add(new AbstractMap.SimpleImmutableEntry<>(id, item));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int begin() {
+        lock.lock();
+        try {
+            reloads++;
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the scanned items with every write seen since the scan started on top. Those are all the
+     * writes the scan may have missed, so whatever was unpublished before is dropped.
+     */
+    private ItemSnapshot swap(List<Item> items, int replayFrom) {
+        var scanned = ItemSnapshot.of(0, items);
+        lock.lock();
+        try {
+            var changes = new HashMap<String, Item>();
+            pending.subList(replayFrom, pending.size()).forEach(change -> changes.put(change.getKey(), change.getValue()));
+            snapshot = scanned.apply(generations.incrementAndGet(), changes);
+            unpublished = new HashMap<>();
+            end();
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void abandon() {
+        lock.lock();
+        try {
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void end() {
+        if (--reloads == 0) {
+            pending.clear();
+        }
+    }
+
+}
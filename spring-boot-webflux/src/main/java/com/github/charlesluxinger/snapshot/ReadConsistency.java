@@ -0,0 +1,29 @@
+package com.github.charlesluxinger.snapshot;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * What a list query may be served from, chosen per request.
+ */
+public enum ReadConsistency {
+
+    /**
+     * Read from Mongo.
+     */
+    STRONG,
+
+    /**
+     * Read from the in-memory {@link ItemSnapshot} when there is one, which may miss the latest writes.
+     */
+    SNAPSHOT;
+
+    public static Optional<ReadConsistency> parse(String value) {
+        try {
+            return Optional.of(value == null ? STRONG : valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.github.charlesluxinger.startup;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps the beans listed in {@code startup.eager-beans} eager when {@code spring.main.lazy-initialization}
+ * is on. Boot's lazy post-processor leaves alone any definition whose lazy flag was set explicitly, and runs
+ * after registry post-processors such as this one.
+ * <p>
+ * {@code itemRepository} is the one that matters: creating it builds the Mongo mapping and indexes, which
+ * would otherwise land on the first request.
+ */
+@Component
+public class EagerBeansPostProcessor implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+
+    private List<String> eagerBeans = List.of();
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        eagerBeans = Binder.get(environment)
+                .bind("startup.eager-beans", Bindable.listOf(String.class))
+                .orElse(List.of());
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+        for (var name : eagerBeans) {
+            if (registry.containsBeanDefinition(name)) {
+                var definition = registry.getBeanDefinition(name);
+                if (definition instanceof AbstractBeanDefinition && ((AbstractBeanDefinition) definition).getLazyInit() == null) {
+                    definition.setLazyInit(false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.github.charlesluxinger.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Training run of the {@code startup} Maven profile: once the application is ready it serves one
+ * {@code GET /items}, so the classes of the request path are loaded too, and exits. Run under
+ * {@code -XX:ArchiveClassesAtExit} it leaves the AppCDS archive later starts map instead of loading
+ * and verifying those classes again.
+ * <p>
+ * Like any start, it needs Mongo ({@code docker-compose up}); the request itself may fail without
+ * spoiling the archive.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("startup.training-run")
+public class StartupTrainingRun {
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void exitAfterFirstRequest(ApplicationReadyEvent event) {
+        var context = (ReactiveWebServerApplicationContext) event.getApplicationContext();
+        var port = context.getWebServer().getPort();
+
+        WebClient.create("http://localhost:" + port)
+                .get()
+                .uri("/items")
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofSeconds(10))
+                .doOnError(error -> log.warn("Training request failed: {}", error.toString()))
+                .onErrorResume(error -> Mono.empty())
+                .block();
+
+        System.exit(SpringApplication.exit(context));
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.github.charlesluxinger.summary;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "item-summary")
+public class ItemSummaryProperties {
+
+    /**
+     * How often a changed summary is written back to its document.
+     */
+    private Duration persistInterval = Duration.ofSeconds(5);
+
+    /**
+     * How often the summary is rebuilt from a full scan to correct any drift.
+     */
+    private Duration reconcileInterval = Duration.ofMinutes(15);
+
+    /**
+     * Also follow writes made outside this instance through a change stream. Needs a replica set and a
+     * database other than {@code local}, which change streams cannot watch; off otherwise, as against a
+     * standalone server the stream only fails and retries.
+     */
+    private boolean changeStream = false;
+
+}
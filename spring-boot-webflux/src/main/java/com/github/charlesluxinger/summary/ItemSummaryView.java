@@ -0,0 +1,404 @@
+package com.github.charlesluxinger.summary;
+
+import com.github.charlesluxinger.changes.ItemChangeBus;
+import com.github.charlesluxinger.changes.ItemChanges;
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.ItemSummary;
+import com.github.charlesluxinger.document.ItemSummary.DescriptionCount;
+import com.github.charlesluxinger.document.Prices;
+import com.github.charlesluxinger.repository.support.DeleteEvents;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.MongoMappingEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Item count, inventory value and per-description counts, maintained from deltas instead of scans.
+ * <p>
+ * Every item's contribution is remembered by id, so applying a save or a delete is idempotent: the
+ * repository events for writes made here and the {@link ItemChangeBus} changes for the same writes
+ * can both be applied. A periodic rebuild from a full scan corrects whatever drift is left; writes
+ * seen while it scans are replayed on top of the rebuilt state before it is swapped in.
+ * <p>
+ * Reads return an immutable snapshot, re-derived on the first read after a write. The description counts
+ * are kept in order as deltas are applied, a delta costing the logarithm of the number of distinct descriptions,
+ * and are only copied into a snapshot after a write that changed them: re-deriving one after a price change
+ * costs nothing more, after a new, deleted or renamed item it costs in proportion to the distinct descriptions.
+ * Remembering every item's contribution, its price and a description shared with the other items that have it,
+ * takes memory in proportion to the collection.
+ */
+@Slf4j
+@Component
+public class ItemSummaryView extends AbstractMongoEventListener<Item> {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ItemSummaryProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ItemChangeBus changeBus;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Consumer<State>> pending = new ArrayList<>();
+    private final Disposable.Composite jobs = Disposables.composite();
+    private State state;
+    private int rebuilds;
+
+    private volatile ItemSummary summary = new ItemSummary(ItemSummary.ID, 0, 0, List.of(), null);
+    private volatile boolean stale;
+    private volatile boolean unsaved;
+
+    public ItemSummaryView(ReactiveMongoTemplate mongoTemplate, ItemSummaryProperties properties, MeterRegistry meterRegistry,
+                           ItemChangeBus changeBus) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.changeBus = changeBus;
+    }
+
+    public ItemSummary summary() {
+        if (stale) {
+            lock.lock();
+            try {
+                if (stale) {
+                    summary = state.toSummary();
+                    stale = false;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Serves the last persisted summary until the first rebuild completes, then keeps the view current.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        jobs.add(mongoTemplate
+                .findById(ItemSummary.ID, ItemSummary.class)
+                .doOnNext(persisted -> {
+                    if (state == null) {
+                        summary = persisted;
+                    }
+                })
+                .then(rebuild())
+                .subscribe(null, error -> log.error("Could not load the item summary", error)));
+
+        if (properties.isChangeStream()) {
+            jobs.add(changeBus
+                    .changes()
+                    .subscribe(this::apply, error -> log.error("Item summary change stream stopped", error)));
+        }
+
+        jobs.add(Flux.interval(properties.getPersistInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> persist(), 1)
+                .subscribe());
+
+        jobs.add(Flux.interval(properties.getReconcileInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> rebuild()
+                        .onErrorResume(error -> {
+                            log.error("Could not reconcile the item summary", error);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobs.dispose();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onApplicationEvent(MongoMappingEvent<?> event) {
+        if (DeleteEvents.isUntypedItemDelete(event)) {
+            onAfterDelete((AfterDeleteEvent<Item>) event);
+            return;
+        }
+        super.onApplicationEvent(event);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Item> event) {
+        var item = event.getSource();
+        mutate(state -> state.put(item));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Item> event) {
+        var query = event.getSource();
+        if (query.isEmpty()) {
+            mutate(State::clear);
+            return;
+        }
+
+        var ids = DeleteEvents.deletedIds(query);
+        if (ids.isEmpty()) {
+            log.warn("Rebuilding the item summary after delete by {}", query.toJson());
+            rebuild().subscribe(null, error -> log.error("Could not rebuild the item summary", error));
+            return;
+        }
+        mutate(state -> ids.forEach(state::remove));
+    }
+
+    /**
+     * Scans the collection into a fresh state and swaps it in. Safe to run concurrently with writes
+     * and with other rebuilds, as each one replays every write seen since it started.
+     */
+    Mono<ItemSummary> rebuild() {
+        return Mono.defer(() -> {
+            int replayFrom = begin();
+            return mongoTemplate
+                    .find(new Query(), Item.class)
+                    .collect(State::new, State::put)
+                    .map(fresh -> swap(fresh, replayFrom))
+                    .doOnError(error -> abandon())
+                    .doOnCancel(this::abandon);
+        });
+    }
+
+    Mono<ItemSummary> persist() {
+        if (!unsaved || state == null) {
+            return Mono.empty();
+        }
+
+        unsaved = false;
+        var current = summary();
+        return mongoTemplate
+                .save(new ItemSummary(ItemSummary.ID, current.getCount(), current.getTotalValue(),
+                        current.getDescriptions(), Instant.now()))
+                .onErrorResume(error -> {
+                    log.warn("Could not persist the item summary", error);
+                    unsaved = true;
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * A reset is answered by a rebuild alone: its scan starts after every change of the burst was made. So is a
+     * burst that could not be applied, rather than failing and ending the subscription to the bus.
+     */
+    private void apply(ItemChanges changes) {
+        if (!changes.isReset()) {
+            try {
+                mutate(state -> changes.getChanges().forEach(change -> {
+                    if (change.getItem() != null) {
+                        state.put(change.getItem());
+                    } else {
+                        state.remove(change.getId());
+                    }
+                }));
+                return;
+            } catch (RuntimeException e) {
+                log.error("Could not apply item changes to the summary, rebuilding it", e);
+            }
+        }
+
+        rebuild().subscribe(null, error -> log.error("Could not rebuild the item summary", error));
+    }
+
+    private void mutate(Consumer<State> change) {
+        lock.lock();
+        try {
+            if (state != null) {
+                change.accept(state);
+                stale = true;
+            }
+            if (rebuilds > 0) {
+                pending.add(change);
+            }
+            unsaved = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int begin() {
+        lock.lock();
+        try {
+            rebuilds++;
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ItemSummary swap(State fresh, int replayFrom) {
+        lock.lock();
+        try {
+            pending.subList(replayFrom, pending.size()).forEach(change -> change.accept(fresh));
+            record(state, fresh);
+            state = fresh;
+            summary = fresh.toSummary();
+            stale = false;
+            unsaved = true;
+            end();
+            return summary;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void abandon() {
+        lock.lock();
+        try {
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void end() {
+        if (--rebuilds == 0) {
+            pending.clear();
+        }
+    }
+
+    private void record(State previous, State fresh) {
+        if (previous == null) {
+            log.info("Loaded item summary over {} items", fresh.count);
+            return;
+        }
+
+        var countDrift = previous.count - fresh.count;
+        var valueDrift = previous.totalValue - fresh.totalValue;
+        var drifted = countDrift != 0 || valueDrift != 0;
+        if (drifted) {
+            log.warn("Item summary had drifted by {} items and {} in value", countDrift, Prices.format(valueDrift));
+        }
+        meterRegistry.counter("items.summary.reconciliations", "drifted", String.valueOf(drifted)).increment();
+    }
+
+    /**
+     * The contribution of every item, by id, plus the running totals derived from them.
+     */
+    private static class State {
+
+        private static final Comparator<DescriptionCount> MOST_COMMON_FIRST = Comparator
+                .comparingLong(DescriptionCount::getCount)
+                .reversed()
+                .thenComparing(DescriptionCount::getDescription);
+
+        private final Map<String, Contribution> items = new HashMap<>();
+        private final Map<String, DescriptionCount> countByDescription = new HashMap<>();
+        private final NavigableSet<DescriptionCount> descriptions = new TreeSet<>(MOST_COMMON_FIRST);
+        private long count;
+        private long totalValue;
+        private List<DescriptionCount> descriptionList;
+
+        void put(Item item) {
+            var previous = items.get(item.getId());
+            var description = item.getDescription();
+            if (previous == null) {
+                count++;
+                description = recount(description, 1);
+            } else {
+                totalValue -= previous.price;
+                if (Objects.equals(previous.description, description)) {
+                    description = previous.description;
+                } else {
+                    recount(previous.description, -1);
+                    description = recount(description, 1);
+                }
+            }
+            totalValue += item.getPrice();
+            items.put(item.getId(), new Contribution(item.getPrice(), description));
+        }
+
+        void remove(String id) {
+            var previous = items.remove(id);
+            if (previous == null) {
+                return;
+            }
+
+            count--;
+            totalValue -= previous.price;
+            recount(previous.description, -1);
+        }
+
+        void clear() {
+            items.clear();
+            countByDescription.clear();
+            descriptions.clear();
+            descriptionList = null;
+            count = 0;
+            totalValue = 0;
+        }
+
+        /**
+         * Copies the description counts only when they changed since the last summary.
+         */
+        ItemSummary toSummary() {
+            if (descriptionList == null) {
+                descriptionList = List.copyOf(descriptions);
+            }
+            return new ItemSummary(ItemSummary.ID, count, totalValue, descriptionList, Instant.now());
+        }
+
+        /**
+         * Moves the description to its new place in the order, dropping it once no item has it. Returns the
+         * instance of the description already counted, so that the items sharing one hold a single copy.
+         */
+        private String recount(String description, long delta) {
+            if (description == null) {
+                return null;
+            }
+
+            var previous = countByDescription.remove(description);
+            if (previous != null) {
+                descriptions.remove(previous);
+                description = previous.getDescription();
+            }
+            descriptionList = null;
+
+            var n = (previous == null ? 0 : previous.getCount()) + delta;
+            if (n > 0) {
+                var next = new DescriptionCount(description, n);
+                countByDescription.put(description, next);
+                descriptions.add(next);
+            }
+            return description;
+        }
+    }
+
+    /**
+     * What one item adds to the summary: all that is kept of it.
+     */
+    private static final class Contribution {
+
+        private final long price;
+        private final String description;
+
+        private Contribution(long price, String description) {
+            this.price = price;
+            this.description = description;
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.github.charlesluxinger.timing;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request timing recorder, carried in the Reactor {@link reactor.util.context.Context}
+ * under the {@code ServerTiming.class} key by {@link ServerTimingFilter}.
+ */
+public class ServerTiming {
+
+    public static final String DB = "db";
+    public static final String SERIALIZATION = "ser";
+    public static final String APP = "app";
+    public static final String TOTAL = "total";
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, LongAdder> durations = new ConcurrentHashMap<>(4);
+
+    public static <T> Mono<T> span(String name, Mono<T> source) {
+        return Mono.deferWithContext(context -> context.<ServerTiming>getOrEmpty(ServerTiming.class)
+                .map(timing -> timing.time(name, source))
+                .orElse(source));
+    }
+
+    public static <T> Flux<T> span(String name, Flux<T> source) {
+        return Flux.deferWithContext(context -> context.<ServerTiming>getOrEmpty(ServerTiming.class)
+                .map(timing -> timing.time(name, source))
+                .orElse(source));
+    }
+
+    public void record(String name, long nanos) {
+        durations.computeIfAbsent(name, key -> new LongAdder()).add(nanos);
+    }
+
+    /**
+     * Recorded phases plus {@link #APP} (time not covered by any phase) and {@link #TOTAL}, in nanos.
+     */
+    public Map<String, Long> snapshot() {
+        var total = System.nanoTime() - startNanos;
+        var phases = new LinkedHashMap<String, Long>();
+        durations.forEach((name, adder) -> phases.put(name, adder.sum()));
+
+        var covered = phases.values().stream().mapToLong(Long::longValue).sum();
+        phases.put(APP, Math.max(0, total - covered));
+        phases.put(TOTAL, total);
+        return phases;
+    }
+
+    public String toHeaderValue() {
+        return toHeaderValue(snapshot());
+    }
+
+    static String toHeaderValue(Map<String, Long> phases) {
+        return phases.entrySet()
+                .stream()
+                .map(entry -> String.format(Locale.ROOT, "%s;dur=%.3f", entry.getKey(), entry.getValue() / 1_000_000d))
+                .collect(Collectors.joining(", "));
+    }
+
+    private <T> Mono<T> time(String name, Mono<T> source) {
+        return Mono.defer(() -> {
+            var stop = stopwatch(name);
+
+            // doOnSuccess runs before the value travels downstream, so the span is closed
+            // before encoding starts or the response gets committed
+            return source
+                    .doOnSuccess(value -> stop.run())
+                    .doOnError(error -> stop.run())
+                    .doOnCancel(stop);
+        });
+    }
+
+    /**
+     * A stream's span ends at its first element, or when it ends or is cancelled without one: from there on
+     * the elements are serialized as they arrive, so the rest of the stream is not counted in this phase.
+     */
+    private <T> Flux<T> time(String name, Flux<T> source) {
+        return Flux.defer(() -> {
+            var stop = stopwatch(name);
+            return source
+                    .doOnNext(value -> stop.run())
+                    .doOnTerminate(stop)
+                    .doOnCancel(stop);
+        });
+    }
+
+    /**
+     * Records the time since it was created under {@code name}, the first time it is run only.
+     */
+    private Runnable stopwatch(String name) {
+        var started = System.nanoTime();
+        var done = new AtomicBoolean();
+        return () -> {
+            if (done.compareAndSet(false, true)) {
+                record(name, System.nanoTime() - started);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.github.charlesluxinger.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.charlesluxinger.repository.support.RepositoryCallDecorator;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+
+@Configuration
+public class ServerTimingConfig {
+
+    /**
+     * Runs after Boot's own Jackson customizer so the wrapped encoder keeps the configured {@link ObjectMapper}.
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public CodecCustomizer serverTimingCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> configurer
+                .defaultCodecs()
+                .jackson2JsonEncoder(new ServerTimingEncoder(new Jackson2JsonEncoder(objectMapper)));
+    }
+
+    /**
+     * Outermost decorator, so the db span also covers retries and queueing added by other decorators.
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public RepositoryCallDecorator serverTimingRepositoryDecorator() {
+        return new RepositoryCallDecorator() {
+
+            @Override
+            public <T> Mono<T> decorate(Method method, Mono<T> call) {
+                return ServerTiming.span(ServerTiming.DB, call);
+            }
+
+            @Override
+            public <T> Flux<T> decorate(Method method, Flux<T> call) {
+                return ServerTiming.span(ServerTiming.DB, call);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.github.charlesluxinger.timing;
+
+import lombok.AllArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the time spent turning values into {@link DataBuffer}s under {@link ServerTiming#SERIALIZATION}.
+ * Only the gap between the last input signal and each produced buffer is counted, so waiting on the
+ * upstream (e.g. Mongo) is not mistaken for serialization.
+ */
+@AllArgsConstructor
+public class ServerTimingEncoder implements HttpMessageEncoder<Object> {
+
+    private final HttpMessageEncoder<Object> delegate;
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return delegate.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+
+        return Flux.deferWithContext(context -> context.<ServerTiming>getOrEmpty(ServerTiming.class)
+                .map(timing -> {
+                    var lastInput = new AtomicLong();
+                    // the delegate encodes a Mono and a Flux differently, so keep the input's shape
+                    Publisher<?> tracked = inputStream instanceof Mono
+                            ? Mono.from(inputStream).doOnEach(signal -> lastInput.set(System.nanoTime()))
+                            : Flux.from(inputStream).doOnEach(signal -> lastInput.set(System.nanoTime()));
+
+                    return delegate
+                            .encode(tracked, bufferFactory, elementType, mimeType, hints)
+                            .doOnNext(buffer -> timing.record(ServerTiming.SERIALIZATION, System.nanoTime() - lastInput.get()));
+                })
+                .orElseGet(() -> delegate.encode(inputStream, bufferFactory, elementType, mimeType, hints)));
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory,
+                                  ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+        return delegate.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return delegate.getEncodableMimeTypes();
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return delegate.getStreamingMediaTypes();
+    }
+
+    @Override
+    public Map<String, Object> getEncodeHints(ResolvableType actualType, ResolvableType elementType,
+                                              MediaType mediaType, ServerHttpRequest request, ServerHttpResponse response) {
+        return delegate.getEncodeHints(actualType, elementType, mediaType, request, response);
+    }
+
+}
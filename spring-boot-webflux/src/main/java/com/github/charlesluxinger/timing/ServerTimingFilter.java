@@ -0,0 +1,65 @@
+package com.github.charlesluxinger.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@AllArgsConstructor
+public class ServerTimingFilter implements WebFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final ServerTimingProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!sampled(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        var timing = new ServerTiming();
+        var response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            response.getHeaders().set(HEADER, timing.toHeaderValue());
+            return Mono.empty();
+        });
+
+        return chain
+                .filter(exchange)
+                .doFinally(signal -> publish(timing))
+                .subscriberContext(context -> context.put(ServerTiming.class, timing));
+    }
+
+    private boolean sampled(ServerWebExchange exchange) {
+        var sampleRate = properties.getSampleRate();
+        if (sampleRate <= 0) {
+            return false;
+        }
+
+        return exchange.getRequest().getPath().value().startsWith(properties.getPathPrefix())
+                && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private void publish(ServerTiming timing) {
+        if (!properties.isMetrics()) {
+            return;
+        }
+
+        timing.snapshot().forEach((phase, nanos) -> Timer
+                .builder("http.server.timing")
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS));
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.github.charlesluxinger.timing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "server-timing")
+public class ServerTimingProperties {
+
+    /**
+     * Fraction of requests, between 0 and 1, that get a Server-Timing breakdown. 0 turns the filter into a pass-through.
+     */
+    private double sampleRate = 0.0;
+
+    /**
+     * Only requests under this path are sampled.
+     */
+    private String pathPrefix = "/items";
+
+    /**
+     * Also publish sampled breakdowns as the {@code http.server.timing} timer.
+     */
+    private boolean metrics = true;
+
+}
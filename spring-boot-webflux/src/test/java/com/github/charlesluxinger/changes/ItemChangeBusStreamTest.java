@@ -0,0 +1,177 @@
+package com.github.charlesluxinger.changes;
+
+import com.github.charlesluxinger.document.Item;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveChangeStreamOperation.ReactiveChangeStream;
+import org.springframework.data.mongodb.core.ReactiveChangeStreamOperation.TerminatingChangeStream;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * The bus against a stubbed change stream, for what a real one makes hard to provoke: bursts cut by a failure,
+ * lost history, and a view that throws.
+ */
+@SuppressWarnings("unchecked")
+public class ItemChangeBusStreamTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(50);
+
+    private final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+    private final ReactiveChangeStream<Item> stream = Mockito.mock(ReactiveChangeStream.class);
+    private final TerminatingChangeStream<Item> resumed = Mockito.mock(TerminatingChangeStream.class);
+    private final List<BsonValue> resumedAfter = new CopyOnWriteArrayList<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    private ItemChangeBus bus;
+
+    @Before
+    public void setUp() {
+        converter.afterPropertiesSet();
+
+        var template = Mockito.mock(ReactiveMongoTemplate.class);
+        when(template.changeStream(Item.class)).thenReturn(stream);
+        when(stream.withOptions(any())).thenReturn(stream);
+        when(stream.watchCollection(Item.class)).thenReturn(stream);
+        when(stream.resumeAfter(any())).thenAnswer(invocation -> {
+            resumedAfter.add(invocation.getArgument(0));
+            return resumed;
+        });
+
+        var properties = new ItemChangeBusProperties();
+        properties.setCoalesceWindow(WINDOW);
+        bus = new ItemChangeBus(template, properties, new SimpleMeterRegistry());
+    }
+
+    @After
+    public void tearDown() {
+        subscriptions.dispose();
+    }
+
+    @Test
+    public void coalescesABurstIntoOneChangePerItem() throws InterruptedException {
+        when(stream.listen()).thenReturn(Flux.just(
+                event(OperationType.INSERT, 1, "A", 100L),
+                event(OperationType.UPDATE, 2, "A", 200L),
+                event(OperationType.UPDATE, 3, "B", 5L),
+                event(OperationType.DELETE, 4, "B", null))
+                .concatWith(Flux.never()));
+
+        var burst = subscribe().poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(burst);
+        assertFalse(burst.isReset());
+        var changes = List.copyOf(burst.getChanges());
+        assertEquals(2, changes.size());
+        assertEquals("A", changes.get(0).getId());
+        assertEquals(200L, changes.get(0).getItem().getPrice());
+        assertTrue(changes.get(0).isCreated());
+        assertEquals("B", changes.get(1).getId());
+        assertNull(changes.get(1).getItem());
+        assertFalse(changes.get(1).isCreated());
+    }
+
+    @Test
+    public void resumesAfterTheLastDeliveredBurst() throws InterruptedException {
+        // the second burst is cut short by the failure, so it is never handed on
+        when(stream.listen()).thenReturn(Flux.just(event(OperationType.INSERT, 1, "A", 100L))
+                .concatWith(Flux.just(event(OperationType.UPDATE, 2, "B", 5L)).delaySubscription(WINDOW.multipliedBy(4)))
+                .concatWith(Flux.error(new IllegalStateException("connection reset"))));
+        when(resumed.listen()).thenReturn(Flux.just(event(OperationType.UPDATE, 2, "B", 5L)).concatWith(Flux.never()));
+
+        var bursts = subscribe();
+
+        assertEquals("A", bursts.poll(5, TimeUnit.SECONDS).getChanges().iterator().next().getId());
+        assertEquals("B", bursts.poll(5, TimeUnit.SECONDS).getChanges().iterator().next().getId());
+        assertEquals(List.of(token(1)), resumedAfter);
+    }
+
+    @Test
+    public void resetsWhenHistoryIsLost() throws InterruptedException {
+        when(stream.listen())
+                .thenReturn(Flux.just(event(OperationType.INSERT, 1, "A", 100L))
+                        .concatWith(Flux.<ChangeStreamEvent<Item>>error(historyLost()).delaySubscription(WINDOW.multipliedBy(4))))
+                .thenReturn(Flux.just(event(OperationType.INSERT, 2, "B", 5L)).concatWith(Flux.never()));
+
+        var bursts = subscribe();
+
+        assertEquals("A", bursts.poll(5, TimeUnit.SECONDS).getChanges().iterator().next().getId());
+        assertTrue(bursts.poll(5, TimeUnit.SECONDS).isReset());
+        assertEquals("B", bursts.poll(5, TimeUnit.SECONDS).getChanges().iterator().next().getId());
+        assertTrue(resumedAfter.isEmpty());
+    }
+
+    @Test
+    public void aFailingViewDoesNotStopTheOthers() throws InterruptedException {
+        when(stream.listen()).thenReturn(Flux.just(event(OperationType.INSERT, 1, "A", 100L))
+                .concatWith(Flux.just(event(OperationType.INSERT, 2, "B", 5L)).delaySubscription(WINDOW.multipliedBy(4)))
+                .concatWith(Flux.never()));
+
+        subscriptions.add(bus.changes().subscribe(changes -> {
+            throw new IllegalStateException("view failed");
+        }, error -> { }));
+        var bursts = subscribe();
+
+        assertEquals("A", bursts.poll(5, TimeUnit.SECONDS).getChanges().iterator().next().getId());
+        assertEquals("B", bursts.poll(5, TimeUnit.SECONDS).getChanges().iterator().next().getId());
+    }
+
+    private BlockingQueue<ItemChanges> subscribe() {
+        var bursts = new LinkedBlockingQueue<ItemChanges>();
+        subscriptions.add(bus.changes().subscribe(bursts::add));
+        return bursts;
+    }
+
+    private ChangeStreamEvent<Item> event(OperationType operation, int token, String id, Long price) {
+        var item = price == null ? null : new Document("_id", id).append("description", "Item " + id).append("price", price);
+        var raw = new ChangeStreamDocument<Document>(operation, token(token), null, null, item,
+                new BsonDocument("_id", new BsonString(id)), new BsonTimestamp((int) (System.currentTimeMillis() / 1000), 1),
+                null, null, null);
+        return new ChangeStreamEvent<>(raw, Item.class, converter);
+    }
+
+    private static BsonDocument token(int n) {
+        return new BsonDocument("_data", new BsonString("t" + n));
+    }
+
+    private static MongoCommandException historyLost() {
+        return new MongoCommandException(new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(286))
+                .append("errmsg", new BsonString("resume point no longer in the oplog")), new ServerAddress());
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.github.charlesluxinger.changes;
+
+import com.github.charlesluxinger.ReactiveSpringApplication;
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.idfilter.ItemIdFilter;
+import com.github.charlesluxinger.repository.ItemRepository;
+import com.github.charlesluxinger.snapshot.ItemSnapshotStore;
+import com.github.charlesluxinger.summary.ItemSummaryView;
+import com.mongodb.reactivestreams.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.mongo.embedded.EmbeddedMongoAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Two instances of the application against one single-node replica set, which change streams need: writes made
+ * through one must reach the views of the other.
+ */
+public class ItemChangeBusTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static MongodExecutable mongod;
+    private static int port;
+    private static ConfigurableApplicationContext writer;
+    private static ConfigurableApplicationContext reader;
+
+    @BeforeClass
+    public static void start() throws IOException {
+        port = Network.getFreeServerPort();
+        mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+                .version(Version.Main.V4_0)
+                .net(new Net(port, Network.localhostIsIPv6()))
+                .replication(new Storage(null, "rs0", 16))
+                .build());
+        mongod.start();
+        initiateReplicaSet();
+
+        writer = instance();
+        reader = instance();
+    }
+
+    @AfterClass
+    public static void stop() {
+        if (reader != null) {
+            reader.close();
+        }
+        if (writer != null) {
+            writer.close();
+        }
+        if (mongod != null) {
+            mongod.stop();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        writer.getBean(ItemRepository.class).deleteAll().block();
+        await(() -> reader.getBean(ItemSummaryView.class).summary().getCount() == 0);
+    }
+
+    @Test
+    public void createsAndDeletesReachTheOtherInstance() {
+        client(writer).post()
+                .uri("/items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Item("A", "Samsung TV", 39999))
+                .exchange()
+                .expectStatus().isCreated();
+
+        await(() -> read("A").isPresent());
+        assertTrue(reader.getBean(ItemIdFilter.class).mightExist("A"));
+        await(() -> reader.getBean(ItemSummaryView.class).summary().getCount() == 1);
+
+        client(writer).delete()
+                .uri("/items/A")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        await(() -> read("A").isEmpty());
+        await(() -> reader.getBean(ItemSummaryView.class).summary().getCount() == 0);
+    }
+
+    /**
+     * How long after an update answered on one instance the other one serves it from its snapshot. That also
+     * takes the snapshot's publish interval, set to 5ms here.
+     */
+    @Test
+    public void measuresStaleness() {
+        writer.getBean(ItemRepository.class).save(new Item("A", "Samsung TV", 10000)).block();
+        await(() -> read("A").isPresent());
+
+        var staleness = new ArrayList<Long>();
+        for (int i = 1; i <= 50; i++) {
+            var price = 10000 + i;
+            client(writer).put()
+                    .uri("/items/A")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new Item("A", "Samsung TV", price))
+                    .exchange()
+                    .expectStatus().isOk();
+            staleness.add(await(() -> read("A").map(item -> item.getPrice() == price).orElse(false)));
+        }
+
+        Collections.sort(staleness);
+        var max = staleness.get(staleness.size() - 1);
+        assertTrue("staleness p50 " + staleness.get(staleness.size() / 2) + "ms, max " + max + "ms", max < 2000);
+    }
+
+    @Test
+    public void coalescesBursts() {
+        var mongoTemplate = writer.getBean(ReactiveMongoTemplate.class);
+        writer.getBean(ItemRepository.class).save(new Item("A", "Samsung TV", 10000)).block();
+        await(() -> read("A").isPresent());
+
+        var meterRegistry = reader.getBean(MeterRegistry.class);
+        var eventsBefore = meterRegistry.get("items.changes.events").counter().count();
+        var changesBefore = meterRegistry.get("items.changes.burst").summary().totalAmount();
+
+        for (int i = 1; i <= 200; i++) {
+            mongoTemplate.updateFirst(query(where("id").is("A")), Update.update("price", 10000 + i), Item.class).block();
+        }
+        await(() -> read("A").map(item -> item.getPrice() == 10200).orElse(false));
+
+        var events = meterRegistry.get("items.changes.events").counter().count() - eventsBefore;
+        var changes = meterRegistry.get("items.changes.burst").summary().totalAmount() - changesBefore;
+        assertTrue(events + " change events", events >= 200);
+        assertTrue(events + " change events reached the views as " + changes + " changes", changes < events);
+    }
+
+    /**
+     * The item as the reader's snapshot has it.
+     */
+    private static Optional<Item> read(String id) {
+        return reader.getBean(ItemSnapshotStore.class).current().flatMap(snapshot -> snapshot.findById(id));
+    }
+
+    private static ConfigurableApplicationContext instance() {
+        return new SpringApplicationBuilder(ReactiveSpringApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.rsocket.server.port=0",
+                        "spring.autoconfigure.exclude=" + EmbeddedMongoAutoConfiguration.class.getName(),
+                        "spring.data.mongodb.host=localhost",
+                        "spring.data.mongodb.port=" + port,
+                        // change streams cannot watch the local database
+                        "spring.data.mongodb.database=items",
+                        "item-summary.change-stream=true",
+                        "item-snapshot.enabled=true",
+                        "item-snapshot.publish-interval=5ms",
+                        "item-id-filter.enabled=true",
+                        "scheduler-monitor.enabled=false")
+                .run();
+    }
+
+    private static WebTestClient client(ConfigurableApplicationContext context) {
+        return WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + context.getEnvironment().getProperty("local.server.port"))
+                .build();
+    }
+
+    private static void initiateReplicaSet() {
+        try (var client = MongoClients.create("mongodb://localhost:" + port)) {
+            var admin = client.getDatabase("admin");
+            Mono.from(admin.runCommand(new Document("replSetInitiate", new Document("_id", "rs0")
+                    .append("members", List.of(new Document("_id", 0).append("host", "localhost:" + port))))))
+                    .block();
+            Mono.defer(() -> Mono.from(admin.runCommand(new Document("isMaster", 1))))
+                    .filter(reply -> reply.getBoolean("ismaster", false))
+                    .repeatWhenEmpty(100, attempts -> attempts.delayElements(Duration.ofMillis(100)))
+                    .block();
+        }
+    }
+
+    /**
+     * Waits for {@code condition} and tells how long that took, in milliseconds.
+     */
+    private static long await(BooleanSupplier condition) {
+        var start = System.nanoTime();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - start > TIMEOUT.toNanos()) {
+                fail("Condition not met within " + TIMEOUT);
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        return Duration.ofNanos(System.nanoTime() - start).toMillis();
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.github.charlesluxinger.controller;
 
 import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.Prices;
 import com.github.charlesluxinger.repository.ItemRepository;
 import org.junit.Before;
 import org.junit.Test;
@@ -8,6 +9,8 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -33,10 +36,10 @@ public class ItemControllerTest {
     private ItemRepository itemRepository;
 
     public List<Item> data() {
-        return List.of(new Item(null, "Samsung TV", 399.99),
-                new Item(null, "LG TV", 329.99),
-                new Item(null, "Apple Watch", 349.99),
-                new Item("ABC", "Beats HeadPhones", 149.99));
+        return List.of(new Item(null, "Samsung TV", 39999),
+                new Item(null, "LG TV", 32999),
+                new Item(null, "Apple Watch", 34999),
+                new Item("ABC", "Beats HeadPhones", 14999));
     }
 
     @Before
@@ -128,7 +131,7 @@ public class ItemControllerTest {
             .post()
             .uri("/items")
             .contentType(MediaType.APPLICATION_JSON)
-            .body(Mono.just(new Item(null, "Iphone X", 999.99)), Item.class)
+            .body(Mono.just(new Item(null, "Iphone X", 99999)), Item.class)
             .exchange()
             .expectStatus()
                 .isCreated()
@@ -138,6 +141,58 @@ public class ItemControllerTest {
                 .jsonPath("$.price").isEqualTo(999.99);
     }
 
+    @Test
+    public void createItemWithoutPrice(){
+        webTestClient
+            .post()
+            .uri("/items")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"description\":\"Iphone X\"}")
+            .exchange()
+            .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    public void createItemWithTakenId(){
+        webTestClient
+            .post()
+            .uri("/items")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Mono.just(new Item("ABC", "Iphone X", 99999)), Item.class)
+            .exchange()
+            .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+
+        StepVerifier.create(itemRepository.findById("ABC"))
+                .expectNextMatches(item -> item.getDescription().equals("Beats HeadPhones"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void createItemIgnoresClientVersion(){
+        webTestClient
+            .post()
+            .uri("/items")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Mono.just(new Item("XYZ", "Iphone X", 99999, 7L)), Item.class)
+            .exchange()
+            .expectStatus()
+                .isCreated()
+            .expectBody()
+                .jsonPath("$.id").isEqualTo("XYZ")
+                .jsonPath("$.version").isEqualTo(0);
+
+        webTestClient
+            .post()
+            .uri("/items")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Mono.just(new Item("ABC", "Iphone X", 99999, 7L)), Item.class)
+            .exchange()
+            .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     public void deleteItem(){
         webTestClient
@@ -152,7 +207,7 @@ public class ItemControllerTest {
 
     @Test
     public void updateItem(){
-        var newPrice = 129.99;
+        var newPrice = 12999;
 
         webTestClient
             .put()
@@ -169,7 +224,7 @@ public class ItemControllerTest {
 
     @Test
     public void updateItemNotFound(){
-        var newPrice = 129.99;
+        var newPrice = 12999;
 
         webTestClient
             .put()
@@ -183,4 +238,202 @@ public class ItemControllerTest {
             .expectBody(Void.class);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getItemsByPriceRange(){
+        webTestClient
+            .get()
+            .uri("/items?minPrice={min}&maxPrice={max}&sort=price,asc", 300, 400)
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].price").isEqualTo(329.99)
+                .jsonPath("$[1].price").isEqualTo(349.99)
+                .jsonPath("$[2].price").isEqualTo(399.99);
+    }
+
+    @Test
+    public void getItemsByPriceRangeDescending(){
+        webTestClient
+            .get()
+            .uri("/items?maxPrice={max}&sort=price,desc&limit=2", 400)
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].price").isEqualTo(399.99)
+                .jsonPath("$[1].price").isEqualTo(349.99);
+    }
+
+    @Test
+    public void getItemsByPriceRangeWithCursor(){
+        var firstPage = webTestClient
+            .get()
+            .uri("/items?sort=price,asc&limit=2")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBodyList(Item.class)
+                .hasSize(2)
+            .returnResult()
+            .getResponseBody();
+
+        var last = firstPage.get(1);
+
+        webTestClient
+            .get()
+            .uri("/items?sort=price,asc&limit=2&cursorPrice={price}&cursorId={id}", Prices.format(last.getPrice()), last.getId())
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].price").isEqualTo(349.99)
+                .jsonPath("$[1].price").isEqualTo(399.99);
+    }
+
+    @Test
+    public void getItemsUnsupportedSort(){
+        webTestClient
+            .get()
+            .uri("/items?sort=description,asc")
+            .exchange()
+            .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    public void getItemsNonPositiveLimit(){
+        webTestClient
+            .get()
+            .uri("/items?sort=price&limit=0")
+            .exchange()
+            .expectStatus()
+                .isBadRequest();
+
+        webTestClient
+            .get()
+            .uri("/items?sort=price&limit=-1")
+            .exchange()
+            .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    public void getOneItemNotModified(){
+        var etag = webTestClient
+            .get()
+            .uri("/items/{id}","ABC")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "\"0\"")
+            .returnResult(Item.class)
+            .getResponseHeaders()
+            .getETag();
+
+        webTestClient
+            .get()
+            .uri("/items/{id}","ABC")
+            .ifNoneMatch(etag)
+            .exchange()
+            .expectStatus()
+                .isNotModified()
+            .expectBody()
+                .isEmpty();
+    }
+
+    @Test
+    public void getOneItemModifiedSinceETag(){
+        itemRepository.findById("ABC")
+                .flatMap(item -> {
+                    item.setPrice(12999);
+                    return itemRepository.save(item);
+                })
+                .block();
+
+        webTestClient
+            .get()
+            .uri("/items/{id}","ABC")
+            .ifNoneMatch("\"0\"")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "\"1\"")
+            .expectBody()
+                .jsonPath("$.price").isEqualTo(129.99);
+    }
+
+    @Test
+    public void updateItemIfMatch(){
+        webTestClient
+            .put()
+            .uri("/items/{id}","ABC")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_MATCH, "\"0\"")
+            .body(Mono.just(new Item(null,"Beats HeadPhones", 12999)), Item.class)
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "\"1\"");
+
+        webTestClient
+            .put()
+            .uri("/items/{id}","ABC")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_MATCH, "\"0\"")
+            .body(Mono.just(new Item(null,"Beats HeadPhones", 9999)), Item.class)
+            .exchange()
+            .expectStatus()
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        StepVerifier
+                .create(itemRepository.findById("ABC"))
+                .expectNextMatches(item -> item.getPrice() == 12999)
+                .verifyComplete();
+    }
+
+    @Test
+    public void getItemsPageNotModified(){
+        var etag = webTestClient
+            .get()
+            .uri("/items?sort=price,asc&limit=2")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .returnResult(Item.class)
+            .getResponseHeaders()
+            .getETag();
+
+        webTestClient
+            .get()
+            .uri("/items?sort=price,asc&limit=2")
+            .ifNoneMatch(etag)
+            .exchange()
+            .expectStatus()
+                .isNotModified();
+
+        itemRepository.findById("ABC")
+                .flatMap(item -> {
+                    item.setDescription("Beats Studio");
+                    return itemRepository.save(item);
+                })
+                .block();
+
+        webTestClient
+            .get()
+            .uri("/items?sort=price,asc&limit=2")
+            .ifNoneMatch(etag)
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBody()
+                .jsonPath("$[0].description").isEqualTo("Beats Studio");
+    }
+
+}
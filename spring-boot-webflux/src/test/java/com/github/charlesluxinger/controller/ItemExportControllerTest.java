@@ -0,0 +1,103 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@DirtiesContext
+@AutoConfigureWebTestClient
+public class ItemExportControllerTest {
+
+    private static final int ITEMS = 5_000;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Before
+    public void setUp(){
+        itemRepository.deleteAll()
+                .thenMany(Flux.range(0, ITEMS).map(i -> new Item(null, "Item, number " + i, i * 150)))
+                .buffer(1_000)
+                .concatMap(itemRepository::saveAll)
+                .blockLast();
+    }
+
+    @Test
+    public void exportNdjson() throws IOException {
+        var body = webTestClient
+            .get()
+            .uri("/items/export?format=ndjson")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectHeader()
+                .valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+
+        var lines = gunzip(body).split("\n");
+        assertEquals(ITEMS, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":"));
+    }
+
+    @Test
+    public void exportCsv() throws IOException {
+        var body = webTestClient
+            .get()
+            .uri("/items/export?format=csv")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectHeader()
+                .valueEquals(HttpHeaders.CONTENT_TYPE, "text/csv")
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+
+        var lines = gunzip(body).split("\n");
+        assertEquals(ITEMS + 1, lines.length);
+        assertEquals("id,description,price", lines[0]);
+        assertTrue(lines[1].contains(",\"Item, number "));
+    }
+
+    @Test
+    public void exportUnknownFormat(){
+        webTestClient
+            .get()
+            .uri("/items/export?format=xml")
+            .exchange()
+            .expectStatus()
+                .isBadRequest();
+    }
+
+    private String gunzip(byte[] bytes) throws IOException {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.bulk.ItemPatchResult;
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.ItemPatch;
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+@SpringBootTest(properties = "item-bulk-patch.batch-size=2")
+@RunWith(SpringRunner.class)
+@DirtiesContext
+@AutoConfigureWebTestClient
+public class ItemPatchControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Before
+    public void setUp() {
+        itemRepository.deleteAll()
+                .thenMany(Flux.just(new Item("A", "Samsung TV", 39999),
+                        new Item("B", "LG TV", 32999),
+                        new Item("C", "Apple Watch", 34999)))
+                .flatMap(itemRepository::save)
+                .blockLast();
+    }
+
+    @Test
+    public void patchItems() {
+        var results = patch(List.of(
+                new ItemPatch("A", 29999L, null),
+                new ItemPatch("B", null, "LG OLED TV"),
+                new ItemPatch("C", 34999L, null),
+                new ItemPatch("D", 100L, null)));
+
+        assertEquals(Map.of("A", ItemPatchResult.Status.MODIFIED,
+                "B", ItemPatchResult.Status.MODIFIED,
+                "C", ItemPatchResult.Status.MATCHED,
+                "D", ItemPatchResult.Status.NOT_FOUND), results);
+
+        StepVerifier.create(itemRepository.findById("A"))
+                .expectNextMatches(item -> item.getPrice() == 29999
+                        && item.getDescription().equals("Samsung TV")
+                        && item.getVersion() == 1)
+                .verifyComplete();
+        StepVerifier.create(itemRepository.findById("B"))
+                .expectNextMatches(item -> item.getPrice() == 32999 && item.getDescription().equals("LG OLED TV"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void patchesOfOneIdApplyInOrder() {
+        var patches = IntStream.rangeClosed(1, 9)
+                .mapToObj(i -> new ItemPatch("A", (long) i, null))
+                .collect(Collectors.toList());
+
+        patch(patches);
+
+        StepVerifier.create(itemRepository.findById("A"))
+                .expectNextMatches(item -> item.getPrice() == 9)
+                .verifyComplete();
+    }
+
+    private Map<String, ItemPatchResult.Status> patch(List<ItemPatch> patches) {
+        return webTestClient
+                .patch()
+                .uri("/items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .bodyValue(patches)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(ItemPatchResult.class)
+                .getResponseBody()
+                .collectMap(ItemPatchResult::getId, ItemPatchResult::getStatus)
+                .block();
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.ItemPatch;
+import com.github.charlesluxinger.document.PriceBucket;
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@SpringBootTest(properties = "item-price-history.bucket-capacity=2")
+@RunWith(SpringRunner.class)
+@DirtiesContext
+@AutoConfigureWebTestClient
+public class ItemPriceHistoryControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Before
+    public void setUp() {
+        mongoTemplate.dropCollection(PriceBucket.class)
+                .then(itemRepository.deleteAll())
+                .thenMany(Flux.just(new Item("A", "Samsung TV", 39999)))
+                .flatMap(itemRepository::save)
+                .blockLast();
+    }
+
+    @Test
+    public void recordsPriceChangesFromUpdatesAndPatches() {
+        update(new Item("A", "Samsung TV", 34999));
+        update(new Item("A", "Samsung QLED TV", 34999));
+        update(new Item("A", "Samsung QLED TV", 29999));
+        webTestClient.patch()
+                .uri("/items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(new ItemPatch("A", 24999L, null)))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseBody()
+                .blockLast();
+
+        // the description-only update left no trace, the rest spilled over into a second bucket
+        StepVerifier.create(mongoTemplate.count(new Query(), PriceBucket.class))
+                .expectNext(2L)
+                .verifyComplete();
+
+        var to = Instant.now().plus(1, ChronoUnit.MINUTES);
+        webTestClient.get()
+                .uri("/items/A/prices?from={from}&to={to}&step=1d", to.minus(1, ChronoUnit.DAYS), to)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].count").isEqualTo(3)
+                .jsonPath("$[0].min").isEqualTo(249.99)
+                .jsonPath("$[0].max").isEqualTo(349.99)
+                .jsonPath("$[0].last").isEqualTo(249.99);
+    }
+
+    @Test
+    public void rejectsTooFineSteps() {
+        webTestClient.get()
+                .uri("/items/A/prices?step=1ms")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private void update(Item item) {
+        webTestClient.put()
+                .uri("/items/{id}", item.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(item)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+}
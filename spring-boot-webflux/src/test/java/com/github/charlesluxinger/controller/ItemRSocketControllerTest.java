@@ -0,0 +1,140 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import com.github.charlesluxinger.rsocket.ItemRangeRequest;
+import com.github.charlesluxinger.rsocket.ItemSearchRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.rsocket.context.LocalRSocketServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.rsocket.server.port=0", "item-rsocket.stream-idle-timeout=1s"})
+@RunWith(SpringRunner.class)
+@DirtiesContext
+public class ItemRSocketControllerTest {
+
+    @Autowired
+    private RSocketRequester.Builder requesterBuilder;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @LocalRSocketServerPort
+    private int rsocketPort;
+
+    @LocalServerPort
+    private int httpPort;
+
+    private RSocketRequester requester;
+
+    @Before
+    public void setUp() {
+        itemRepository.deleteAll()
+                .thenMany(Flux.just(new Item(null, "Samsung TV", 39999),
+                        new Item(null, "LG TV", 32999),
+                        new Item(null, "Apple Watch", 34999),
+                        new Item("ABC", "Beats HeadPhones", 14999)))
+                .flatMap(itemRepository::save)
+                .blockLast();
+        requester = requesterBuilder.connectTcp("localhost", rsocketPort).block();
+    }
+
+    @After
+    public void tearDown() {
+        requester.rsocket().dispose();
+    }
+
+    @Test
+    public void getOneItem() {
+        StepVerifier.create(requester.route("items.get.{id}", "ABC").retrieveMono(Item.class))
+                .expectNextMatches(item -> item.getDescription().equals("Beats HeadPhones"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getOneItem_notFound() {
+        StepVerifier.create(requester.route("items.get.{id}", "DEF").retrieveMono(Item.class))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getAllItems() {
+        StepVerifier.create(requester.route("items.list").retrieveFlux(Item.class))
+                .expectNextCount(4)
+                .verifyComplete();
+    }
+
+    @Test
+    public void getItemsByPriceRange() {
+        StepVerifier.create(requester.route("items.range")
+                        .data(new ItemRangeRequest(new BigDecimal("300"), new BigDecimal("399.99")))
+                        .retrieveFlux(Item.class)
+                        .map(Item::getPrice))
+                .expectNext(32999L, 34999L, 39999L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void getAllItemsOnDemand() {
+        StepVerifier.create(requester.route("items.list").retrieveFlux(Item.class), 1)
+                .expectNextCount(1)
+                .thenRequest(3)
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void endsStalledStreams() {
+        StepVerifier.create(requester.route("items.list").retrieveFlux(Item.class), 1)
+                .expectNextCount(1)
+                .expectErrorMatches(error -> error.getMessage().startsWith("No item requested for 1000ms"))
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void searchByText() {
+        StepVerifier.create(requester.route("items.search")
+                        .data(new ItemSearchRequest("TV", 10))
+                        .retrieveFlux(Item.class))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void upsertItems() {
+        var items = Flux.just(new Item("ABC", "Beats Studio", 19999), new Item("XYZ", "Bose QC", 29999));
+
+        StepVerifier.create(requester.route("items.upsert").data(items).retrieveFlux(Item.class))
+                .expectNextMatches(item -> item.getId().equals("ABC") && item.getPrice() == 19999 && item.getVersion() == 1)
+                .expectNextMatches(item -> item.getId().equals("XYZ") && item.getVersion() == 0)
+                .verifyComplete();
+    }
+
+    @Test
+    public void getOneItemOverWebSocket() {
+        var webSocket = requesterBuilder.connectWebSocket(URI.create("ws://localhost:" + httpPort + "/rsocket")).block();
+        try {
+            StepVerifier.create(webSocket.route("items.get.{id}", "ABC").retrieveMono(Item.class))
+                    .expectNextMatches(item -> item.getDescription().equals("Beats HeadPhones"))
+                    .verifyComplete();
+        } finally {
+            webSocket.rsocket().dispose();
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.github.charlesluxinger.controller;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@DirtiesContext
+@AutoConfigureWebTestClient
+public class ItemSearchControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    public List<Item> data() {
+        return List.of(new Item(null, "Samsung TV", 39999),
+                new Item(null, "LG TV", 32999),
+                new Item(null, "Apple Watch", 34999),
+                new Item(null, "Apple TV Apple Remote", 9999),
+                new Item("ABC", "Beats HeadPhones", 14999));
+    }
+
+    @Before
+    public void setUp(){
+        itemRepository.deleteAll()
+                .thenMany(Flux.fromIterable(data()))
+                .concatMap(itemRepository::save)
+                .blockLast();
+    }
+
+    @Test
+    public void searchByTextRanksByRelevance(){
+        webTestClient
+            .get()
+            .uri("/items/search/text?q={q}", "apple")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].description").isEqualTo("Apple TV Apple Remote")
+                .jsonPath("$[1].description").isEqualTo("Apple Watch");
+    }
+
+    @Test
+    public void suggestByWordPrefix(){
+        webTestClient
+            .get()
+            .uri("/items/suggest?prefix={prefix}", "app")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0]").isEqualTo("Apple TV Apple Remote")
+                .jsonPath("$[1]").isEqualTo("Apple Watch");
+    }
+
+    @Test
+    public void suggestFollowsWrites(){
+        webTestClient
+            .post()
+            .uri("/items")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Mono.just(new Item("DEF", "Iphone X", 99999)), Item.class)
+            .exchange()
+            .expectStatus()
+                .isCreated();
+
+        webTestClient
+            .get()
+            .uri("/items/suggest?prefix={prefix}", "iph")
+            .exchange()
+            .expectBody()
+                .jsonPath("$[0]").isEqualTo("Iphone X");
+
+        webTestClient
+            .put()
+            .uri("/items/{id}", "DEF")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Mono.just(new Item(null, "Pixel 5", 69999)), Item.class)
+            .exchange()
+            .expectStatus()
+                .isOk();
+
+        webTestClient
+            .get()
+            .uri("/items/suggest?prefix={prefix}", "iph")
+            .exchange()
+            .expectBody()
+                .jsonPath("$.length()").isEqualTo(0);
+
+        webTestClient
+            .delete()
+            .uri("/items/{id}", "DEF")
+            .exchange()
+            .expectStatus()
+                .isNoContent();
+
+        webTestClient
+            .get()
+            .uri("/items/suggest?prefix={prefix}", "pix")
+            .exchange()
+            .expectBody()
+                .jsonPath("$.length()").isEqualTo(0);
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.github.charlesluxinger.deadline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DeadlineFilter filter() {
+        var properties = new DeadlineProperties();
+        properties.setMaxTimeout(Duration.ofSeconds(2));
+        properties.getRoutes().put("/items/search/**", Duration.ofSeconds(1));
+        return new DeadlineFilter(properties, meterRegistry);
+    }
+
+    @Test
+    public void headerWinsOverRouteDefault() {
+        var request = MockServerHttpRequest.get("/items/search/text").header("X-Request-Timeout", "200").build();
+
+        assertEquals(Duration.ofMillis(200), filter().timeoutOf(request));
+    }
+
+    @Test
+    public void headerAcceptsDurations() {
+        var request = MockServerHttpRequest.get("/items/ABC").header("X-Request-Timeout", "150ms").build();
+
+        assertEquals(Duration.ofMillis(150), filter().timeoutOf(request));
+    }
+
+    @Test
+    public void headerIsCapped() {
+        var request = MockServerHttpRequest.get("/items/ABC").header("X-Request-Timeout", "1h").build();
+
+        assertEquals(Duration.ofSeconds(2), filter().timeoutOf(request));
+    }
+
+    @Test
+    public void routeDefaultWithoutHeader() {
+        assertEquals(Duration.ofSeconds(1), filter().timeoutOf(MockServerHttpRequest.get("/items/search/text").build()));
+        assertEquals(Duration.ofSeconds(1), filter().timeoutOf(MockServerHttpRequest.get("/items/search/text")
+                .header("X-Request-Timeout", "soon").build()));
+        assertNull(filter().timeoutOf(MockServerHttpRequest.get("/items").build()));
+    }
+
+    @Test
+    public void putsDeadlineInContext() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/items/ABC").header("X-Request-Timeout", "500").build());
+        var seen = new AtomicReference<Duration>();
+
+        StepVerifier.create(filter().filter(exchange, ex -> Mono.subscriberContext()
+                        .doOnNext(context -> seen.set(Deadline.from(context).orElseThrow().remaining()))
+                        .then()))
+                .verifyComplete();
+
+        assertTrue(seen.get().compareTo(Duration.ZERO) > 0 && seen.get().compareTo(Duration.ofMillis(500)) <= 0);
+    }
+
+    @Test
+    public void cancelsExchangeOnDeadline() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/items/ABC").header("X-Request-Timeout", "50").build());
+        var cancelled = new AtomicBoolean();
+
+        StepVerifier.create(filter().filter(exchange, ex -> Mono.<Void>never().doOnCancel(() -> cancelled.set(true))))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(cancelled.get());
+        assertEquals(1.0, meterRegistry.get("items.deadline.exceeded").tag("stage", "request").counter().count(), 0);
+    }
+
+}
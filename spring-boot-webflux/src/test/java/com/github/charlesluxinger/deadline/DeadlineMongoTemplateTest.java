@@ -0,0 +1,118 @@
+package com.github.charlesluxinger.deadline;
+
+import com.github.charlesluxinger.document.Item;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineMongoTemplateTest {
+
+    /**
+     * maxTime values, in milliseconds, set on find publishers and count options handed to the stand-in driver.
+     */
+    private final List<Long> maxTimes = new CopyOnWriteArrayList<>();
+
+    private DeadlineMongoTemplate template() {
+        var client = stub(MongoClient.class);
+        var converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        return new DeadlineMongoTemplate(new SimpleReactiveMongoDatabaseFactory(client, "test"), converter);
+    }
+
+    @Test
+    public void findsGetRemainingDeadlineAsMaxTime() {
+        StepVerifier.create(template().find(new Query(), Item.class)
+                        .subscriberContext(Deadline.in(Duration.ofMillis(300))::putIn))
+                .verifyComplete();
+
+        assertEquals(1, maxTimes.size());
+        assertTrue("maxTime " + maxTimes, maxTimes.get(0) > 0 && maxTimes.get(0) <= 300);
+    }
+
+    @Test
+    public void countsGetRemainingDeadlineAsMaxTime() {
+        StepVerifier.create(template().count(new Query(), Item.class)
+                        .subscriberContext(Deadline.in(Duration.ofMillis(300))::putIn))
+                .expectNext(0L)
+                .verifyComplete();
+
+        assertEquals(1, maxTimes.size());
+        assertTrue("maxTime " + maxTimes, maxTimes.get(0) > 0 && maxTimes.get(0) <= 300);
+    }
+
+    @Test
+    public void noDeadlineNoMaxTime() {
+        StepVerifier.create(template().find(new Query(), Item.class)).verifyComplete();
+
+        assertTrue(maxTimes.isEmpty());
+    }
+
+    /**
+     * Stand-in for the driver: client, database, collection and find publisher answering everything with
+     * themselves or nothing, and recording {@code maxTime}.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("maxTime")) {
+                maxTimes.add(TimeUnit.MILLISECONDS.convert((Long) args[0], (TimeUnit) args[1]));
+            }
+            if (args != null) {
+                for (var arg : args) {
+                    if (arg instanceof CountOptions && ((CountOptions) arg).getMaxTime(TimeUnit.MILLISECONDS) > 0) {
+                        maxTimes.add(((CountOptions) arg).getMaxTime(TimeUnit.MILLISECONDS));
+                    }
+                }
+            }
+            if (method.getName().equals("subscribe")) {
+                Flux.empty().subscribe((Subscriber<Object>) args[0]);
+                return null;
+            }
+
+            var returnType = method.getReturnType();
+            if (returnType.isInstance(proxy)) {
+                return proxy;
+            }
+            if (returnType == MongoDatabase.class || returnType == MongoCollection.class || returnType == FindPublisher.class) {
+                return stub(returnType);
+            }
+            if (returnType == CodecRegistry.class) {
+                return MongoClientSettings.getDefaultCodecRegistry();
+            }
+            if (returnType == Publisher.class) {
+                return method.getName().startsWith("count") ? Mono.just(0L) : Mono.empty();
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.github.charlesluxinger.deadline;
+
+import com.github.charlesluxinger.repository.ItemRepository;
+import com.mongodb.MongoExecutionTimeoutException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.dao.QueryTimeoutException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineRepositoryDecoratorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DeadlineRepositoryDecorator decorator = new DeadlineRepositoryDecorator(meterRegistry);
+
+    private static Method method(String name) {
+        for (var method : ItemRepository.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private double exceeded(String stage) {
+        var counter = meterRegistry.find("items.deadline.exceeded").tag("stage", stage).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    public void withoutDeadlineIsPassThrough() {
+        StepVerifier.create(decorator.decorate(method("findById"), Mono.delay(Duration.ofMillis(50)).thenReturn("item")))
+                .expectNext("item")
+                .verifyComplete();
+    }
+
+    @Test
+    public void cancelsCallWhenDeadlinePasses() {
+        var cancelled = new AtomicBoolean();
+        var call = Mono.never().doOnCancel(() -> cancelled.set(true));
+
+        StepVerifier.create(decorator.decorate(method("findById"), call)
+                        .subscriberContext(Deadline.in(Duration.ofMillis(50))::putIn))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(cancelled.get());
+        assertEquals(1.0, exceeded("repository"), 0);
+    }
+
+    @Test
+    public void expiredDeadlineSkipsCall() {
+        var subscribed = new AtomicInteger();
+        var call = Mono.just("item").doOnSubscribe(s -> subscribed.incrementAndGet());
+
+        StepVerifier.create(decorator.decorate(method("findById"), call)
+                        .subscriberContext(Deadline.in(Duration.ZERO)::putIn))
+                .expectError(DeadlineExceededException.class)
+                .verify();
+
+        assertEquals(0, subscribed.get());
+    }
+
+    @Test
+    public void boundsWholeStreamNotEachElement() {
+        // every element comes within 30ms, the stream as a whole takes 3s
+        var call = Flux.interval(Duration.ofMillis(30)).take(100);
+
+        StepVerifier.create(decorator.decorate(method("findAll"), call)
+                        .subscriberContext(Deadline.in(Duration.ofMillis(200))::putIn))
+                .thenConsumeWhile(element -> true)
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    public void streamEndingInTimeCompletes() {
+        StepVerifier.create(decorator.decorate(method("findAll"), Flux.range(0, 10))
+                        .subscriberContext(Deadline.in(Duration.ofSeconds(5))::putIn))
+                .expectNextCount(10)
+                .verifyComplete();
+    }
+
+    @Test
+    public void mongoMaxTimeIsReportedAsDeadline() {
+        var mongoTimeout = new QueryTimeoutException("operation exceeded time limit",
+                new MongoExecutionTimeoutException(50, "operation exceeded time limit"));
+
+        StepVerifier.create(decorator.decorate(method("findById"), Mono.error(mongoTimeout))
+                        .subscriberContext(Deadline.in(Duration.ofSeconds(5))::putIn))
+                .expectError(DeadlineExceededException.class)
+                .verify();
+
+        assertEquals(1.0, exceeded("mongo"), 0);
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.github.charlesluxinger.diagnostics;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cost of each {@link DiagnosticsMode}, on controller requests and on an operator-heavy in-memory
+ * pipeline where assembly dominates. The agent cannot be removed, so it is measured last, and the test
+ * only runs with {@code mvn test -Dbenchmarks}, in a JVM of its own.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@DirtiesContext
+@AutoConfigureWebTestClient
+public class ReactorDiagnosticsBenchmarkTest {
+
+    private static final int WARMUP = 300;
+    private static final int REQUESTS = 1_000;
+    private static final int PIPELINES = 20_000;
+    private static final List<DiagnosticsMode> MODES = List.of(DiagnosticsMode.OFF, DiagnosticsMode.CHECKPOINT,
+            DiagnosticsMode.FULL, DiagnosticsMode.AGENT);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Before
+    public void setUp(){
+        itemRepository.deleteAll()
+                .thenMany(Flux.range(0, 50).map(i -> new Item(i == 0 ? "ABC" : null, "Item " + i, i * 1000)))
+                .concatMap(itemRepository::save)
+                .blockLast();
+    }
+
+    @After
+    public void tearDown(){
+        ReactorDiagnostics.install(DiagnosticsMode.OFF);
+    }
+
+    @Test
+    public void compareModes(){
+        requests(WARMUP * 3);
+        pipelines(PIPELINES);
+
+        System.out.println(String.format("%-10s %12s %10s %10s %14s", "mode", "requests/s", "p50 us", "p99 us", "pipelines/s"));
+
+        for (var mode : MODES) {
+            ReactorDiagnostics.install(mode);
+
+            requests(WARMUP);
+            var latencies = requests(REQUESTS);
+            var total = Arrays.stream(latencies).sum();
+
+            pipelines(PIPELINES / 10);
+            var start = System.nanoTime();
+            pipelines(PIPELINES);
+            var pipelineNanos = System.nanoTime() - start;
+
+            System.out.println(String.format("%-10s %12.0f %10d %10d %14.0f", mode,
+                    REQUESTS / (total / 1e9),
+                    latencies[REQUESTS / 2] / 1_000,
+                    latencies[REQUESTS * 99 / 100] / 1_000,
+                    PIPELINES / (pipelineNanos / 1e9)));
+        }
+
+        assertTrue(ReactorDiagnosticsTest.mentions(failure(), "ReactorDiagnosticsBenchmarkTest.java"));
+    }
+
+    private long[] requests(int count) {
+        var latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            var start = System.nanoTime();
+            if (i % 2 == 0) {
+                webTestClient.get().uri("/items/{id}", "ABC").exchange().expectStatus().isOk();
+            } else {
+                webTestClient.get().uri("/items?sort=price&limit=10").exchange().expectStatus().isOk();
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    /**
+     * Assembled in its own frame: the agent rewrites methods on their next invocation, not those already running.
+     */
+    private Throwable failure() {
+        return Mono.just(1).map(i -> i / 0).then(Mono.<Throwable>empty()).onErrorResume(Mono::just).block();
+    }
+
+    private void pipelines(int count) {
+        for (int i = 0; i < count; i++) {
+            Flux.range(0, 10)
+                    .map(n -> n + 1)
+                    .filter(n -> n % 3 != 0)
+                    .flatMap(n -> Mono.just(n * 2))
+                    .reduce(0, Integer::sum)
+                    .block();
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.github.charlesluxinger.diagnostics;
+
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReactorDiagnosticsTest {
+
+    private final DiagnosticsConfig config = new DiagnosticsConfig();
+
+    @After
+    public void tearDown(){
+        ReactorDiagnostics.install(DiagnosticsMode.OFF);
+    }
+
+    @Test
+    public void checkpointNamesRepositoryCall() throws NoSuchMethodException {
+        ReactorDiagnostics.install(DiagnosticsMode.CHECKPOINT);
+        var method = ItemRepository.class.getMethod("findVersionById", String.class);
+
+        StepVerifier
+                .create(config.checkpointRepositoryDecorator().decorate(method, Mono.error(new IllegalStateException("boom"))))
+                .expectErrorSatisfies(error -> assertTrue(mentions(error, "ItemRepository.findVersionById")))
+                .verify();
+    }
+
+    @Test
+    public void offLeavesErrorsUntouched() throws NoSuchMethodException {
+        var method = ItemRepository.class.getMethod("findByDescription", String.class);
+
+        StepVerifier
+                .create(config.checkpointRepositoryDecorator().decorate(method, Flux.error(new IllegalStateException("boom"))))
+                .expectErrorSatisfies(error -> assertFalse(mentions(error, "ItemRepository")))
+                .verify();
+    }
+
+    @Test
+    public void fullModeRecordsAssemblySite(){
+        ReactorDiagnostics.install(DiagnosticsMode.FULL);
+
+        StepVerifier
+                .create(Mono.just(1).map(i -> i / 0))
+                .expectErrorSatisfies(error -> assertTrue(mentions(error, "ReactorDiagnosticsTest.fullModeRecordsAssemblySite")))
+                .verify();
+    }
+
+    static boolean mentions(Throwable error, String text) {
+        return Arrays.stream(error.getSuppressed()).anyMatch(suppressed -> suppressed.getMessage().contains(text));
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.github.charlesluxinger.document;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+
+public class PricesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void writesCentsAsDecimal() throws Exception {
+        var json = objectMapper.writeValueAsString(new Item("A", "Samsung TV", 39999));
+
+        assertEquals("{\"id\":\"A\",\"description\":\"Samsung TV\",\"price\":399.99,\"version\":null}", json);
+        assertEquals("-0.05", Prices.format(-5));
+    }
+
+    @Test
+    public void readsDecimalsIntegersAndStrings() throws Exception {
+        assertEquals(14999, objectMapper.readValue("{\"price\":149.99}", Item.class).getPrice());
+        assertEquals(15000, objectMapper.readValue("{\"price\":150}", Item.class).getPrice());
+        assertEquals(15000, objectMapper.readValue("{\"price\":150.000}", Item.class).getPrice());
+        assertEquals(15010, objectMapper.readValue("{\"price\":\"150.1\"}", Item.class).getPrice());
+        assertEquals(0, objectMapper.readValue("{\"price\":0}", Item.class).getPrice());
+    }
+
+    @Test(expected = InvalidFormatException.class)
+    public void rejectsFractionsOfCents() throws Exception {
+        objectMapper.readValue("{\"price\":149.999}", Item.class);
+    }
+
+    @Test(expected = MismatchedInputException.class)
+    public void rejectsMissingPrice() throws Exception {
+        objectMapper.readValue("{\"description\":\"Samsung TV\"}", Item.class);
+    }
+
+    @Test(expected = ValueInstantiationException.class)
+    public void rejectsNullPrice() throws Exception {
+        objectMapper.readValue("{\"description\":\"Samsung TV\",\"price\":null}", Item.class);
+    }
+
+    @Test
+    public void roundsRangeBoundsInward() {
+        assertEquals(30000, Prices.ceilCents(new BigDecimal("299.991")));
+        assertEquals(29999, Prices.floorCents(new BigDecimal("299.999")));
+        assertEquals(Long.MAX_VALUE, Prices.floorCents(new BigDecimal("1e30")));
+        assertEquals(Long.MIN_VALUE, Prices.ceilCents(new BigDecimal("-1e30")));
+    }
+
+}
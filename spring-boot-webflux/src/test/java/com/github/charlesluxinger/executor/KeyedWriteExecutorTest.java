@@ -0,0 +1,179 @@
+package com.github.charlesluxinger.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyedWriteExecutorTest {
+
+    private KeyedWriteExecutor executor(int lanes, int queueCapacity) {
+        return executor(lanes, queueCapacity, Duration.ofSeconds(30));
+    }
+
+    private KeyedWriteExecutor executor(int lanes, int queueCapacity, Duration writeTimeout) {
+        var properties = new WriteExecutorProperties();
+        properties.setLanes(lanes);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setWriteTimeout(writeTimeout);
+        return new KeyedWriteExecutor(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void perKeyOrderUnderContention() throws InterruptedException {
+        var keys = 64;
+        var writesPerKey = 200;
+        var executor = executor(8, keys * writesPerKey);
+
+        var applied = new ConcurrentHashMap<String, List<Integer>>();
+        var inFlight = new ConcurrentHashMap<String, AtomicInteger>();
+        var overlaps = new AtomicInteger();
+        var maxParallel = new AtomicInteger();
+        var running = new AtomicInteger();
+        var done = new CountDownLatch(keys * writesPerKey);
+
+        var producers = new ArrayList<Thread>();
+        for (int k = 0; k < keys; k++) {
+            var key = "item-" + k;
+            applied.put(key, new ArrayList<>());
+            inFlight.put(key, new AtomicInteger());
+
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < writesPerKey; i++) {
+                    var sequence = i;
+                    executor.submit(key, () -> Mono.fromCallable(() -> {
+                                if (inFlight.get(key).incrementAndGet() > 1) {
+                                    overlaps.incrementAndGet();
+                                }
+                                maxParallel.accumulateAndGet(running.incrementAndGet(), Math::max);
+                                return sequence;
+                            })
+                            .delayElement(Duration.ofNanos(ThreadLocalRandom.current().nextInt(50_000)))
+                            .doOnNext(value -> {
+                                applied.get(key).add(value);
+                                running.decrementAndGet();
+                                inFlight.get(key).decrementAndGet();
+                            }))
+                            .doFinally(signal -> done.countDown())
+                            .subscribe();
+                }
+            }));
+        }
+
+        producers.forEach(Thread::start);
+        assertTrue("remaining " + done.getCount(), done.await(60, TimeUnit.SECONDS));
+
+        assertEquals(0, overlaps.get());
+        assertTrue("lanes should run in parallel", maxParallel.get() > 1);
+        applied.forEach((key, sequence) -> {
+            assertEquals(writesPerKey, sequence.size());
+            for (int i = 0; i < writesPerKey; i++) {
+                assertEquals(key, i, sequence.get(i).intValue());
+            }
+        });
+    }
+
+    @Test
+    public void synchronousWritesDoNotRecurse() {
+        var executor = executor(1, 100_000);
+
+        var count = Flux.range(0, 100_000)
+                .flatMap(i -> executor.submit("ABC", () -> Mono.just(i)))
+                .count();
+
+        StepVerifier
+                .create(count)
+                .expectNext(100_000L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void fullLaneRejects() {
+        var executor = executor(1, 1);
+
+        executor.submit("ABC", () -> Mono.never()).subscribe();
+        executor.submit("ABC", () -> Mono.just(1)).subscribe();
+
+        StepVerifier
+                .create(executor.submit("ABC", () -> Mono.just(2)))
+                .expectError(RejectedExecutionException.class)
+                .verify();
+    }
+
+    @Test
+    public void failedWriteReleasesLane() {
+        var executor = executor(1, 10);
+
+        StepVerifier
+                .create(executor.submit("ABC", () -> Mono.error(new IllegalStateException())))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        StepVerifier
+                .create(executor.submit("ABC", () -> Mono.just(1).subscribeOn(Schedulers.parallel())))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    public void cancelledWriteKeepsLaneUntilItEnds() {
+        var executor = executor(1, 10);
+        var stuck = TestPublisher.<Integer>create();
+
+        executor.submit("ABC", stuck::mono).subscribe().dispose();
+
+        stuck.assertNotCancelled();
+        StepVerifier
+                .create(executor.submit("ABC", () -> Mono.just(1)))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(200))
+                .then(stuck::complete)
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    public void timedOutWriteKeepsLaneUntilItEnds() {
+        var executor = executor(1, 10, Duration.ofMillis(100));
+        var stuck = TestPublisher.<Integer>create();
+
+        StepVerifier
+                .create(executor.submit("ABC", stuck::mono))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+
+        stuck.assertNotCancelled();
+        StepVerifier
+                .create(executor.submit("ABC", () -> Mono.just(1)))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(200))
+                .then(() -> stuck.error(new IllegalStateException()))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    public void sameKeySameLane() {
+        var executor = executor(16, 1);
+
+        assertEquals(executor.laneIndex("ABC"), executor.laneIndex(new String("ABC")));
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.github.charlesluxinger.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.charlesluxinger.document.Item;
+import org.junit.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Items encoded per second into gzipped NDJSON, over an export of {@link #ITEMS}. Only runs with
+ * {@code mvn test -Dbenchmarks}.
+ */
+public class ItemExportEncoderBenchmarkTest {
+
+    private static final int ITEMS = 500_000;
+    private static final int CHUNK_ITEMS = 500;
+
+    @Test
+    public void throughput() {
+        var chunk = items();
+        var encoder = new ItemExportEncoder(ExportFormat.NDJSON, new DefaultDataBufferFactory(), new ObjectMapper(), true);
+
+        var start = System.nanoTime();
+        long bytes = 0;
+        for (int i = 0; i < ITEMS / CHUNK_ITEMS; i++) {
+            bytes += encoder.encode(chunk).readableByteCount();
+        }
+        bytes += encoder.finish().readableByteCount();
+        encoder.close();
+        var seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Encoded %d items as gzip ndjson in %.2fs: %.0f items/s, %.1f MB compressed%n",
+                ITEMS, seconds, ITEMS / seconds, bytes / 1e6);
+    }
+
+    private List<Item> items() {
+        return IntStream.range(0, CHUNK_ITEMS)
+                .mapToObj(i -> new Item(Integer.toHexString(i * 7919), "Item description " + i, i * 150))
+                .collect(Collectors.toList());
+    }
+
+}
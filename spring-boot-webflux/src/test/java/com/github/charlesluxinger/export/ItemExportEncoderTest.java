@@ -0,0 +1,108 @@
+package com.github.charlesluxinger.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.charlesluxinger.document.Item;
+import org.junit.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ItemExportEncoderTest {
+
+    private static final int CHUNK_ITEMS = 500;
+    // a chunk's lines take at most about 80 bytes an item before compression, which cannot grow them much
+    private static final int MAX_CHUNK_BYTES = 64 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void ndjsonRoundTrip() throws IOException {
+        var encoder = new ItemExportEncoder(ExportFormat.NDJSON, new DefaultDataBufferFactory(), objectMapper, true);
+        var out = new ByteArrayOutputStream();
+
+        write(out, encoder.encode(List.of(new Item("A", "Samsung TV", 39999), new Item("B", "LG TV", 32999))));
+        write(out, encoder.encode(List.of(new Item("C", "Apple Watch", 34999))));
+        write(out, encoder.finish());
+        encoder.close();
+
+        var lines = gunzip(out.toByteArray()).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("C", objectMapper.readValue(lines[2], Item.class).getId());
+    }
+
+    @Test
+    public void csvEscapesDescriptions() throws IOException {
+        var encoder = new ItemExportEncoder(ExportFormat.CSV, new DefaultDataBufferFactory(), objectMapper, false);
+        var out = new ByteArrayOutputStream();
+
+        write(out, encoder.encode(List.of(new Item("A", "TV, 55\" \"OLED\"", 99900))));
+        write(out, encoder.finish());
+        encoder.close();
+
+        assertEquals("id,description,price\nA,\"TV, 55\"\" \"\"OLED\"\"\",999.00\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void emptyExportIsValidGzip() throws IOException {
+        var encoder = new ItemExportEncoder(ExportFormat.CSV, new DefaultDataBufferFactory(), objectMapper, true);
+        var out = new ByteArrayOutputStream();
+
+        write(out, encoder.finish());
+        encoder.close();
+
+        assertEquals("id,description,price\n", gunzip(out.toByteArray()));
+    }
+
+    @Test
+    public void chunkSizeDoesNotGrowWithExportSize() {
+        var encoder = new ItemExportEncoder(ExportFormat.NDJSON, new DefaultDataBufferFactory(), objectMapper, true);
+        var random = new Random(42);
+        var largest = 0;
+
+        for (int i = 0; i < 200_000 / CHUNK_ITEMS; i++) {
+            var chunk = encoder.encode(items(random, i * CHUNK_ITEMS));
+            largest = Math.max(largest, chunk.capacity());
+            DataBufferUtils.release(chunk);
+        }
+        encoder.finish();
+        encoder.close();
+
+        assertTrue("largest chunk " + largest + " bytes", largest <= MAX_CHUNK_BYTES);
+    }
+
+    /**
+     * Items whose descriptions do not repeat, so that the chunks compress no better as the export goes on.
+     */
+    private List<Item> items(Random random, int first) {
+        return IntStream.range(first, first + CHUNK_ITEMS)
+                .mapToObj(i -> new Item(Integer.toHexString(i), "Item " + Long.toString(random.nextLong(), 36), i * 150))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private void write(ByteArrayOutputStream out, DataBuffer buffer) {
+        var bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        out.writeBytes(bytes);
+    }
+
+    private String gunzip(byte[] bytes) throws IOException {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.github.charlesluxinger.hedging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HedgedReadsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HedgingProperties properties() {
+        var properties = new HedgingProperties();
+        properties.setEnabled(true);
+        properties.setDelay(Duration.ofMillis(100));
+        properties.setBudgetRatio(0.1);
+        properties.setBudgetBurst(2);
+        return properties;
+    }
+
+    /**
+     * Read answering with the given latencies, one per subscription, counting subscriptions and reads cancelled
+     * before they answered.
+     */
+    private static class ScriptedRead implements Supplier<Mono<String>> {
+
+        private final Queue<Duration> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger subscribed = new AtomicInteger();
+        private final AtomicInteger cancelled = new AtomicInteger();
+
+        ScriptedRead(Duration... latencies) {
+            this.latencies.addAll(Arrays.asList(latencies));
+        }
+
+        @Override
+        public Mono<String> get() {
+            return Mono.defer(() -> {
+                var attempt = subscribed.incrementAndGet();
+                var answered = new AtomicBoolean();
+                return Mono.delay(latencies.poll())
+                        .map(tick -> "read-" + attempt)
+                        .doOnNext(value -> answered.set(true))
+                        .doOnCancel(() -> {
+                            if (!answered.get()) {
+                                cancelled.incrementAndGet();
+                            }
+                        });
+            });
+        }
+    }
+
+    @Test
+    public void fastReadIsNotHedged() {
+        var hedgedReads = new HedgedReads(properties(), meterRegistry);
+        var read = new ScriptedRead(Duration.ofMillis(50));
+
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(read))
+                .thenAwait(Duration.ofMillis(50))
+                .expectNext("read-1")
+                .verifyComplete();
+
+        assertEquals(1, read.subscribed.get());
+        assertEquals(0.0, meterRegistry.get("items.read.hedge.issued").counter().count(), 0);
+    }
+
+    @Test
+    public void slowReadIsHedgedAndLoserCancelled() {
+        var hedgedReads = new HedgedReads(properties(), meterRegistry);
+        var read = new ScriptedRead(Duration.ofSeconds(2), Duration.ofMillis(20));
+
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(read))
+                .thenAwait(Duration.ofMillis(120))
+                .expectNext("read-2")
+                .verifyComplete();
+
+        assertEquals(2, read.subscribed.get());
+        assertEquals(1, read.cancelled.get());
+        assertEquals(1.0, meterRegistry.get("items.read.hedge.win-rate").gauge().value(), 0);
+        assertEquals(1.0, meterRegistry.get("items.read.hedge.rate").gauge().value(), 0);
+    }
+
+    @Test
+    public void primaryCanStillWinAfterHedging() {
+        var hedgedReads = new HedgedReads(properties(), meterRegistry);
+        var read = new ScriptedRead(Duration.ofMillis(150), Duration.ofSeconds(2));
+
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(read))
+                .thenAwait(Duration.ofMillis(150))
+                .expectNext("read-1")
+                .verifyComplete();
+
+        assertEquals(1, read.cancelled.get());
+        assertEquals(1.0, meterRegistry.get("items.read.hedge.issued").counter().count(), 0);
+        assertEquals(0.0, meterRegistry.get("items.read.hedge.wins").counter().count(), 0);
+    }
+
+    @Test
+    public void emptyAndErrorAnswersWinToo() {
+        var hedgedReads = new HedgedReads(properties(), meterRegistry);
+
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(Mono::<String>empty))
+                .verifyComplete();
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(() -> Mono.<String>error(new IllegalStateException())))
+                .verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    public void budgetCapsHedges() {
+        var hedgedReads = new HedgedReads(properties(), meterRegistry);
+
+        // the burst of 2 is spent, then one hedge per 10 reads
+        for (int i = 0; i < 40; i++) {
+            var read = new ScriptedRead(Duration.ofMillis(200), Duration.ofMillis(200));
+            StepVerifier.withVirtualTime(() -> hedgedReads.read(read))
+                    .thenAwait(Duration.ofMillis(200))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        var hedges = meterRegistry.get("items.read.hedge.issued").counter().count();
+        assertTrue("hedges " + hedges, hedges <= 2 + 40 * 0.1);
+        assertTrue("hedges " + hedges, hedges >= 4);
+    }
+
+    @Test
+    public void delayTracksLatencyPercentile() {
+        var properties = properties();
+        properties.setDelay(null);
+        properties.setMinDelay(Duration.ofMillis(1));
+        properties.setLatencySamples(64);
+        var hedgedReads = new HedgedReads(properties, meterRegistry);
+        assertEquals(Duration.ofMillis(1), hedgedReads.delay());
+
+        // 95 reads of 10ms and 5 of 1s: the 95th percentile is 10ms
+        for (int i = 0; i < 100; i++) {
+            var latency = i % 20 == 0 ? Duration.ofSeconds(1) : Duration.ofMillis(10);
+            var read = new ScriptedRead(latency, latency);
+            StepVerifier.withVirtualTime(() -> hedgedReads.read(read))
+                    .thenAwait(Duration.ofSeconds(2))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        var delay = hedgedReads.delay();
+        assertTrue("delay " + delay, delay.compareTo(Duration.ofMillis(10)) >= 0 && delay.compareTo(Duration.ofMillis(100)) < 0);
+    }
+
+    @Test
+    public void disabledIsPassThrough() {
+        var properties = properties();
+        properties.setEnabled(false);
+        var hedgedReads = new HedgedReads(properties, meterRegistry);
+        var read = new ScriptedRead(Duration.ofSeconds(2));
+
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(read))
+                .thenAwait(Duration.ofSeconds(2))
+                .expectNext("read-1")
+                .verifyComplete();
+
+        assertEquals(1, read.subscribed.get());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.github.charlesluxinger.history;
+
+import com.github.charlesluxinger.document.PriceBucket;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class PriceDownsamplerTest {
+
+    private static final Instant FROM = Instant.parse("2020-08-01T00:00:00Z");
+
+    private static Instant at(int minutes) {
+        return FROM.plus(Duration.ofMinutes(minutes));
+    }
+
+    private static PriceDownsampler hourly(int hours) {
+        return new PriceDownsampler(FROM, FROM.plus(Duration.ofHours(hours)), Duration.ofHours(1), 100);
+    }
+
+    @Test
+    public void aggregatesPerStep() {
+        var downsampler = hourly(3);
+        downsampler.add(new PriceBucket("1", "A", FROM, 4,
+                List.of(at(10), at(50), at(20), at(130)),
+                List.of(1000L, 3000L, 2001L, 500L)));
+
+        var steps = downsampler.steps();
+
+        assertEquals(2, steps.size());
+        var first = steps.get(0);
+        assertEquals(FROM, first.getStart());
+        assertEquals(3, first.getCount());
+        assertEquals(1000, first.getMin());
+        assertEquals(3000, first.getMax());
+        assertEquals(2000, first.getAvg());
+        assertEquals(3000, first.getLast());
+
+        var third = steps.get(1);
+        assertEquals(at(120), third.getStart());
+        assertEquals(500, third.getLast());
+    }
+
+    @Test
+    public void mergesBucketsReadInAnyOrder() {
+        var downsampler = hourly(1);
+        downsampler.add(new PriceBucket("2", "A", FROM, 1, List.of(at(40)), List.of(200L)));
+        downsampler.add(new PriceBucket("1", "A", FROM, 1, List.of(at(5)), List.of(100L)));
+
+        var step = downsampler.steps().get(0);
+
+        assertEquals(2, step.getCount());
+        assertEquals(200, step.getLast());
+    }
+
+    @Test
+    public void skipsChangesOutsideTheRange() {
+        var downsampler = hourly(1);
+        downsampler.add(new PriceBucket("1", "A", FROM.minus(Duration.ofDays(1)), 3,
+                List.of(at(-1), at(30), at(60)),
+                List.of(1L, 2L, 3L)));
+
+        var steps = downsampler.steps();
+
+        assertEquals(1, steps.size());
+        assertEquals(2, steps.get(0).getLast());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManySteps() {
+        new PriceDownsampler(FROM, FROM.plus(Duration.ofDays(365)), Duration.ofMinutes(1), 10_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyRange() {
+        new PriceDownsampler(FROM, FROM, Duration.ofHours(1), 100);
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.github.charlesluxinger.idfilter;
+
+import com.github.charlesluxinger.changes.ItemChanges;
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@SpringBootTest(properties = {"item-id-filter.enabled=true", "item-id-filter.change-stream=false",
+        "item-id-filter.rebuild-interval=1h", "item-id-filter.rebuild-ratio=0.2"})
+@RunWith(SpringRunner.class)
+@DirtiesContext
+@AutoConfigureWebTestClient
+public class ItemIdFilterTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private ItemIdFilter itemIdFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public List<Item> data() {
+        return List.of(new Item(null, "Samsung TV", 39999),
+                new Item(null, "LG TV", 32999),
+                new Item(null, "Apple Watch", 34999),
+                new Item("ABC", "Beats HeadPhones", 14999));
+    }
+
+    @Before
+    public void setUp(){
+        itemRepository.deleteAll()
+                .thenMany(Flux.fromIterable(data()))
+                .concatMap(itemRepository::save)
+                .then(itemIdFilter.rebuild())
+                .block();
+    }
+
+    @Test
+    public void answersNeverStoredIdsWithoutMongo(){
+        var avoided = meterRegistry.counter("items.idfilter.avoided").count();
+
+        webTestClient
+            .get()
+            .uri("/items/{id}", "never-stored")
+            .exchange()
+            .expectStatus()
+                .isNotFound();
+
+        assertEquals(avoided + 1, meterRegistry.counter("items.idfilter.avoided").count(), 0);
+
+        webTestClient
+            .get()
+            .uri("/items/{id}", "ABC")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBody()
+                .jsonPath("$.description").isEqualTo("Beats HeadPhones");
+    }
+
+    @Test
+    public void findsItemsSavedAfterTheBuild(){
+        var saved = itemRepository.save(new Item(null, "Bose Speaker", 19999)).block();
+
+        webTestClient
+            .get()
+            .uri("/items/{id}", saved.getId())
+            .exchange()
+            .expectStatus()
+                .isOk();
+    }
+
+    @Test
+    public void rebuildsOnceDeletesPassTheRatio(){
+        assertTrue(itemIdFilter.mightExist("ABC"));
+
+        // one of four entries is past a 0.2 rebuild ratio
+        itemRepository.deleteById("ABC").block();
+
+        await(() -> !itemIdFilter.mightExist("ABC"));
+        assertTrue(itemIdFilter.mightExist(itemRepository.findAll().blockFirst().getId()));
+    }
+
+    @Test
+    public void resetLetsEverythingThroughUntilRebuilt(){
+        // written behind the filter's back, as a missed change stream event would be
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Item.class))
+                .flatMap(items -> Mono.from(items.insertOne(new Document("_id", "missed")
+                        .append("description", "Sony Headphones")
+                        .append("price", 9999L))))
+                .block();
+        assertFalse(itemIdFilter.mightExist("missed"));
+
+        itemIdFilter.apply(new ItemChanges(List.of(), true));
+        assertTrue(itemIdFilter.mightExist("never-stored"));
+
+        await(() -> !itemIdFilter.mightExist("never-stored"));
+        assertTrue(itemIdFilter.mightExist("missed"));
+    }
+
+    @Test
+    public void keepsIdsSavedDuringARebuild(){
+        var items = IntStream.range(0, 50)
+                .mapToObj(i -> new Item(null, "Item " + i, 1000 + i))
+                .collect(Collectors.toList());
+
+        var saved = Mono.when(itemIdFilter.rebuild(), Flux.fromIterable(items).concatMap(itemRepository::save))
+                .thenMany(itemRepository.findAll())
+                .collectList()
+                .block();
+
+        assertEquals(54, saved.size());
+        saved.forEach(item -> assertTrue(item.getId(), itemIdFilter.mightExist(item.getId())));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        Mono.fromSupplier(condition::getAsBoolean)
+                .filter(done -> done)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(10)))
+                .block(Duration.ofSeconds(5));
+    }
+
+}
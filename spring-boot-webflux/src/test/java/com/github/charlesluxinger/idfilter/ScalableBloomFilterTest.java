@@ -0,0 +1,65 @@
+package com.github.charlesluxinger.idfilter;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScalableBloomFilterTest {
+
+    private static List<String> ids(int count) {
+        var ids = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(new ObjectId().toHexString());
+        }
+        return ids;
+    }
+
+    private static double falsePositiveRate(ScalableBloomFilter filter, List<String> absent) {
+        return absent.stream().filter(filter::mightContain).count() / (double) absent.size();
+    }
+
+    @Test
+    public void neverMissesAnAddedId() {
+        var filter = new ScalableBloomFilter(1_000, 0.01);
+        var ids = ids(50_000);
+        ids.forEach(filter::add);
+
+        assertEquals(50_000, filter.count());
+        ids.forEach(id -> assertTrue(id, filter.mightContain(id)));
+    }
+
+    @Test
+    public void keepsFalsePositiveRateWhileGrowing() {
+        var filter = new ScalableBloomFilter(1_000, 0.01);
+        ids(100_000).forEach(filter::add);
+
+        var observed = falsePositiveRate(filter, ids(100_000));
+        assertTrue("observed " + observed, observed < 0.01);
+        assertTrue("expected " + filter.expectedFalsePositiveRate(), filter.expectedFalsePositiveRate() < 0.01);
+    }
+
+    @Test
+    public void emptyFilterContainsNothing() {
+        var filter = new ScalableBloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain("ABC"));
+        assertEquals(0, filter.expectedFalsePositiveRate(), 0);
+    }
+
+    @Test
+    public void concurrentAddsAreNotLost() {
+        var filter = new ScalableBloomFilter(100, 0.01);
+        var ids = ids(20_000);
+        IntStream.range(0, ids.size()).parallel().forEach(i -> filter.add(ids.get(i)));
+
+        ids.forEach(id -> assertTrue(id, filter.mightContain(id)));
+    }
+
+}
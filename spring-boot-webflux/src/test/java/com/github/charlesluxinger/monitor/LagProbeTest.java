@@ -0,0 +1,97 @@
+package com.github.charlesluxinger.monitor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LagProbeTest {
+
+    private static final long STACK_LOG_INTERVAL = Duration.ofSeconds(30).toNanos();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void recordsLagOfABlockedThread() throws Exception {
+        var probe = probe();
+        probe.start();
+        var thread = executor.submit(Thread::currentThread).get();
+        Thread.sleep(50);
+
+        var blocked = new CountDownLatch(1);
+        executor.execute(() -> sleep(300, blocked));
+        blocked.await();
+        Thread.sleep(250);
+
+        assertTrue(probe.overdue(System.nanoTime()) > TimeUnit.MILLISECONDS.toNanos(150));
+        assertTrue(probe.stalled(System.nanoTime(), STACK_LOG_INTERVAL));
+        assertFalse("the same stall is only reported once", probe.stalled(System.nanoTime(), STACK_LOG_INTERVAL));
+        assertSame(thread, probe.getThread());
+
+        Thread.sleep(100);
+        var lag = meterRegistry.get("scheduler.lag").tags("scheduler", "test", "thread", thread.getName()).timer();
+        assertTrue(lag.max(TimeUnit.MILLISECONDS) > 150);
+        assertEquals(1, meterRegistry.get("scheduler.stalls").counter().count(), 0);
+        // caught up, give or take the scheduling jitter of a 10ms interval
+        assertTrue(probe.overdue(System.nanoTime()) < TimeUnit.MILLISECONDS.toNanos(50));
+        probe.stop();
+    }
+
+    @Test
+    public void logsStacksAtMostOncePerInterval() throws Exception {
+        var probe = probe();
+        probe.start();
+        Thread.sleep(50);
+
+        var now = System.nanoTime();
+        assertTrue(probe.stalled(now, STACK_LOG_INTERVAL));
+        Thread.sleep(50);
+        assertFalse("a later stall within the interval is counted but not logged",
+                probe.stalled(now + TimeUnit.SECONDS.toNanos(1), STACK_LOG_INTERVAL));
+        Thread.sleep(50);
+        assertTrue(probe.stalled(now + STACK_LOG_INTERVAL, STACK_LOG_INTERVAL));
+        probe.stop();
+    }
+
+    @Test
+    public void unpinnedProbesHaveNoStackToLog() {
+        var probe = new LagProbe("test", "any", false, (task, delay) -> { }, meterRegistry, Duration.ofMillis(10));
+        probe.start();
+
+        assertFalse(probe.stalled(System.nanoTime(), STACK_LOG_INTERVAL));
+        assertNull(probe.getThread());
+        assertEquals(1, meterRegistry.get("scheduler.stalls").tags("thread", "any").counter().count(), 0);
+    }
+
+    private LagProbe probe() {
+        return new LagProbe("test", null, true, (task, delay) -> executor.schedule(task, delay, TimeUnit.NANOSECONDS),
+                meterRegistry, Duration.ofMillis(10));
+    }
+
+    private static void sleep(long millis, CountDownLatch started) {
+        started.countDown();
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -1,32 +1,59 @@
 package com.github.charlesluxinger.repository;
 
 import com.github.charlesluxinger.document.Item;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 @DataMongoTest
 @RunWith(SpringRunner.class)
 @DirtiesContext
 public class ItemRepositoryTest {
 
+    private static final JsonWriterSettings EXTENDED_JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
     @Autowired
     private ItemRepository itemRepository;
 
-    private final List<Item> itemList = Arrays.asList(new Item(null,"Samsung TV",400.0),
-            new Item(null,"LG TV",420.0),
-            new Item(null,"Apple Watch",299.99),
-            new Item("ABC","Bose Headphones",149.99));
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private FindRecorder findRecorder;
+
+    private final List<Item> itemList = Arrays.asList(new Item(null,"Samsung TV",40000),
+            new Item(null,"LG TV",42000),
+            new Item(null,"Apple Watch",29999),
+            new Item("ABC","Bose Headphones",14999));
 
     @Before
     public void setUp(){
@@ -67,7 +94,7 @@ public class ItemRepositoryTest {
 
     @Test
     public void saveItem(){
-        Mono<Item> savedItem = itemRepository.save(new Item(null,"Google Home Mini",30.00));
+        Mono<Item> savedItem = itemRepository.save(new Item(null,"Google Home Mini",3000));
 
         StepVerifier
             .create(savedItem)
@@ -81,7 +108,7 @@ public class ItemRepositoryTest {
         Flux<Item> updatedItem = itemRepository
                 .findByDescription("LG TV")
                 .map(item -> {
-                    item.setPrice(520.00);
+                    item.setPrice(52000);
                     return item;
                 })
                 .flatMap(itemRepository::save);
@@ -89,8 +116,123 @@ public class ItemRepositoryTest {
         StepVerifier
             .create(updatedItem)
             .expectSubscription()
-            .expectNextMatches(item -> item.getPrice() == 520.00)
+            .expectNextMatches(item -> item.getPrice() == 52000)
+            .verifyComplete();
+    }
+
+    @Test
+    public void saveIncrementsVersion(){
+        Mono<Item> updatedItem = itemRepository
+                .findById("ABC")
+                .flatMap(item -> {
+                    item.setPrice(15999);
+                    return itemRepository.save(item);
+                });
+
+        StepVerifier
+            .create(updatedItem.then(itemRepository.findVersionById("ABC")))
+            .expectSubscription()
+            .expectNextMatches(version -> version.getId().equals("ABC") && version.getVersion() == 1L)
+            .verifyComplete();
+    }
+
+    @Test
+    public void findByPriceRange(){
+        var pageable = PageRequest.of(0, 10, Sort.by("price", "id"));
+
+        StepVerifier
+            .create(itemRepository.findByPriceRange(20000, 41000, pageable))
+            .expectSubscription()
+            .expectNextMatches(item -> item.getPrice() == 29999)
+            .expectNextMatches(item -> item.getPrice() == 40000)
+            .verifyComplete();
+    }
+
+    @Test
+    public void findByPriceRangeAfter(){
+        var pageable = PageRequest.of(0, 10, Sort.by("price", "id"));
+
+        StepVerifier
+            .create(itemRepository.findByPriceRangeAfter(14999, 100000, 14999, "ABC", pageable))
+            .expectSubscription()
+            .expectNextMatches(item -> item.getPrice() == 29999)
+            .expectNextMatches(item -> item.getPrice() == 40000)
+            .expectNextMatches(item -> item.getPrice() == 42000)
+            .verifyComplete();
+    }
+
+    /**
+     * Explains the finds the repository actually sends, as recorded by {@link FindRecorder}, so that a change to a
+     * query, its sort or the index it relies on shows up here.
+     */
+    @Test
+    public void priceRangeUsesIndexWithoutBlockingSort(){
+        var ascending = Sort.by("price").and(Sort.by("id"));
+        var descending = Sort.by(Sort.Direction.DESC, "price").and(Sort.by(Sort.Direction.DESC, "id"));
+
+        assertIndexedWithoutSort(itemRepository.findByPriceRange(20000, 41000, PageRequest.of(0, 2, ascending)));
+        assertIndexedWithoutSort(itemRepository.findByPriceRangeAfter(29999, 41000, 29999, "ABC", PageRequest.of(0, 2, ascending)));
+        assertIndexedWithoutSort(itemRepository.findByPriceRangeBefore(20000, 40000, 40000, "ABC", PageRequest.of(0, 2, descending)));
+    }
+
+    private void assertIndexedWithoutSort(Flux<Item> query) {
+        findRecorder.finds.clear();
+        query.blockLast();
+        assertEquals(1, findRecorder.finds.size());
+
+        var explain = new BsonDocument("explain", findRecorder.finds.get(0)).append("verbosity", new BsonString("queryPlanner"));
+        StepVerifier
+            .create(mongoTemplate.executeCommand(explain.toJson(EXTENDED_JSON)))
+            .expectSubscription()
+            .assertNext(result -> {
+                var stages = new ArrayList<String>();
+                collectStages(result.get("queryPlanner", Document.class).get("winningPlan", Document.class), stages);
+
+                assertTrue(stages.toString(), stages.contains("IXSCAN"));
+                assertFalse(stages.toString(), stages.contains("SORT"));
+            })
             .verifyComplete();
     }
 
+    private void collectStages(Document plan, List<String> stages) {
+        stages.add(plan.getString("stage"));
+
+        var inputStage = plan.get("inputStage", Document.class);
+        if (inputStage != null) {
+            collectStages(inputStage, stages);
+        }
+
+        var inputStages = plan.getList("inputStages", Document.class);
+        if (inputStages != null) {
+            inputStages.forEach(stage -> collectStages(stage, stages));
+        }
+    }
+
+    /**
+     * Keeps the {@code find} commands sent on the item collection, without their session and cluster fields.
+     */
+    @TestConfiguration
+    static class FindRecorder implements CommandListener {
+
+        private final List<BsonDocument> finds = new CopyOnWriteArrayList<>();
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer recordFinds() {
+            return settings -> settings.addCommandListener(this);
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            var command = event.getCommand();
+            if (!event.getCommandName().equals("find") || !command.getString("find").getValue().equals("item")) {
+                return;
+            }
+
+            // a copy, as the command is read from a buffer the driver releases once it was sent
+            var find = BsonDocument.parse(command.toJson(EXTENDED_JSON));
+            find.keySet().removeIf(key -> key.startsWith("$") || key.equals("lsid"));
+            finds.add(find);
+        }
+    }
+
 }
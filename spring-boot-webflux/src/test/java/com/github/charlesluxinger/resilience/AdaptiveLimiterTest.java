@@ -0,0 +1,181 @@
+package com.github.charlesluxinger.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdaptiveLimiter limiter(int initialLimit, int minLimit, int maxLimit, int maxQueued) {
+        // no latency rise tolerated: the limit settles where capacity + sqrt(limit) fits, about 13.7 for 10
+        return limiter(initialLimit, minLimit, maxLimit, maxQueued, 1.0);
+    }
+
+    private AdaptiveLimiter limiter(int initialLimit, int minLimit, int maxLimit, int maxQueued, double tolerance) {
+        var properties = new ResilienceProperties.Limiter();
+        properties.setInitialLimit(initialLimit);
+        properties.setMinLimit(minLimit);
+        properties.setMaxLimit(maxLimit);
+        properties.setMaxQueued(maxQueued);
+        properties.setMinRttWindow(Duration.ofMinutes(1));
+        properties.setTolerance(tolerance);
+        return new AdaptiveLimiter("test", properties, meterRegistry);
+    }
+
+    @Test
+    public void queuesOverLimitAndRejectsPastMaxQueued() {
+        var limiter = limiter(2, 2, 2, 1);
+        var first = TestPublisher.<String>create();
+        var second = TestPublisher.<String>create();
+        var third = TestPublisher.<String>create();
+
+        var firstCall = limiter.protect(first.mono()).subscribe();
+        limiter.protect(second.mono()).subscribe();
+        limiter.protect(third.mono()).subscribe();
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getQueued());
+        third.assertNoSubscribers();
+
+        StepVerifier.create(limiter.protect(Mono.just("over")))
+                .expectError(LimitExceededException.class)
+                .verify();
+        assertEquals(1.0, meterRegistry.get("items.repository.limit.rejected").counter().count(), 0);
+
+        first.emit("done");
+        assertTrue(firstCall.isDisposed());
+        third.assertSubscribers(1);
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    public void cancelledWaiterGivesUpItsPlace() {
+        var limiter = limiter(1, 1, 1, 1);
+        var first = TestPublisher.<String>create();
+        var waiting = TestPublisher.<String>create();
+
+        limiter.protect(first.mono()).subscribe();
+        limiter.protect(waiting.mono()).subscribe().dispose();
+        assertEquals(0, limiter.getQueued());
+
+        first.emit("done");
+        waiting.assertNoSubscribers();
+        assertEquals(0, limiter.getInFlight());
+        StepVerifier.create(limiter.protect(Mono.just("next")))
+                .expectNext("next")
+                .verifyComplete();
+    }
+
+    @Test
+    public void cancelledCallReleasesItsPermit() {
+        var limiter = limiter(1, 1, 1, 1);
+        var slow = TestPublisher.<String>create();
+
+        limiter.protect(slow.mono()).subscribe().dispose();
+
+        slow.assertCancelled();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void growsTowardCapacity() {
+        var server = new SimulatedServer(10, Duration.ofMillis(10));
+        var limiter = limiter(4, 4, 200, 1000);
+
+        load(limiter, server, 100, Duration.ofSeconds(3));
+
+        assertTrue("limit " + limiter.getLimit(), limiter.getLimit() >= 11 && limiter.getLimit() <= 17);
+    }
+
+    @Test
+    public void shrinksTowardCapacity() {
+        var server = new SimulatedServer(10, Duration.ofMillis(10));
+        var limiter = limiter(100, 4, 200, 1000);
+
+        load(limiter, server, 100, Duration.ofSeconds(3));
+
+        assertTrue("limit " + limiter.getLimit(), limiter.getLimit() >= 11 && limiter.getLimit() <= 17);
+    }
+
+    @Test
+    public void settlesWithinDefaultToleranceOfCapacity() {
+        var server = new SimulatedServer(10, Duration.ofMillis(10));
+        var limiter = limiter(4, 4, 200, 1000, new ResilienceProperties.Limiter().getTolerance());
+
+        load(limiter, server, 100, Duration.ofSeconds(3));
+
+        // the shipped tolerance of 1.5 lets latency rise by half: 1.5 * capacity + sqrt(limit), about 19.7 for 10
+        assertTrue("limit " + limiter.getLimit(), limiter.getLimit() >= 16 && limiter.getLimit() <= 24);
+    }
+
+    /**
+     * Keeps {@code clients} calls going, each starting a new one as soon as the last answered.
+     */
+    private static void load(AdaptiveLimiter limiter, SimulatedServer server, int clients, Duration duration) {
+        Flux.range(0, clients)
+                .flatMap(client -> limiter.protect(server.call()).repeat(), clients)
+                .take(duration)
+                .blockLast();
+    }
+
+    /**
+     * A stand-in for Mongo that runs {@code capacity} calls at once, each taking {@code latency}, and queues the
+     * rest without holding a thread, so that latency rises with load past its capacity.
+     */
+    private static final class SimulatedServer {
+
+        private final int capacity;
+        private final Duration latency;
+        private final AtomicInteger running = new AtomicInteger();
+        private final Queue<MonoSink<String>> waiting = new ConcurrentLinkedQueue<>();
+
+        SimulatedServer(int capacity, Duration latency) {
+            this.capacity = capacity;
+            this.latency = latency;
+        }
+
+        Mono<String> call() {
+            return Mono.<String>create(sink -> {
+                waiting.offer(sink);
+                next();
+            });
+        }
+
+        private void next() {
+            while (!waiting.isEmpty()) {
+                var current = running.get();
+                if (current >= capacity) {
+                    return;
+                }
+                if (!running.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                var sink = waiting.poll();
+                if (sink == null) {
+                    running.decrementAndGet();
+                    continue;
+                }
+                Mono.delay(latency).subscribe(tick -> {
+                    running.decrementAndGet();
+                    sink.success("ok");
+                    next();
+                });
+            }
+        }
+    }
+
+}
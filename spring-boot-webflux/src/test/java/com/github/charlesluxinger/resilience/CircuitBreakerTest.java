@@ -0,0 +1,169 @@
+package com.github.charlesluxinger.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.charlesluxinger.resilience.CircuitBreaker.State.CLOSED;
+import static com.github.charlesluxinger.resilience.CircuitBreaker.State.HALF_OPEN;
+import static com.github.charlesluxinger.resilience.CircuitBreaker.State.OPEN;
+import static org.junit.Assert.assertEquals;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CircuitBreaker breaker() {
+        var properties = new ResilienceProperties.Breaker();
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(0.5);
+        properties.setOpenDuration(Duration.ofSeconds(5));
+        properties.setHalfOpenCalls(2);
+        return new CircuitBreaker("test", properties, TransientErrors::isTransient, meterRegistry, clock::get);
+    }
+
+    private static Mono<String> down() {
+        return Mono.error(new DataAccessResourceFailureException("down"));
+    }
+
+    private static void call(CircuitBreaker breaker, Mono<String> call) {
+        breaker.protect(call).onErrorResume(error -> Mono.empty()).block();
+    }
+
+    private void elapse(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    public void staysClosedUntilMinimumCalls() {
+        var breaker = breaker();
+
+        for (int i = 0; i < 3; i++) {
+            call(breaker, down());
+        }
+
+        assertEquals(CLOSED, breaker.getState());
+        call(breaker, down());
+        assertEquals(OPEN, breaker.getState());
+    }
+
+    @Test
+    public void opensAtFailureRate() {
+        var breaker = breaker();
+
+        for (int i = 0; i < 6; i++) {
+            call(breaker, Mono.just("ok"));
+        }
+        for (int i = 0; i < 4; i++) {
+            call(breaker, down());
+        }
+        assertEquals(CLOSED, breaker.getState());
+
+        // the window only holds the last 10 calls: 5 successes and 5 failures now
+        call(breaker, down());
+        assertEquals(OPEN, breaker.getState());
+    }
+
+    @Test
+    public void nonTransientErrorsDoNotCount() {
+        var breaker = breaker();
+
+        for (int i = 0; i < 10; i++) {
+            call(breaker, Mono.error(new DuplicateKeyException("duplicate")));
+        }
+
+        assertEquals(CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failsFastWhileOpen() {
+        var breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, down());
+        }
+
+        var subscribed = new AtomicInteger();
+        StepVerifier.create(breaker.protect(Mono.just("ok").doOnSubscribe(s -> subscribed.incrementAndGet())))
+                .expectError(CircuitOpenException.class)
+                .verify();
+
+        assertEquals(0, subscribed.get());
+        assertEquals(1.0, meterRegistry.get("items.repository.circuit.rejected").counter().count(), 0);
+        assertEquals(1.0, meterRegistry.get("items.repository.circuit.state").tag("state", "open").gauge().value(), 0);
+    }
+
+    @Test
+    public void halfOpenProbesClose() {
+        var breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, down());
+        }
+
+        elapse(Duration.ofSeconds(5));
+        assertEquals(HALF_OPEN, breaker.getState());
+
+        var first = TestPublisher.<String>create();
+        var second = TestPublisher.<String>create();
+        var firstProbe = StepVerifier.create(breaker.protect(first.mono())).expectNext("ok").expectComplete().verifyLater();
+        var secondProbe = StepVerifier.create(breaker.protect(second.mono())).expectNext("ok").expectComplete().verifyLater();
+
+        // both probes are taken, anything else is still rejected
+        StepVerifier.create(breaker.protect(Mono.just("ok")))
+                .expectError(CircuitOpenException.class)
+                .verify();
+
+        first.emit("ok");
+        second.emit("ok");
+        firstProbe.verify();
+        secondProbe.verify();
+
+        assertEquals(CLOSED, breaker.getState());
+        assertEquals(1.0, meterRegistry.get("items.repository.circuit.transitions")
+                .tag("from", "half_open").tag("to", "closed").counter().count(), 0);
+    }
+
+    @Test
+    public void failedProbeReopens() {
+        var breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, down());
+        }
+        elapse(Duration.ofSeconds(5));
+
+        call(breaker, down());
+
+        assertEquals(OPEN, breaker.getState());
+        elapse(Duration.ofSeconds(4));
+        assertEquals(OPEN, breaker.getState());
+        elapse(Duration.ofSeconds(1));
+        assertEquals(HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void cancelledProbeFreesItsSlot() {
+        var breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, down());
+        }
+        elapse(Duration.ofSeconds(5));
+
+        breaker.protect(Mono.never()).subscribe().dispose();
+        breaker.protect(Flux.never()).subscribe().dispose();
+
+        call(breaker, Mono.just("ok"));
+        call(breaker, Mono.just("ok"));
+        assertEquals(CLOSED, breaker.getState());
+    }
+
+}
@@ -0,0 +1,254 @@
+package com.github.charlesluxinger.resilience;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import com.github.charlesluxinger.repository.support.RepositoryCallDecorator;
+import com.github.charlesluxinger.repository.support.RepositoryDecoratingPostProcessor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResilientRepositoryDecoratorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FaultyRepository faults = new FaultyRepository();
+
+    private ResilienceProperties properties() {
+        var properties = new ResilienceProperties();
+        properties.getRetry().setMaxRetries(2);
+        properties.getRetry().setMinBackoff(Duration.ofMillis(100));
+        properties.getRetry().setMaxBackoff(Duration.ofSeconds(1));
+        properties.getBreaker().setWindowSize(10);
+        properties.getBreaker().setMinimumCalls(5);
+        properties.getBreaker().setOpenDuration(Duration.ofSeconds(30));
+        properties.getBreaker().setHalfOpenCalls(1);
+        properties.getBulkhead().setMaxConcurrentReads(2);
+        properties.getBulkhead().setMaxConcurrentWrites(1);
+        return properties;
+    }
+
+    /**
+     * The stand-in repository proxied the way the application proxies the real one.
+     */
+    private ItemRepository repository(ResilienceProperties properties) {
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("resilient", new ResilientRepositoryDecorator(properties, meterRegistry));
+        var postProcessor = new RepositoryDecoratingPostProcessor(beanFactory.getBeanProvider(RepositoryCallDecorator.class));
+        return (ItemRepository) postProcessor.postProcessAfterInitialization(faults.repository(), "itemRepository");
+    }
+
+    private static DataAccessResourceFailureException down() {
+        return new DataAccessResourceFailureException("down");
+    }
+
+    @Test
+    public void retriesTransientReadErrors() {
+        var repository = repository(properties());
+        faults.script("findById", Mono.error(down()), Mono.error(down()), Mono.just(new Item("1", "item", 100)));
+
+        StepVerifier.withVirtualTime(() -> repository.findById("1"))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectNextMatches(item -> item.getId().equals("1"))
+                .verifyComplete();
+
+        assertEquals(3, faults.calls("findById"));
+        assertEquals(2.0, meterRegistry.get("items.repository.retries").tag("method", "findById").counter().count(), 0);
+    }
+
+    @Test
+    public void givesUpWithTheOriginalError() {
+        var repository = repository(properties());
+        faults.script("findById", Mono.error(down()), Mono.error(down()), Mono.error(down()), Mono.just(new Item()));
+
+        StepVerifier.withVirtualTime(() -> repository.findById("1"))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(DataAccessResourceFailureException.class)
+                .verify();
+
+        assertEquals(3, faults.calls("findById"));
+    }
+
+    @Test
+    public void doesNotRetryWrites() {
+        var repository = repository(properties());
+        faults.script("save", Mono.error(down()), Mono.just(new Item()));
+
+        StepVerifier.create(repository.save(new Item("1", "item", 100)))
+                .expectError(DataAccessResourceFailureException.class)
+                .verify();
+
+        assertEquals(1, faults.calls("save"));
+    }
+
+    @Test
+    public void doesNotRetryNonTransientErrors() {
+        var repository = repository(properties());
+        faults.script("findById", Mono.error(new DuplicateKeyException("duplicate")), Mono.just(new Item()));
+
+        StepVerifier.create(repository.findById("1"))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+
+        assertEquals(1, faults.calls("findById"));
+    }
+
+    @Test
+    public void doesNotRetryStreamAfterFirstElement() {
+        var repository = repository(properties());
+        faults.script("findAll",
+                Flux.just(new Item("1", "a", 100)).concatWith(Flux.error(down())),
+                Flux.just(new Item("1", "a", 100), new Item("2", "b", 200)));
+
+        StepVerifier.create(repository.findAll())
+                .expectNextCount(1)
+                .expectError(DataAccessResourceFailureException.class)
+                .verify();
+
+        assertEquals(1, faults.calls("findAll"));
+    }
+
+    @Test
+    public void retriesStreamFailingBeforeFirstElement() {
+        var repository = repository(properties());
+        faults.script("findAll", Flux.error(down()), Flux.just(new Item("1", "a", 100), new Item("2", "b", 200)));
+
+        StepVerifier.withVirtualTime(() -> repository.findAll())
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        assertEquals(2, faults.calls("findAll"));
+    }
+
+    @Test
+    public void breakerFailsFastDuringOutage() {
+        var properties = properties();
+        properties.getRetry().setMaxRetries(0);
+        var repository = repository(properties);
+        faults.failAlways("findById", ResilientRepositoryDecoratorTest::down);
+
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(repository.findById("1"))
+                    .expectError(DataAccessResourceFailureException.class)
+                    .verify();
+        }
+        StepVerifier.create(repository.findById("1"))
+                .expectError(CircuitOpenException.class)
+                .verify();
+        assertEquals(5, faults.calls("findById"));
+
+        // the breaker is shared by every method, writes fail fast too
+        StepVerifier.create(repository.save(new Item()))
+                .expectError(CircuitOpenException.class)
+                .verify();
+        assertEquals(0, faults.calls("save"));
+        assertEquals(1.0, meterRegistry.get("items.repository.circuit.transitions")
+                .tag("from", "closed").tag("to", "open").counter().count(), 0);
+    }
+
+    @Test
+    public void bulkheadRejectsOverCap() {
+        var repository = repository(properties());
+        var slow = TestPublisher.<Item>create();
+        faults.script("findById", slow.mono(), slow.mono(), Mono.just(new Item()));
+
+        var first = StepVerifier.create(repository.findById("1")).expectNextCount(1).expectComplete().verifyLater();
+        var second = StepVerifier.create(repository.findById("2")).expectNextCount(1).expectComplete().verifyLater();
+        StepVerifier.create(repository.findById("3"))
+                .expectError(BulkheadFullException.class)
+                .verify();
+
+        // reads and writes have their own bulkheads
+        faults.script("save", Mono.just(new Item()));
+        StepVerifier.create(repository.save(new Item())).expectNextCount(1).verifyComplete();
+
+        slow.emit(new Item("1", "item", 100));
+        first.verify();
+        second.verify();
+        StepVerifier.create(repository.findById("3")).expectNextCount(1).verifyComplete();
+        assertEquals(1.0, meterRegistry.get("items.repository.bulkhead.rejected").tag("bulkhead", "read").counter().count(), 0);
+    }
+
+    @Test
+    public void disabledIsPassThrough() {
+        var properties = properties();
+        properties.setEnabled(false);
+        var repository = repository(properties);
+        faults.script("findById", Mono.error(down()), Mono.just(new Item()));
+
+        StepVerifier.create(repository.findById("1"))
+                .expectError(DataAccessResourceFailureException.class)
+                .verify();
+    }
+
+    /**
+     * {@link ItemRepository} whose calls return scripted results, one per subscription, in order.
+     */
+    private static class FaultyRepository {
+
+        private final Map<String, Queue<Object>> scripts = new ConcurrentHashMap<>();
+        private final Map<String, Supplier<Throwable>> outages = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        void script(String method, Object... results) {
+            scripts.computeIfAbsent(method, name -> new ConcurrentLinkedQueue<>()).addAll(List.of(results));
+        }
+
+        void failAlways(String method, Supplier<Throwable> error) {
+            outages.put(method, error);
+        }
+
+        int calls(String method) {
+            return calls.getOrDefault(method, new AtomicInteger()).get();
+        }
+
+        ItemRepository repository() {
+            return (ItemRepository) Proxy.newProxyInstance(ItemRepository.class.getClassLoader(),
+                    new Class<?>[]{ItemRepository.class},
+                    (proxy, method, args) -> {
+                        var name = method.getName();
+                        if (method.getDeclaringClass() == Object.class) {
+                            return name.equals("equals") ? proxy == args[0] : name.equals("hashCode") ? System.identityHashCode(proxy) : "FaultyRepository";
+                        }
+                        if (method.getReturnType() == Flux.class) {
+                            return Flux.defer(() -> next(name, Flux.class));
+                        }
+                        return Mono.defer(() -> next(name, Mono.class));
+                    });
+        }
+
+        @SuppressWarnings("unchecked")
+        private <P> P next(String method, Class<P> type) {
+            calls.computeIfAbsent(method, name -> new AtomicInteger()).incrementAndGet();
+
+            var outage = outages.get(method);
+            if (outage != null) {
+                return (P) (type == Flux.class ? Flux.error(outage.get()) : Mono.error(outage.get()));
+            }
+            var result = scripts.getOrDefault(method, new ConcurrentLinkedQueue<>()).poll();
+            if (result == null) {
+                throw new AssertionError("Unexpected call to " + method);
+            }
+            return (P) result;
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.github.charlesluxinger.rsocket;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.rsocket.context.LocalRSocketServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Throughput of the same item operations over HTTP and over RSocket on TCP and WebSocket: streaming the whole
+ * collection, and single-item gets issued one after the other and with {@link #CONCURRENCY} in flight.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.rsocket.server.port=0")
+@RunWith(SpringRunner.class)
+@DirtiesContext
+public class ItemTransportBenchmarkTest {
+
+    private static final int ITEMS = 10_000;
+    private static final int STREAMS = 10;
+    private static final int GETS = 5_000;
+    private static final int CONCURRENCY = 64;
+
+    @Autowired
+    private RSocketRequester.Builder requesterBuilder;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @LocalRSocketServerPort
+    private int rsocketPort;
+
+    @LocalServerPort
+    private int httpPort;
+
+    private WebClient http;
+    private RSocketRequester tcp;
+    private RSocketRequester webSocket;
+
+    @Before
+    public void setUp() {
+        itemRepository.deleteAll()
+                .thenMany(Flux.range(0, ITEMS).map(i -> new Item(i == 0 ? "ABC" : null, "Item " + i, i * 100L)))
+                .buffer(1000)
+                .concatMap(itemRepository::saveAll)
+                .blockLast();
+
+        http = WebClient.create("http://localhost:" + httpPort);
+        tcp = requesterBuilder.connectTcp("localhost", rsocketPort).block();
+        webSocket = requesterBuilder.connectWebSocket(URI.create("ws://localhost:" + httpPort + "/rsocket")).block();
+    }
+
+    @After
+    public void tearDown() {
+        tcp.rsocket().dispose();
+        webSocket.rsocket().dispose();
+    }
+
+    /**
+     * Every transport runs once unmeasured first, so the shared server and codec paths are compiled before any is timed.
+     */
+    @Test
+    public void compareTransports() {
+        for (var measured : List.of(false, true)) {
+            if (measured) {
+                System.out.println(String.format("%-10s %14s %12s %14s", "transport", "stream items/s", "gets/s", "gets/s x" + CONCURRENCY));
+            }
+            compare("http", measured,
+                    () -> http.get().uri("/items").accept(MediaType.APPLICATION_STREAM_JSON).retrieve().bodyToFlux(Item.class),
+                    () -> http.get().uri("/items/{id}", "ABC").retrieve().bodyToMono(Item.class));
+            compare("rsocket", measured, () -> tcp.route("items.list").retrieveFlux(Item.class),
+                    () -> tcp.route("items.get.{id}", "ABC").retrieveMono(Item.class));
+            compare("websocket", measured, () -> webSocket.route("items.list").retrieveFlux(Item.class),
+                    () -> webSocket.route("items.get.{id}", "ABC").retrieveMono(Item.class));
+        }
+    }
+
+    private void compare(String transport, boolean measured, Supplier<Flux<Item>> stream, Supplier<Mono<Item>> get) {
+        var streams = new long[STREAMS];
+        for (int i = 0; i < STREAMS; i++) {
+            var start = System.nanoTime();
+            assertEquals(ITEMS, (long) stream.get().count().block());
+            streams[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(streams);
+
+        var start = System.nanoTime();
+        Flux.range(0, GETS).concatMap(i -> get.get()).blockLast();
+        var sequential = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Flux.range(0, GETS).flatMap(i -> get.get(), CONCURRENCY).blockLast();
+        var concurrent = System.nanoTime() - start;
+
+        if (measured) {
+            System.out.println(String.format("%-10s %14.0f %12.0f %14.0f", transport,
+                    ITEMS / (streams[STREAMS / 2] / 1e9), GETS / (sequential / 1e9), GETS / (concurrent / 1e9)));
+        }
+    }
+
+}
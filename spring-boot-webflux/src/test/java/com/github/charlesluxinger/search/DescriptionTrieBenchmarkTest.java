@@ -0,0 +1,37 @@
+package com.github.charlesluxinger.search;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Autocomplete lookups over 100,000 descriptions, which should take microseconds each. Only runs with
+ * {@code mvn test -Dbenchmarks}.
+ */
+public class DescriptionTrieBenchmarkTest {
+
+    private static final int DESCRIPTIONS = 100_000;
+    private static final int LOOKUPS = 100_000;
+
+    @Test
+    public void answersInMicroseconds() {
+        var trie = new DescriptionTrie();
+        for (int i = 0; i < DESCRIPTIONS; i++) {
+            trie.add("Product " + Integer.toString(i, 36) + " model " + i);
+        }
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            trie.complete("product " + Integer.toString(i % 1000, 36), 10);
+        }
+
+        var start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            trie.complete("product " + Integer.toString(i % 1000, 36), 10);
+        }
+        var averageMicros = (System.nanoTime() - start) / 1_000d / LOOKUPS;
+
+        System.out.println("Average autocomplete lookup: " + averageMicros + " us over " + trie.size() + " keys");
+        assertTrue(averageMicros < 100);
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.github.charlesluxinger.search;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class DescriptionTrieTest {
+
+    @Test
+    public void completesEveryWord() {
+        var trie = new DescriptionTrie();
+        trie.add("Samsung TV");
+        trie.add("LG TV");
+        trie.add("Apple Watch");
+
+        assertEquals(List.of("Samsung TV"), trie.complete("sam", 10));
+        assertEquals(List.of("Samsung TV", "LG TV"), trie.complete("TV", 10));
+        assertEquals(List.of("Apple Watch"), trie.complete("wat", 10));
+        assertEquals(List.of(), trie.complete("x", 10));
+    }
+
+    @Test
+    public void splitsAndMergesEdges() {
+        var trie = new DescriptionTrie();
+        trie.add("Beats");
+        trie.add("Bea");
+        trie.add("Bear");
+
+        assertEquals(List.of("Bea", "Bear", "Beats"), trie.complete("be", 10));
+        assertEquals(List.of("Bear"), trie.complete("bear", 10));
+
+        trie.remove("Bea");
+        assertEquals(List.of("Bear", "Beats"), trie.complete("bea", 10));
+
+        trie.remove("Bear");
+        assertEquals(List.of("Beats"), trie.complete("b", 10));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    public void sharedDescriptionsAreCounted() {
+        var trie = new DescriptionTrie();
+        trie.add("LG TV");
+        trie.add("LG TV");
+
+        trie.remove("LG TV");
+        assertEquals(List.of("LG TV"), trie.complete("lg", 10));
+
+        trie.remove("LG TV");
+        assertEquals(List.of(), trie.complete("lg", 10));
+        assertEquals(0, trie.size());
+    }
+
+    @Test
+    public void removingUnknownDescriptionIsNoop() {
+        var trie = new DescriptionTrie();
+        trie.add("Apple Watch");
+
+        trie.remove("Apple");
+        trie.remove("Apple Watches");
+
+        assertEquals(List.of("Apple Watch"), trie.complete("apple", 10));
+    }
+
+    @Test
+    public void limitsResults() {
+        var trie = new DescriptionTrie();
+        for (int i = 0; i < 100; i++) {
+            trie.add("Item " + i);
+        }
+
+        assertEquals(5, trie.complete("item", 5).size());
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.github.charlesluxinger.snapshot;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@SpringBootTest(properties = {"item-snapshot.enabled=true", "item-snapshot.change-stream=false", "item-snapshot.publish-interval=1h"})
+@RunWith(SpringRunner.class)
+@DirtiesContext
+@AutoConfigureWebTestClient
+public class ItemSnapshotStoreTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemSnapshotStore itemSnapshotStore;
+
+    public List<Item> data() {
+        return List.of(new Item(null, "Samsung TV", 39999),
+                new Item(null, "LG TV", 32999),
+                new Item(null, "Apple Watch", 34999),
+                new Item("ABC", "Beats HeadPhones", 14999));
+    }
+
+    @Before
+    public void setUp(){
+        itemRepository.deleteAll()
+                .thenMany(Flux.fromIterable(data()))
+                .concatMap(itemRepository::save)
+                .then(itemSnapshotStore.reload())
+                .block();
+    }
+
+    @Test
+    public void servesPriceRangeFromSnapshot(){
+        webTestClient
+            .get()
+            .uri("/items?minPrice=300&maxPrice=400&sort=price,asc&consistency=snapshot")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].price").isEqualTo(329.99)
+                .jsonPath("$[2].price").isEqualTo(399.99);
+    }
+
+    @Test
+    public void writesShowUpAfterPublish(){
+        itemRepository.deleteById("ABC").block();
+        assertEquals(4, itemSnapshotStore.current().orElseThrow().size());
+
+        itemSnapshotStore.publish();
+
+        var snapshot = itemSnapshotStore.current().orElseThrow();
+        assertEquals(3, snapshot.size());
+        assertFalse(snapshot.findById("ABC").isPresent());
+    }
+
+    @Test
+    public void rejectsUnknownConsistency(){
+        webTestClient
+            .get()
+            .uri("/items?consistency=eventual")
+            .exchange()
+            .expectStatus()
+                .isBadRequest();
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.github.charlesluxinger.snapshot;
+
+import com.github.charlesluxinger.document.Item;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ItemSnapshotTest {
+
+    private static final String OBJECT_ID = "5f1b2c3d4e5f6a7b8c9d0e1f";
+
+    private final ItemSnapshot snapshot = ItemSnapshot.of(1, List.of(
+            new Item("C", "LG TV", 32999, 1L),
+            new Item("A", "Samsung TV", 39999, 3L),
+            new Item(OBJECT_ID, "LG TV", 32999, 0L),
+            new Item("B", "Apple Watch", 34999, 0L),
+            new Item("D", null, 14999, null)));
+
+    private static List<String> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void keepsPriceAndIdOrder() {
+        // ObjectIds sort after strings, as they do in Mongo
+        assertEquals(List.of("D", "C", OBJECT_ID, "B", "A"), ids(snapshot.findAll()));
+    }
+
+    @Test
+    public void materializesItemsFromColumns() {
+        var item = snapshot.findById("A").orElseThrow();
+
+        assertEquals("Samsung TV", item.getDescription());
+        assertEquals(39999, item.getPrice());
+        assertEquals(Long.valueOf(3), item.getVersion());
+        assertNull(snapshot.findById("D").orElseThrow().getDescription());
+        assertFalse(snapshot.findById("Z").isPresent());
+    }
+
+    @Test
+    public void pagesPriceRangesLikeTheRepository() {
+        assertEquals(List.of("C", OBJECT_ID, "B"), ids(snapshot.range(30000, 35000, true, null, null, 10)));
+        assertEquals(List.of("B", OBJECT_ID), ids(snapshot.range(30000, 35000, false, null, null, 2)));
+        assertEquals(List.of(OBJECT_ID, "B"), ids(snapshot.range(Long.MIN_VALUE, Long.MAX_VALUE, true, 32999L, "C", 2)));
+        assertEquals(List.of("C", "D"), ids(snapshot.range(Long.MIN_VALUE, Long.MAX_VALUE, false, 32999L, OBJECT_ID, 10)));
+        assertEquals(List.of(), snapshot.range(40000, Long.MAX_VALUE, true, null, null, 10));
+    }
+
+    @Test
+    public void appliesChangesIntoANewSnapshot() {
+        var changes = new HashMap<String, Item>();
+        changes.put("A", new Item("A", "Samsung TV", 9999, 4L));
+        changes.put("B", null);
+        changes.put("E", new Item("E", "Pixel 5", 69999, 0L));
+
+        var next = snapshot.apply(2, changes);
+
+        assertEquals(List.of("A", "D", "C", OBJECT_ID, "E"), ids(next.findAll()));
+        assertEquals("Pixel 5", next.findById("E").orElseThrow().getDescription());
+        assertEquals(2, next.getGeneration());
+        assertEquals(List.of("D", "C", OBJECT_ID, "B", "A"), ids(snapshot.findAll()));
+    }
+
+    @Test
+    public void ignoresChangesOlderThanTheRow() {
+        var changes = new HashMap<String, Item>();
+        changes.put("A", new Item("A", "Samsung TV", 100, 2L));
+
+        assertEquals(39999, snapshot.apply(2, changes).findById("A").orElseThrow().getPrice());
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.github.charlesluxinger.startup;
+
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.boot.LazyInitializationBeanFactoryPostProcessor;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EagerBeansPostProcessorTest {
+
+    private static GenericBeanDefinition definition() {
+        var definition = new GenericBeanDefinition();
+        definition.setBeanClass(Object.class);
+        return definition;
+    }
+
+    @Test
+    public void listedBeansStayEagerUnderLazyInitialization() {
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("itemRepository", definition());
+        beanFactory.registerBeanDefinition("itemController", definition());
+
+        var postProcessor = new EagerBeansPostProcessor();
+        postProcessor.setEnvironment(new MockEnvironment().withProperty("startup.eager-beans", "itemRepository,missing"));
+        postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+        new LazyInitializationBeanFactoryPostProcessor().postProcessBeanFactory(beanFactory);
+
+        assertFalse(beanFactory.getBeanDefinition("itemRepository").isLazyInit());
+        assertTrue(beanFactory.getBeanDefinition("itemController").isLazyInit());
+    }
+
+    @Test
+    public void explicitLazyIsKept() {
+        var beanFactory = new DefaultListableBeanFactory();
+        var lazy = definition();
+        lazy.setLazyInit(true);
+        beanFactory.registerBeanDefinition("itemRepository", lazy);
+
+        var postProcessor = new EagerBeansPostProcessor();
+        postProcessor.setEnvironment(new MockEnvironment().withProperty("startup.eager-beans", "itemRepository"));
+        postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+
+        assertTrue(beanFactory.getBeanDefinition("itemRepository").isLazyInit());
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.github.charlesluxinger.startup;
+
+import com.github.charlesluxinger.ReactiveSpringApplication;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Time from JVM launch to the first successful {@code GET /items}, for the default configuration, the
+ * {@code startup} profile, and the {@code startup} profile on an AppCDS archive dumped by a training run of
+ * this same classpath. Each start is a fresh JVM with its own embedded Mongo.
+ * <p>
+ * AppCDS only archives classes from jars, so the application classes are jarred first and started with
+ * the jars of the test classpath.
+ * <p>
+ * Fails when the {@code startup} profile is slower than the default, or slower than {@code -Dstartup.budget-ms}
+ * when given. Only runs with {@code mvn test -Dbenchmarks}, and is skipped before JDK 13, which cannot dump
+ * an archive at exit, or when embedded Mongo can neither be found nor downloaded.
+ */
+public class StartupBenchmarkTest {
+
+    private static final int ROUNDS = 3;
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    private String classpath;
+
+    @Before
+    public void assumeSupported() {
+        assumeTrue("-XX:ArchiveClassesAtExit needs JDK 13", Runtime.version().feature() >= 13);
+        assumeTrue("embedded Mongo is not available", embeddedMongoAvailable());
+    }
+
+    @Test
+    public void timeToFirstItemsResponse() throws Exception {
+        var directory = Files.createTempDirectory("startup-benchmark");
+        classpath = classpath(directory.resolve("app.jar"));
+        var archive = directory.resolve("app.jsa");
+        train(archive);
+
+        System.out.println(String.format("%-14s %10s %10s", "variant", "median ms", "min ms"));
+        var defaults = measure("default", List.of());
+        var startup = measure("startup", List.of("-Dspring.profiles.active=startup"));
+        measure("startup+cds", List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.profiles.active=startup"));
+
+        assertTrue("startup profile " + startup + "ms, default " + defaults + "ms", startup <= defaults * 1.1);
+        var budget = Long.getLong("startup.budget-ms");
+        if (budget != null) {
+            assertTrue("startup profile " + startup + "ms over budget " + budget + "ms", startup <= budget);
+        }
+    }
+
+    private long measure(String variant, List<String> jvmArgs) throws Exception {
+        var millis = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            millis[i] = run(jvmArgs);
+        }
+        Arrays.sort(millis);
+
+        System.out.println(String.format("%-14s %10d %10d", variant, millis[ROUNDS / 2], millis[0]));
+        return millis[ROUNDS / 2];
+    }
+
+    /**
+     * Training run, see {@link StartupTrainingRun}: the application serves one request and exits, dumping the archive.
+     */
+    private void train(Path archive) throws Exception {
+        var process = launch(List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.profiles.active=startup",
+                "-Dstartup.training-run=true"), freePort());
+        if (!process.waitFor(START_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS) || !Files.exists(archive)) {
+            process.destroyForcibly();
+            throw new AssertionError("Training run did not dump " + archive);
+        }
+    }
+
+    /**
+     * Milliseconds from launching the application until {@code /items} answered 200.
+     */
+    private long run(List<String> jvmArgs) throws Exception {
+        var port = freePort();
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/items")).timeout(Duration.ofSeconds(5)).build();
+
+        var start = System.nanoTime();
+        var process = launch(jvmArgs, port);
+        try {
+            while (System.nanoTime() - start < START_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new AssertionError("Application exited with " + process.exitValue());
+                }
+                if (ok(request)) {
+                    return (System.nanoTime() - start) / 1_000_000;
+                }
+                Thread.sleep(10);
+            }
+            throw new AssertionError("No /items response within " + START_TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private Process launch(List<String> jvmArgs, int port) throws IOException {
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", classpath, ReactiveSpringApplication.class.getName(),
+                "--server.port=" + port, "--spring.data.mongodb.port=0"));
+
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(System.getProperty("java.io.tmpdir"), "startup-benchmark.log"))
+                .start();
+    }
+
+    private boolean ok(HttpRequest request) throws InterruptedException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The application classes jarred into {@code jar}, followed by every jar of the test classpath.
+     */
+    private static String classpath(Path jar) throws Exception {
+        var classes = Path.of(ReactiveSpringApplication.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        try (var out = new JarOutputStream(Files.newOutputStream(jar)); var files = Files.walk(classes)) {
+            for (var file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+
+        // surefire may start tests from a manifest-only jar, the real classpath is then in this property
+        var testClasspath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        return Stream.concat(Stream.of(jar.toString()), Arrays.stream(testClasspath.split(File.pathSeparator))
+                        .filter(entry -> entry.endsWith(".jar")))
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    /**
+     * Whether flapdoodle has already extracted a mongod, or could download one.
+     */
+    private static boolean embeddedMongoAvailable() {
+        var extracted = Path.of(System.getProperty("user.home"), ".embedmongo");
+        if (Files.isDirectory(extracted)) {
+            try (var files = Files.list(extracted)) {
+                if (files.findAny().isPresent()) {
+                    return true;
+                }
+            } catch (IOException e) {
+                // fall through to the download host
+            }
+        }
+        try {
+            InetAddress.getByName("fastdl.mongodb.org");
+            return true;
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
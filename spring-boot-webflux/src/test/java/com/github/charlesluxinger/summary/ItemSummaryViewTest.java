@@ -0,0 +1,156 @@
+package com.github.charlesluxinger.summary;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.document.ItemSummary;
+import com.github.charlesluxinger.repository.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@DirtiesContext
+@AutoConfigureWebTestClient
+public class ItemSummaryViewTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private ItemSummaryView itemSummaryView;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public List<Item> data() {
+        return List.of(new Item(null, "Samsung TV", 40000),
+                new Item(null, "LG TV", 30000),
+                new Item(null, "LG TV", 35000),
+                new Item("ABC", "Beats HeadPhones", 15000));
+    }
+
+    @Before
+    public void setUp(){
+        itemRepository.deleteAll()
+                .thenMany(Flux.fromIterable(data()))
+                .concatMap(itemRepository::save)
+                .then(itemSummaryView.rebuild())
+                .block();
+    }
+
+    @Test
+    public void getSummary(){
+        webTestClient
+            .get()
+            .uri("/items/summary")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectBody()
+                .jsonPath("$.count").isEqualTo(4)
+                .jsonPath("$.totalValue").isEqualTo(1200.0)
+                .jsonPath("$.descriptions[0].description").isEqualTo("LG TV")
+                .jsonPath("$.descriptions[0].count").isEqualTo(2)
+                .jsonPath("$.descriptions.length()").isEqualTo(3);
+    }
+
+    @Test
+    public void summaryFollowsWrites(){
+        webTestClient
+            .post()
+            .uri("/items")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Mono.just(new Item(null, "Apple Watch", 10000)), Item.class)
+            .exchange()
+            .expectStatus()
+                .isCreated();
+
+        webTestClient
+            .put()
+            .uri("/items/{id}", "ABC")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Mono.just(new Item(null, "LG TV", 5000)), Item.class)
+            .exchange()
+            .expectStatus()
+                .isOk();
+
+        var summary = itemSummaryView.summary();
+        assertEquals(5, summary.getCount());
+        assertEquals(120000, summary.getTotalValue());
+        assertEquals("LG TV", summary.getDescriptions().get(0).getDescription());
+        assertEquals(3, summary.getDescriptions().get(0).getCount());
+
+        webTestClient
+            .delete()
+            .uri("/items/{id}", "ABC")
+            .exchange()
+            .expectStatus()
+                .isNoContent();
+
+        summary = itemSummaryView.summary();
+        assertEquals(4, summary.getCount());
+        assertEquals(115000, summary.getTotalValue());
+        assertEquals(2, summary.getDescriptions().get(0).getCount());
+    }
+
+    @Test
+    public void readsReuseSnapshotUntilNextWrite(){
+        var first = itemSummaryView.summary();
+        assertSame(first, itemSummaryView.summary());
+
+        itemRepository.save(new Item(null, "Apple Watch", 10000)).block();
+        assertEquals(first.getCount() + 1, itemSummaryView.summary().getCount());
+    }
+
+    @Test
+    public void rebuildCorrectsDrift(){
+        var drifted = meterRegistry.counter("items.summary.reconciliations", "drifted", "true").count();
+
+        // written behind the repository's back, so no event reaches the view
+        mongoTemplate.getCollection("item")
+                .flatMap(collection -> Mono.from(collection.insertOne(new Document("description", "Apple Watch").append("price", 10000L))))
+                .block();
+        assertEquals(4, itemSummaryView.summary().getCount());
+
+        var rebuilt = itemSummaryView.rebuild().block();
+
+        assertEquals(5, rebuilt.getCount());
+        assertEquals(130000, rebuilt.getTotalValue());
+        assertEquals(drifted + 1, meterRegistry.counter("items.summary.reconciliations", "drifted", "true").count(), 0);
+    }
+
+    @Test
+    public void persistWritesSummaryDocument(){
+        itemRepository.save(new Item(null, "Apple Watch", 10000)).block();
+
+        itemSummaryView.persist().block();
+
+        var persisted = mongoTemplate.findById(ItemSummary.ID, ItemSummary.class).block();
+        assertEquals(5, persisted.getCount());
+        assertEquals(130000, persisted.getTotalValue());
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.github.charlesluxinger.timing;
+
+import com.github.charlesluxinger.document.Item;
+import com.github.charlesluxinger.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+
+@SpringBootTest(properties = "server-timing.sample-rate=1.0")
+@RunWith(SpringRunner.class)
+@DirtiesContext
+@AutoConfigureWebTestClient
+public class ServerTimingFilterTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Before
+    public void setUp(){
+        itemRepository.deleteAll()
+                .thenMany(Flux.fromIterable(List.of(new Item("ABC", "Beats HeadPhones", 14999))))
+                .flatMap(itemRepository::save)
+                .blockLast();
+    }
+
+    @Test
+    public void getAllItemsHasBreakdown(){
+        webTestClient
+            .get()
+            .uri("/items")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectHeader()
+                .value(ServerTimingFilter.HEADER, containsString("db;dur="))
+            .expectHeader()
+                .value(ServerTimingFilter.HEADER, containsString("ser;dur="))
+            .expectHeader()
+                .value(ServerTimingFilter.HEADER, containsString("total;dur="));
+    }
+
+    @Test
+    public void getOneItemHasBreakdown(){
+        webTestClient
+            .get()
+            .uri("/items/{id}","ABC")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectHeader()
+                .value(ServerTimingFilter.HEADER, containsString("db;dur="));
+    }
+
+    @Test
+    public void otherPathsAreNotSampled(){
+        webTestClient
+            .get()
+            .uri("/mono")
+            .exchange()
+            .expectStatus()
+                .isOk()
+            .expectHeader()
+                .doesNotExist(ServerTimingFilter.HEADER);
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.github.charlesluxinger.timing;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ServerTimingTest {
+
+    @Test
+    public void spanRecordsIntoContextTiming() {
+        var timing = new ServerTiming();
+
+        var mono = ServerTiming
+                .span(ServerTiming.DB, Mono.just(1).delayElement(Duration.ofMillis(20)))
+                .subscriberContext(context -> context.put(ServerTiming.class, timing));
+
+        StepVerifier
+                .create(mono)
+                .expectNext(1)
+                .verifyComplete();
+
+        assertTrue(timing.snapshot().get(ServerTiming.DB) >= Duration.ofMillis(20).toNanos());
+    }
+
+    @Test
+    public void fluxSpansAccumulate() {
+        var timing = new ServerTiming();
+
+        var flux = ServerTiming
+                .span(ServerTiming.DB, Flux.range(1, 3))
+                .concatWith(ServerTiming.span(ServerTiming.DB, Flux.range(4, 2)))
+                .subscriberContext(context -> context.put(ServerTiming.class, timing));
+
+        StepVerifier
+                .create(flux)
+                .expectNextCount(5)
+                .verifyComplete();
+
+        assertTrue(timing.snapshot().containsKey(ServerTiming.DB));
+    }
+
+    @Test
+    public void fluxSpanEndsAtFirstElement() {
+        var timing = new ServerTiming();
+
+        var flux = ServerTiming
+                .span(ServerTiming.DB, Mono.just(1).delayElement(Duration.ofMillis(50))
+                        .concatWith(Mono.just(2).delayElement(Duration.ofSeconds(1))))
+                .subscriberContext(context -> context.put(ServerTiming.class, timing));
+
+        StepVerifier
+                .create(flux)
+                .expectNextCount(2)
+                .verifyComplete();
+
+        var db = timing.snapshot().get(ServerTiming.DB);
+        assertTrue(db >= Duration.ofMillis(50).toNanos());
+        assertTrue(db < Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    public void cancelledFluxSpanIsRecorded() {
+        var timing = new ServerTiming();
+
+        var flux = ServerTiming
+                .span(ServerTiming.DB, Flux.never())
+                .subscriberContext(context -> context.put(ServerTiming.class, timing));
+
+        StepVerifier
+                .create(flux)
+                .thenAwait(Duration.ofMillis(20))
+                .thenCancel()
+                .verify();
+
+        assertTrue(timing.snapshot().get(ServerTiming.DB) >= Duration.ofMillis(20).toNanos());
+    }
+
+    @Test
+    public void spanWithoutTimingIsPassThrough() {
+        var timing = new ServerTiming();
+
+        StepVerifier
+                .create(ServerTiming.span(ServerTiming.DB, Mono.just("a")))
+                .expectNext("a")
+                .verifyComplete();
+
+        assertFalse(timing.snapshot().containsKey(ServerTiming.DB));
+    }
+
+    @Test
+    public void headerValue() {
+        var phases = new LinkedHashMap<String, Long>();
+        phases.put(ServerTiming.DB, 12_345_678L);
+        phases.put(ServerTiming.SERIALIZATION, 250_000L);
+
+        assertEquals("db;dur=12.346, ser;dur=0.250", ServerTiming.toHeaderValue(phases));
+    }
+
+    @Test
+    public void appIsTotalMinusPhases() {
+        var timing = new ServerTiming();
+        timing.record(ServerTiming.DB, 1_000);
+
+        var snapshot = timing.snapshot();
+
+        assertEquals(snapshot.get(ServerTiming.TOTAL) - 1_000, snapshot.get(ServerTiming.APP).longValue());
+    }
+
+}